@@ -0,0 +1,127 @@
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A* search between two vertex ids, guided by a lower bound on the remaining distance to the target.
+ *
+ * With a consistent heuristic (never more than the true remaining distance, and changing by at most the weight of
+ * an edge along it) every vertex leaves the queue with its exact distance. The search keeps expanding until the
+ * smallest estimate in the queue exceeds the distance of the target, so every vertex of every shortest path is
+ * settled. The path is then rebuilt backwards, each step taking the settled neighbor with the smallest
+ * (distance, rank) that lies on a shortest path: the same predecessors {@link UnitWeightSearch} and
+ * {@link WeightedSearch} pick, so A* returns exactly the precomputed paths.
+ *
+ * Vertex state is tagged with the query number instead of being cleared, so a query only costs the vertices it
+ * touches. One instance should not be shared by threads.
+ */
+class AStarSearch {
+
+	private final int[][] adjacency;
+	private final int[][] weights;
+	private final int[] rank;
+	private final int[] dist;
+	private final int[] seen;
+	private final int[] done;
+	private final IndexedMinHeap heap;
+	private int query;
+	private int expanded;
+
+	/**
+	 * Creates a search engine over a fixed adjacency snapshot.
+	 *
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v
+	 * @param weights weights[v][i] is the weight of the edge from v to adjacency[v][i], null if every weight is 1
+	 * @param rank rank[v] is the tie-break order of vertex v (lower rank wins)
+	 */
+	AStarSearch(int[][] adjacency, int[][] weights, int[] rank) {
+		this.adjacency = adjacency;
+		this.weights = weights;
+		this.rank = rank;
+		int n = adjacency.length;
+		this.dist = new int[n];
+		this.seen = new int[n];
+		this.done = new int[n];
+		this.heap = new IndexedMinHeap(n, rank);
+	}
+
+	/**
+	 * Finds the shortest path from source to target.
+	 *
+	 * @param source id of the start vertex
+	 * @param target id of the end vertex
+	 * @param heuristic lower bound of the distance from a vertex to target, consistent
+	 * @return vertex ids from source to target, empty if there is no path or source equals target
+	 */
+	int[] search(int source, int target, IntUnaryOperator heuristic) {
+		query++;
+		expanded = 0;
+		heap.clear();
+		reach(source, 0, heuristic);
+		long best = Long.MAX_VALUE;
+		// after the target is settled, keep settling vertices that may still lie on a shortest path to it
+		while (!heap.isEmpty() && heap.peekKey() <= best) {
+			int u = heap.pop();
+			done[u] = query;
+			expanded++;
+			if (u == target) {
+				best = dist[u];
+				continue;
+			}
+			for (int i = 0; i < adjacency[u].length; i++) {
+				int v = adjacency[u][i];
+				if (done[v] != query)
+					reach(v, dist[u] + weight(u, i), heuristic);
+			}
+		}
+		if (done[target] != query || source == target)
+			return new int[0];
+		return rebuild(source, target);
+	}
+
+	/**
+	 * @return number of vertices taken off the queue by the last search
+	 */
+	int getExpandedCount() {
+		return expanded;
+	}
+
+	private void reach(int v, int d, IntUnaryOperator heuristic) {
+		if (seen[v] != query || d < dist[v]) {
+			seen[v] = query;
+			dist[v] = d;
+			heap.push(v, (long) d + heuristic.applyAsInt(v));
+		}
+	}
+
+	private int weight(int u, int i) {
+		return weights == null ? 1 : weights[u][i];
+	}
+
+	private int[] rebuild(int source, int target) {
+		int length = 0;
+		for (int v = target; v != source; v = pred(v))
+			length++;
+		int[] path = new int[length + 1];
+		int v = target;
+		for (int i = length; i > 0; i--) {
+			path[i] = v;
+			v = pred(v);
+		}
+		path[0] = source;
+		return path;
+	}
+
+	/**
+	 * The settled neighbor of v with the smallest (distance, rank) on a shortest path to v.
+	 */
+	private int pred(int v) {
+		int best = -1;
+		for (int i = 0; i < adjacency[v].length; i++) {
+			int u = adjacency[v][i];
+			if (done[u] != query || dist[u] + weight(v, i) != dist[v])
+				continue;
+			if (best == -1 || dist[u] < dist[best] || (dist[u] == dist[best] && rank[u] < rank[best]))
+				best = u;
+		}
+		return best;
+	}
+}
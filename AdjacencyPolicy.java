@@ -0,0 +1,65 @@
+import java.util.function.Consumer;
+
+/**
+ * Decides which words of a dictionary are connected by an edge.
+ *
+ * A policy normalizes words as they are read, tells whether two words are adjacent and lists the neighbors of a
+ * word from a {@link WordTrie} of the dictionary, so the graph can be built without testing every pair of words.
+ */
+public interface AdjacencyPolicy {
+
+	/**
+	 * Normalizes a word read from a dictionary or passed to a query.
+	 *
+	 * @param word trimmed, non-empty word
+	 * @return the word as stored in the graph
+	 */
+	public String normalize(String word);
+
+
+	/**
+	 * Check whether two normalized words are adjacent.
+	 *
+	 * Note: if word1 is equal to word2, they are not adjacent
+	 *
+	 * @param word1 first word
+	 * @param word2 second word
+	 * @return true if word1 and word2 are adjacent else false
+	 */
+	public boolean isAdjacent(String word1, String word2);
+
+
+	/**
+	 * Passes every word of the dictionary that is adjacent to word to action. May be called from several threads
+	 * at once, while the dictionary does not change.
+	 *
+	 * @param word normalized word, which may or may not be in the dictionary
+	 * @param dictionary words already in the graph
+	 * @param action receives each neighbor once
+	 */
+	public void forEachNeighbor(String word, WordTrie dictionary, Consumer<String> action);
+
+
+	/**
+	 * The adjacency of {@link WordProcessor#isAdjacent(String, String)}: 1 char replacement, addition or deletion,
+	 * on UPPERCASE words.
+	 *
+	 * @return the default policy
+	 */
+	public static AdjacencyPolicy singleEdit() {
+		return new EditDistancePolicy(1, false, false);
+	}
+
+
+	/**
+	 * Words are adjacent if they are at most maxDistance edits apart.
+	 *
+	 * @param maxDistance largest number of edits between adjacent words
+	 * @param transpositions whether swapping two neighboring chars counts as a single edit
+	 * @param caseSensitive whether words keep their case instead of being converted to UPPERCASE
+	 * @return the policy
+	 */
+	public static AdjacencyPolicy editDistance(int maxDistance, boolean transpositions, boolean caseSensitive) {
+		return new EditDistancePolicy(maxDistance, transpositions, caseSensitive);
+	}
+}
@@ -0,0 +1,197 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link GraphProcessor} in step with a dictionary file while it is being edited.
+ *
+ * A background thread waits on a {@link WatchService} for changes to the file. In dictionary mode the whole file
+ * is read again and diffed against the words seen last time; in delta mode the file is a log of lines
+ * "+WORD" and "-WORD" and only the complete lines appended since the last read are applied. Either way the
+ * changes go through {@link GraphProcessor#applyDelta(java.util.Collection, java.util.Collection)}, which only
+ * touches the edges of the words that changed and keeps answering queries while it works. A change of a few words
+ * patches the query data (path store or labels, spelling index) in place; a change of more than an eighth of the
+ * words rebuilds it, see applyDelta for the details.
+ *
+ * A change that can not be applied (for example when the path store can not be written) does not stop the
+ * watcher: it is kept as {@link #getLastFailure()} and read again with the next change of the file.
+ *
+ * Created by {@link GraphProcessor#watchDictionary(String)} and {@link GraphProcessor#watchDeltaFile(String)};
+ * must be closed to stop the thread.
+ */
+public class DictionaryWatcher implements AutoCloseable {
+
+	private final GraphProcessor processor;
+	private final Path file;
+	private final boolean deltaFile;
+	private final WatchService watchService;
+	private final Thread thread;
+	private Set<String> words;
+	private long offset;
+	private volatile long updates;
+	private volatile RuntimeException failure;
+
+	/**
+	 * Applies the current content of the file, then starts watching it.
+	 *
+	 * @param processor graph to update
+	 * @param filepath file path to the dictionary or delta file
+	 * @param deltaFile true if the file holds "+WORD" / "-WORD" lines, false for a plain dictionary
+	 * @throws IOException if the file can not be read or watched
+	 */
+	DictionaryWatcher(GraphProcessor processor, String filepath, boolean deltaFile) throws IOException {
+		this.processor = processor;
+		this.file = Paths.get(filepath).toAbsolutePath();
+		this.deltaFile = deltaFile;
+		this.words = new HashSet<String>();
+		this.watchService = FileSystems.getDefault().newWatchService();
+		try {
+			file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+			update();
+		} catch (IOException e) {
+			watchService.close();
+			throw e;
+		}
+		this.thread = new Thread(this::watch, "DictionaryWatcher " + file.getFileName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * @return number of times a change of the file was applied to the graph
+	 */
+	public long getUpdateCount() {
+		return updates;
+	}
+
+	/**
+	 * @return the error of the last change that could not be applied, null if the last change was applied
+	 */
+	public RuntimeException getLastFailure() {
+		return failure;
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				boolean changed = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (file.getFileName().equals(event.context()))
+						changed = true;
+				}
+				if (changed) {
+					try {
+						update();
+					} catch (IOException e) {
+						// the file is being replaced, the next event reads it again
+					} catch (RuntimeException e) {
+						// the change was not taken, the next event reads it again
+						failure = e;
+					}
+				}
+				if (!key.reset())
+					return;
+			}
+		} catch (ClosedWatchServiceException | InterruptedException e) {
+			// closed
+		}
+	}
+
+	/**
+	 * Reads the changes since the last update and applies them. What was read only counts as seen once it is
+	 * applied, so a change that fails is read again.
+	 */
+	private synchronized void update() throws IOException {
+		List<String> added = new ArrayList<String>();
+		List<String> removed = new ArrayList<String>();
+		long nextOffset = offset;
+		Set<String> next = words;
+		if (deltaFile) {
+			nextOffset = readDeltas(added, removed);
+		} else {
+			try (Stream<String> stream = WordProcessor.getWordStream(file.toString(), processor::normalize)) {
+				next = stream.collect(Collectors.toCollection(HashSet::new));
+			}
+			for (String word : next) {
+				if (!words.contains(word))
+					added.add(word);
+			}
+			for (String word : words) {
+				if (!next.contains(word))
+					removed.add(word);
+			}
+		}
+		if (!added.isEmpty() || !removed.isEmpty()) {
+			processor.applyDelta(added, removed);
+			updates++;
+		}
+		offset = nextOffset;
+		words = next;
+		failure = null;
+	}
+
+	/**
+	 * Reads the complete lines appended to the delta file since the last read.
+	 *
+	 * @return offset of the first byte not read, the start of an incomplete last line
+	 */
+	private long readDeltas(List<String> added, List<String> removed) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+			long start = offset;
+			// a shorter file was rewritten from scratch
+			if (raf.length() < start)
+				start = 0;
+			byte[] bytes = new byte[(int) (raf.length() - start)];
+			raf.seek(start);
+			raf.readFully(bytes);
+			int end = bytes.length;
+			while (end > 0 && bytes[end - 1] != '\n')
+				end--;
+			for (String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n")) {
+				line = line.trim();
+				if (line.length() < 2)
+					continue;
+				String word = processor.normalize(line.substring(1));
+				if (line.charAt(0) == '+') {
+					added.add(word);
+					removed.remove(word);
+				} else if (line.charAt(0) == '-') {
+					removed.add(word);
+					added.remove(word);
+				}
+			}
+			return start + end;
+		}
+	}
+
+	/**
+	 * Stops watching the file.
+	 */
+	@Override
+	public void close() {
+		try {
+			watchService.close();
+			thread.join();
+		} catch (IOException e) {
+			thread.interrupt();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,640 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Exact distance oracle for unweighted graphs by pruned landmark labeling (2-hop labels).
+ *
+ * Every vertex keeps a label: a list of (hub, distance) pairs sorted by hub. The labels are built so that for
+ * any two vertices some hub on a shortest path between them is in both labels, so their distance is the
+ * smallest d1 + d2 over the hubs the two labels share, found by one merge of two short sorted arrays.
+ *
+ * Hubs are taken by decreasing degree. A breadth first search from each hub adds the hub to the label of every
+ * vertex it reaches, except where the labels built so far already give the distance; there the search stops,
+ * which keeps labels a small fraction of the number of words. Hubs are processed in batches
+ * of one per core running in parallel, each batch pruning with the labels of the earlier batches; this adds a
+ * few redundant entries but no wrong ones.
+ *
+ * Words added to the graph later are labeled without a rebuild, see {@link #add(int[][], int[], WordArena)}.
+ *
+ * Labels are stored in three int arrays (offsets, hubs, distances) and can be saved to and loaded from a file
+ * together with the graph and its words, so paths can be rebuilt after loading: the neighbor one step closer
+ * to the source with the smallest lexical rank, the same path the precomputed data of {@link GraphProcessor}
+ * holds.
+ */
+public class DistanceLabels {
+
+	/**
+	 * First int of a label file
+	 */
+	private static final int MAGIC = 0x504C4C31;
+
+	/**
+	 * Distance of vertices that are not connected
+	 */
+	private static final int INFINITE = Integer.MAX_VALUE / 2;
+
+	private final WordArena words;
+	private final int[][] adjacency;
+	private final int[] rank;
+	private final int[] offsets;
+	private final int[] hubs;
+	private final int[] dists;
+	/**
+	 * hubVertices[h] is the vertex of hub h, null for labels loaded from a file
+	 */
+	private final int[] hubVertices;
+	/**
+	 * Entries added since the arrays above were built, per vertex and sorted by hub; null if there are none
+	 */
+	private final int[][] addedHubs;
+	private final int[][] addedDists;
+	private final long addedCount;
+
+	/**
+	 * Builds the labels of a graph.
+	 *
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v (all edges of weight 1)
+	 * @param rank rank[v] is the tie-break order of vertex v on paths (lower rank wins)
+	 * @param words words[v] is the word of vertex v
+	 */
+	DistanceLabels(int[][] adjacency, int[] rank, WordArena words) {
+		this(adjacency, rank, words, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Builds the labels of a graph, searching a number of hubs at a time.
+	 *
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v (all edges of weight 1)
+	 * @param rank rank[v] is the tie-break order of vertex v on paths (lower rank wins)
+	 * @param words words[v] is the word of vertex v
+	 * @param batch number of hubs searched in parallel, each batch pruning with the labels of the earlier ones
+	 */
+	DistanceLabels(int[][] adjacency, int[] rank, WordArena words, int batch) {
+		if (batch < 1)
+			throw new IllegalArgumentException("batch must be at least 1: " + batch);
+		this.words = words;
+		this.adjacency = adjacency;
+		this.rank = rank;
+		int n = adjacency.length;
+		int[] order = VertexOrdering.degree(adjacency);
+		int[][] labelHubs = new int[n][];
+		int[][] labelDists = new int[n][];
+		int[] size = new int[n];
+		for (int v = 0; v < n; v++) {
+			labelHubs[v] = new int[4];
+			labelDists[v] = new int[4];
+		}
+		ThreadLocal<Search> searches = ThreadLocal.withInitial(() -> new Search(adjacency));
+		for (int from = 0; from < n; from += batch) {
+			int start = from;
+			int count = Math.min(batch, n - from);
+			// each hub of the batch reads only the labels of earlier batches
+			int[][] found = new int[count][];
+			IntStream.range(0, count).parallel().forEach(i -> found[i] = searches.get().run(order[start + i],
+					labelHubs, labelDists, size));
+			// found[i] holds (vertex, distance) pairs, appended in hub order so labels stay sorted by hub
+			for (int i = 0; i < count; i++) {
+				int hub = start + i;
+				for (int k = 0; k < found[i].length; k += 2) {
+					int v = found[i][k];
+					if (size[v] == labelHubs[v].length) {
+						labelHubs[v] = Arrays.copyOf(labelHubs[v], size[v] * 2);
+						labelDists[v] = Arrays.copyOf(labelDists[v], size[v] * 2);
+					}
+					labelHubs[v][size[v]] = hub;
+					labelDists[v][size[v]++] = found[i][k + 1];
+				}
+			}
+		}
+		this.offsets = new int[n + 1];
+		for (int v = 0; v < n; v++)
+			offsets[v + 1] = offsets[v] + size[v];
+		this.hubs = new int[offsets[n]];
+		this.dists = new int[offsets[n]];
+		for (int v = 0; v < n; v++) {
+			System.arraycopy(labelHubs[v], 0, hubs, offsets[v], size[v]);
+			System.arraycopy(labelDists[v], 0, dists, offsets[v], size[v]);
+		}
+		this.hubVertices = order;
+		this.addedHubs = null;
+		this.addedDists = null;
+		this.addedCount = 0;
+	}
+
+	private DistanceLabels(WordArena words, int[][] adjacency, int[] offsets, int[] hubs, int[] dists) {
+		this.words = words;
+		this.adjacency = adjacency;
+		this.rank = words.lexicalRank();
+		this.offsets = offsets;
+		this.hubs = hubs;
+		this.dists = dists;
+		this.hubVertices = null;
+		this.addedHubs = null;
+		this.addedDists = null;
+		this.addedCount = 0;
+	}
+
+	private DistanceLabels(DistanceLabels base, int[][] adjacency, int[] rank, WordArena words, int[] hubVertices,
+			int[][] addedHubs, int[][] addedDists, long addedCount) {
+		this.words = words;
+		this.adjacency = adjacency;
+		this.rank = rank;
+		this.offsets = base.offsets;
+		this.hubs = base.hubs;
+		this.dists = base.dists;
+		this.hubVertices = hubVertices;
+		this.addedHubs = addedHubs;
+		this.addedDists = addedDists;
+		this.addedCount = addedCount;
+	}
+
+	/**
+	 * Pruned breadth first search from one hub, with its own scratch arrays.
+	 */
+	private static class Search {
+		private final int[][] adjacency;
+		private final int[] dist;
+		private final int[] hubDist;
+		private final int[] queue;
+
+		Search(int[][] adjacency) {
+			int n = adjacency.length;
+			this.adjacency = adjacency;
+			dist = new int[n];
+			hubDist = new int[n];
+			queue = new int[n];
+			Arrays.fill(dist, -1);
+			Arrays.fill(hubDist, INFINITE);
+		}
+
+		/**
+		 * @return (vertex, distance) pairs of the vertices whose label gets the hub
+		 */
+		int[] run(int hub, int[][] labelHubs, int[][] labelDists, int[] size) {
+			// distances from the hub to the hubs in its own label, for pruning in O(label) per vertex
+			for (int k = 0; k < size[hub]; k++)
+				hubDist[labelHubs[hub][k]] = labelDists[hub][k];
+			int[] found = new int[16];
+			int count = 0;
+			int tail = 0;
+			queue[tail++] = hub;
+			dist[hub] = 0;
+			for (int head = 0; head < tail; head++) {
+				int v = queue[head];
+				int d = dist[v];
+				boolean covered = false;
+				for (int k = 0; k < size[v] && !covered; k++)
+					covered = hubDist[labelHubs[v][k]] + labelDists[v][k] <= d;
+				if (covered)
+					continue;
+				if (count + 2 > found.length)
+					found = Arrays.copyOf(found, found.length * 2);
+				found[count++] = v;
+				found[count++] = d;
+				for (int u : adjacency[v]) {
+					if (dist[u] == -1) {
+						dist[u] = d + 1;
+						queue[tail++] = u;
+					}
+				}
+			}
+			for (int i = 0; i < tail; i++)
+				dist[queue[i]] = -1;
+			for (int k = 0; k < size[hub]; k++)
+				hubDist[labelHubs[hub][k]] = INFINITE;
+			return Arrays.copyOf(found, count);
+		}
+	}
+
+	/**
+	 * Builds the labels of any graph of words, numbering the words in the order the graph lists them.
+	 *
+	 * @param graph the graph, whose edges all count as 1
+	 * @return DistanceLabels of the graph
+	 */
+	public static DistanceLabels of(GraphADT<String> graph) {
+		return of(graph, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Builds the labels of any graph of words, searching a number of hubs at a time.
+	 *
+	 * @param graph the graph, whose edges all count as 1
+	 * @param batch number of hubs searched in parallel
+	 * @return DistanceLabels of the graph
+	 */
+	static DistanceLabels of(GraphADT<String> graph, int batch) {
+		IntGraphAdapter adapter = IntGraphAdapter.of(graph);
+		WordArena words = new WordArena(0);
+		for (String word : adapter.getWords())
+			words.intern(word);
+		return new DistanceLabels(adapter.getIntGraph().toAdjacency(), words.lexicalRank(), words, batch);
+	}
+
+	/**
+	 * @param source a vertex
+	 * @param target a vertex
+	 * @return number of edges of a shortest path, -1 if there is none
+	 */
+	int distance(int source, int target) {
+		int best = distance(source, target, addedHubs, addedDists);
+		return best == INFINITE ? -1 : best;
+	}
+
+	/**
+	 * Merges the labels of two vertices, the built arrays and the added entries given.
+	 *
+	 * @return smallest distance through a shared hub, INFINITE if there is none
+	 */
+	private int distance(int source, int target, int[][] addedHubs, int[][] addedDists) {
+		int built = offsets.length - 1;
+		int best = INFINITE;
+		if (source < built && target < built)
+			best = merge(hubs, dists, offsets[source], offsets[source + 1], hubs, dists, offsets[target],
+					offsets[target + 1]);
+		if (addedHubs == null)
+			return best;
+		int[] sourceHubs = addedHubs[source];
+		int[] targetHubs = addedHubs[target];
+		if (sourceHubs != null && target < built)
+			best = Math.min(best, merge(sourceHubs, addedDists[source], 0, sourceHubs.length, hubs, dists,
+					offsets[target], offsets[target + 1]));
+		if (targetHubs != null && source < built)
+			best = Math.min(best, merge(hubs, dists, offsets[source], offsets[source + 1], targetHubs,
+					addedDists[target], 0, targetHubs.length));
+		if (sourceHubs != null && targetHubs != null)
+			best = Math.min(best, merge(sourceHubs, addedDists[source], 0, sourceHubs.length, targetHubs,
+					addedDists[target], 0, targetHubs.length));
+		return best;
+	}
+
+	/**
+	 * @return smallest d1 + d2 over the hubs two sorted label ranges share, INFINITE if they share none
+	 */
+	private static int merge(int[] hubs1, int[] dists1, int i, int iEnd, int[] hubs2, int[] dists2, int j, int jEnd) {
+		int best = INFINITE;
+		while (i < iEnd && j < jEnd) {
+			if (hubs1[i] < hubs2[j]) {
+				i++;
+			} else if (hubs1[i] > hubs2[j]) {
+				j++;
+			} else {
+				best = Math.min(best, dists1[i++] + dists2[j++]);
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Labels of the graph grown by some vertices, without rebuilding them. Each new vertex becomes a hub after
+	 * all the others, and each of its edges resumes the pruned searches of the hubs in the labels of its two
+	 * ends from the other end (the incremental update of pruned landmark labeling by Akiba, Iwata and Yoshida).
+	 * The new entries are kept beside the arrays of these labels, which are shared and not changed. Some
+	 * entries become redundant, but every distance stays exact.
+	 *
+	 * @param adjacency adjacency of the grown graph: the vertices of this graph keep their ids and their edges,
+	 *        and gain only edges to the new vertices, which take the ids after them
+	 * @param rank tie-break ranks of the grown graph
+	 * @param words words of the grown graph
+	 * @return DistanceLabels of the grown graph
+	 * @throws IllegalStateException if these labels were loaded from a file, which does not keep the hub order
+	 */
+	DistanceLabels add(int[][] adjacency, int[] rank, WordArena words) {
+		if (hubVertices == null)
+			throw new IllegalStateException("labels loaded from a file can not be grown");
+		int before = this.adjacency.length;
+		int n = adjacency.length;
+		int[][] nextHubs = addedHubs == null ? new int[n][] : Arrays.copyOf(addedHubs, n);
+		int[][] nextDists = addedDists == null ? new int[n][] : Arrays.copyOf(addedDists, n);
+		int[] nextHubVertices = Arrays.copyOf(hubVertices, hubVertices.length + n - before);
+		long[] count = { addedCount };
+		int[] dist = new int[n];
+		int[] queue = new int[n];
+		Arrays.fill(dist, -1);
+		for (int w = before; w < n; w++) {
+			int hub = nextHubVertices.length - (n - w);
+			nextHubVertices[hub] = w;
+			nextHubs[w] = new int[] { hub };
+			nextDists[w] = new int[] { 0 };
+			count[0]++;
+			for (int u : adjacency[w]) {
+				// edges to new vertices are taken once, from the later one
+				if (u > w)
+					continue;
+				int[] ends = { w, u };
+				for (int e = 0; e < 2; e++) {
+					int a = ends[e];
+					int b = ends[1 - e];
+					int[][] entries = entries(a, nextHubs, nextDists);
+					for (int k = 0; k < entries[0].length; k++)
+						resume(entries[0][k], nextHubVertices[entries[0][k]], b, entries[1][k] + 1, adjacency,
+								nextHubs, nextDists, count, dist, queue);
+				}
+			}
+		}
+		return new DistanceLabels(this, adjacency, rank, words, nextHubVertices, nextHubs, nextDists, count[0]);
+	}
+
+	/**
+	 * @return the (hubs, distances) of the whole label of a vertex, built and added entries, sorted by hub with
+	 *         one entry per hub
+	 */
+	private int[][] entries(int v, int[][] addedHubs, int[][] addedDists) {
+		int built = offsets.length - 1;
+		int from = v < built ? offsets[v] : 0;
+		int to = v < built ? offsets[v + 1] : 0;
+		int[] extra = addedHubs[v] == null ? new int[0] : addedHubs[v];
+		int[] labelHubs = new int[to - from + extra.length];
+		int[] labelDists = new int[labelHubs.length];
+		int i = from;
+		int j = 0;
+		int k = 0;
+		while (i < to || j < extra.length) {
+			if (j == extra.length || (i < to && hubs[i] < extra[j])) {
+				labelHubs[k] = hubs[i];
+				labelDists[k++] = dists[i++];
+			} else if (i == to || extra[j] < hubs[i]) {
+				labelHubs[k] = extra[j];
+				labelDists[k++] = addedDists[v][j++];
+			} else {
+				// an added entry lowers the built entry of the same hub
+				labelHubs[k] = extra[j];
+				labelDists[k++] = Math.min(dists[i++], addedDists[v][j++]);
+			}
+		}
+		return new int[][] { Arrays.copyOf(labelHubs, k), Arrays.copyOf(labelDists, k) };
+	}
+
+	/**
+	 * Continues the pruned search of a hub from a vertex it now reaches through a new edge, adding the hub to
+	 * every label that does not already give the distance.
+	 */
+	private void resume(int hub, int hubVertex, int start, int startDist, int[][] adjacency, int[][] addedHubs,
+			int[][] addedDists, long[] count, int[] dist, int[] queue) {
+		int tail = 0;
+		queue[tail++] = start;
+		dist[start] = startDist;
+		for (int head = 0; head < tail; head++) {
+			int v = queue[head];
+			int d = dist[v];
+			if (distance(hubVertex, v, addedHubs, addedDists) <= d)
+				continue;
+			count[0] += put(v, hub, d, addedHubs, addedDists);
+			for (int u : adjacency[v]) {
+				if (dist[u] == -1) {
+					dist[u] = d + 1;
+					queue[tail++] = u;
+				}
+			}
+		}
+		for (int i = 0; i < tail; i++)
+			dist[queue[i]] = -1;
+	}
+
+	/**
+	 * Sets the added entry of a hub in the label of v, copying the entry arrays of v so shared labels stay
+	 * unchanged.
+	 *
+	 * @return 1 if an entry was added, 0 if the entry of the hub was lowered
+	 */
+	private static int put(int v, int hub, int d, int[][] addedHubs, int[][] addedDists) {
+		int[] labelHubs = addedHubs[v] == null ? new int[0] : addedHubs[v];
+		int[] labelDists = addedDists[v] == null ? new int[0] : addedDists[v];
+		int at = Arrays.binarySearch(labelHubs, hub);
+		if (at >= 0) {
+			addedDists[v] = labelDists.clone();
+			addedDists[v][at] = d;
+			return 0;
+		}
+		at = -at - 1;
+		int[] nextHubs = new int[labelHubs.length + 1];
+		int[] nextDists = new int[labelHubs.length + 1];
+		System.arraycopy(labelHubs, 0, nextHubs, 0, at);
+		System.arraycopy(labelDists, 0, nextDists, 0, at);
+		nextHubs[at] = hub;
+		nextDists[at] = d;
+		System.arraycopy(labelHubs, at, nextHubs, at + 1, labelHubs.length - at);
+		System.arraycopy(labelDists, at, nextDists, at + 1, labelHubs.length - at);
+		addedHubs[v] = nextHubs;
+		addedDists[v] = nextDists;
+		return 1;
+	}
+
+	/**
+	 * Rebuilds the shortest path between two vertices, walking back from the target one step at a time to the
+	 * neighbor one step closer to the source with the smallest rank.
+	 *
+	 * @param source a vertex
+	 * @param target a vertex
+	 * @return vertex ids from source to target, empty if there is no path or source equals target
+	 */
+	int[] path(int source, int target) {
+		int d = distance(source, target);
+		if (d <= 0)
+			return new int[0];
+		int[] path = new int[d + 1];
+		path[d] = target;
+		for (int i = d - 1; i >= 0; i--) {
+			int best = -1;
+			for (int u : adjacency[path[i + 1]]) {
+				if ((best == -1 || rank[u] < rank[best]) && distance(source, u) == i)
+					best = u;
+			}
+			path[i] = best;
+		}
+		return path;
+	}
+
+	/**
+	 * Gets the distance between two words.
+	 *
+	 * @param word1 first word
+	 * @param word2 second word
+	 * @return number of edges of a shortest path, -1 if there is none or a word is not in the graph
+	 */
+	public int getDistance(String word1, String word2) {
+		int source = indexOf(word1);
+		int target = indexOf(word2);
+		if (source == -1 || target == -1)
+			return -1;
+		return distance(source, target);
+	}
+
+	/**
+	 * Gets a shortest path between two words.
+	 *
+	 * @param word1 first word
+	 * @param word2 second word
+	 * @return the words of the path from word1 to word2, empty if there is none, null if a word is not in the
+	 *         graph
+	 */
+	public List<String> getPath(String word1, String word2) {
+		int source = indexOf(word1);
+		int target = indexOf(word2);
+		if (source == -1 || target == -1)
+			return null;
+		int[] path = path(source, target);
+		return new WordPath(path, words, path.length - 1);
+	}
+
+	/**
+	 * @param word a word
+	 * @return id of the word, -1 if it is not one of the labeled vertices (the words may have grown since)
+	 */
+	private int indexOf(String word) {
+		int id = words.indexOf(word);
+		return id < adjacency.length ? id : -1;
+	}
+
+	/**
+	 * @return number of (hub, distance) pairs in all labels
+	 */
+	public long getEntryCount() {
+		return hubs.length + addedCount;
+	}
+
+	/**
+	 * @return number of the pairs added by {@link #add(int[][], int[], WordArena)} since the labels were built
+	 */
+	long getAddedEntryCount() {
+		return addedCount;
+	}
+
+	/**
+	 * @return bytes of the label arrays
+	 */
+	public long getMemoryBytes() {
+		long bytes = MemoryFootprint.array(4, offsets.length) + MemoryFootprint.array(4, hubs.length)
+				+ MemoryFootprint.array(4, dists.length);
+		if (addedHubs != null) {
+			bytes += 2 * MemoryFootprint.array(4, addedHubs.length);
+			for (int[] label : addedHubs) {
+				if (label != null)
+					bytes += 2 * MemoryFootprint.array(4, label.length);
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * Writes the words, the graph and the labels to a file.
+	 *
+	 * File layout (big endian): magic, vertex count, then each word as length-prefixed UTF-8, the adjacency as
+	 * offsets (int[n + 1]) and targets, then the labels as offsets (int[n + 1]), hubs and distances.
+	 *
+	 * @param filepath file to create or overwrite
+	 * @throws IOException exception resulting from accessing the filepath
+	 */
+	public void save(String filepath) throws IOException {
+		int n = adjacency.length;
+		int[] edgeOffsets = new int[n + 1];
+		for (int v = 0; v < n; v++)
+			edgeOffsets[v + 1] = edgeOffsets[v] + adjacency[v].length;
+		int[] targets = new int[edgeOffsets[n]];
+		for (int v = 0; v < n; v++)
+			System.arraycopy(adjacency[v], 0, targets, edgeOffsets[v], adjacency[v].length);
+		// added entries are merged into the arrays written
+		int[] labelOffsets = offsets;
+		int[] labelHubs = hubs;
+		int[] labelDists = dists;
+		if (addedHubs != null) {
+			labelOffsets = new int[n + 1];
+			labelHubs = new int[(int) getEntryCount()];
+			labelDists = new int[labelHubs.length];
+			for (int v = 0; v < n; v++) {
+				int[][] label = entries(v, addedHubs, addedDists);
+				System.arraycopy(label[0], 0, labelHubs, labelOffsets[v], label[0].length);
+				System.arraycopy(label[1], 0, labelDists, labelOffsets[v], label[1].length);
+				labelOffsets[v + 1] = labelOffsets[v] + label[0].length;
+			}
+			labelHubs = Arrays.copyOf(labelHubs, labelOffsets[n]);
+			labelDists = Arrays.copyOf(labelDists, labelOffsets[n]);
+		}
+		try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+			buffer.putInt(MAGIC).putInt(n);
+			for (int v = 0; v < n; v++) {
+				byte[] bytes = words.get(v).getBytes(StandardCharsets.UTF_8);
+				if (buffer.remaining() < 4 + bytes.length)
+					drain(channel, buffer);
+				buffer.putInt(bytes.length).put(bytes);
+			}
+			putInts(channel, buffer, edgeOffsets);
+			putInts(channel, buffer, targets);
+			putInts(channel, buffer, labelOffsets);
+			putInts(channel, buffer, labelHubs);
+			putInts(channel, buffer, labelDists);
+			drain(channel, buffer);
+		}
+	}
+
+	/**
+	 * Reads labels written by {@link #save(String)}. The file is mapped and copied into the arrays in bulk.
+	 *
+	 * @param filepath file to read
+	 * @return DistanceLabels of the file
+	 * @throws IOException exception resulting from accessing the filepath, or if the file is not a label file
+	 */
+	public static DistanceLabels load(String filepath) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < 8 || buffer.getInt() != MAGIC)
+				throw new IOException("not a label file: " + filepath);
+			int n = buffer.getInt();
+			WordArena words = new WordArena(n);
+			for (int v = 0; v < n; v++) {
+				byte[] bytes = new byte[buffer.getInt()];
+				buffer.get(bytes);
+				words.intern(new String(bytes, StandardCharsets.UTF_8));
+			}
+			int[] edgeOffsets = getInts(buffer, n + 1);
+			int[] targets = getInts(buffer, edgeOffsets[n]);
+			int[][] adjacency = new int[n][];
+			for (int v = 0; v < n; v++)
+				adjacency[v] = Arrays.copyOfRange(targets, edgeOffsets[v], edgeOffsets[v + 1]);
+			int[] offsets = getInts(buffer, n + 1);
+			int[] hubs = getInts(buffer, offsets[n]);
+			int[] dists = getInts(buffer, offsets[n]);
+			return new DistanceLabels(words, adjacency, offsets, hubs, dists);
+		} catch (RuntimeException e) {
+			// a truncated file underflows the buffer
+			throw new IOException("not a label file: " + filepath, e);
+		}
+	}
+
+	private static void putInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+		for (int i = 0; i < values.length; ) {
+			if (buffer.remaining() < 4)
+				drain(channel, buffer);
+			IntBuffer ints = buffer.asIntBuffer();
+			int count = Math.min(ints.remaining(), values.length - i);
+			ints.put(values, i, count);
+			buffer.position(buffer.position() + 4 * count);
+			i += count;
+		}
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+	private static int[] getInts(ByteBuffer buffer, int count) {
+		int[] values = new int[count];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + 4 * count);
+		return values;
+	}
+}
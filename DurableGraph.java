@@ -0,0 +1,423 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Wraps a graph of words so that its changes survive a restart, with a write-ahead log of mutations.
+ *
+ * The directory holds the last checkpoint, a {@link GraphIO.Format#BINARY} snapshot of the whole graph, and a
+ * log of every successful addVertex, removeVertex, addEdge and removeEdge since then. Opening the directory
+ * loads the snapshot and replays the log, so the replay work grows with the mutations since the last
+ * checkpoint only. {@link #checkpoint()} (also run automatically every checkpoint interval) writes a new
+ * snapshot and starts an empty log, keeping replays short.
+ *
+ * Mutations are appended to the log in batches: a batch is written once it holds batchSize mutations, on
+ * {@link #flush()} and on close, and forced to the disk when fsync is on. Mutations of a batch that was not
+ * written yet are lost in a crash. Each batch is framed with its length and a CRC32, and a batch torn by a
+ * crash is dropped when the log is replayed.
+ *
+ * Snapshot and log carry a checkpoint number, and a log older than the snapshot is ignored, so a crash in the
+ * middle of a checkpoint never replays mutations twice. Every rename is made durable by forcing the directory
+ * before the log is written or the previous snapshot deleted. Mutations are serialized on this object.
+ */
+public class DurableGraph implements GraphADT<String>, Closeable {
+
+	/**
+	 * First int of a log file
+	 */
+	private static final int MAGIC = 0x57414C31;
+
+	private static final byte ADD_VERTEX = 1;
+	private static final byte REMOVE_VERTEX = 2;
+	private static final byte ADD_EDGE = 3;
+	private static final byte REMOVE_EDGE = 4;
+	private static final byte ADD_WEIGHTED_EDGE = 5;
+
+	private final GraphADT<String> graph;
+	private final File directory;
+	private final int batchSize;
+	private final boolean fsync;
+	private final ByteArrayOutputStream batch;
+	private final DataOutputStream records;
+	private FileChannel log;
+	private long checkpointNumber;
+	private int pending;
+	private long logged;
+	private long replayed;
+	private long checkpointInterval;
+
+	/**
+	 * Opens (or creates) a log directory and recovers its graph into an empty graph.
+	 *
+	 * @param graph empty graph to recover into and to mutate; use a {@link WeightedGraphADT} to keep weights
+	 * @param directory directory of the snapshot and the log, created if needed
+	 * @param batchSize number of mutations written to the log at once, 1 to write each one immediately
+	 * @param fsync whether every written batch is forced to the disk
+	 * @throws IOException if the directory can not be read or written
+	 */
+	public DurableGraph(GraphADT<String> graph, String directory, int batchSize, boolean fsync) throws IOException {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+		this.graph = graph;
+		this.directory = new File(directory);
+		this.batchSize = batchSize;
+		this.fsync = fsync;
+		this.batch = new ByteArrayOutputStream();
+		this.records = new DataOutputStream(batch);
+		this.checkpointInterval = Long.MAX_VALUE;
+		this.directory.mkdirs();
+		recover();
+	}
+
+	/**
+	 * Loads the newest snapshot and replays the log written after it, dropping a torn last batch.
+	 */
+	private void recover() throws IOException {
+		checkpointNumber = -1;
+		File[] snapshots = directory.listFiles((dir, name) -> name.matches("snapshot-\\d+\\.bin"));
+		for (File snapshot : snapshots == null ? new File[0] : snapshots) {
+			long number = Long.parseLong(snapshot.getName().replaceAll("\\D", ""));
+			checkpointNumber = Math.max(checkpointNumber, number);
+		}
+		if (checkpointNumber >= 0)
+			GraphIO.read(graph, snapshotFile(checkpointNumber).getPath(), GraphIO.Format.BINARY);
+		else
+			checkpointNumber = 0;
+		File logFile = new File(directory, "log.bin");
+		long valid = -1;
+		if (logFile.exists()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)))) {
+				if (in.readInt() == MAGIC && in.readLong() == checkpointNumber)
+					valid = replay(in, logFile.length());
+			} catch (EOFException e) {
+				// no complete header, the log was being created
+			}
+		}
+		if (valid < 0) {
+			// no log for this checkpoint, the mutations before it are all in the snapshot
+			startLog();
+		} else {
+			log = FileChannel.open(logFile.toPath(), StandardOpenOption.WRITE);
+			log.truncate(valid);
+			log.position(valid);
+		}
+		deleteOldSnapshots();
+	}
+
+	/**
+	 * Applies the batches of a log to the graph until the end of the log or the first incomplete batch.
+	 *
+	 * @return length of the log up to the end of the last complete batch
+	 */
+	private long replay(DataInputStream in, long length) throws IOException {
+		long valid = 12;
+		CRC32 crc = new CRC32();
+		while (true) {
+			byte[] frame;
+			long checksum;
+			try {
+				int size = in.readInt();
+				// a torn length may point past the end of the log
+				if (size < 0 || valid + 8 + size > length)
+					return valid;
+				frame = new byte[size];
+				checksum = in.readInt() & 0xFFFFFFFFL;
+				in.readFully(frame);
+			} catch (EOFException e) {
+				return valid;
+			}
+			crc.reset();
+			crc.update(frame, 0, frame.length);
+			if (crc.getValue() != checksum)
+				return valid;
+			DataInputStream mutations = new DataInputStream(new ByteArrayInputStream(frame));
+			while (mutations.available() > 0) {
+				apply(mutations);
+				replayed++;
+				logged++;
+			}
+			valid += 8 + frame.length;
+		}
+	}
+
+	/**
+	 * Applies one logged mutation to the graph.
+	 */
+	private void apply(DataInputStream in) throws IOException {
+		byte op = in.readByte();
+		String vertex = in.readUTF();
+		switch (op) {
+		case ADD_VERTEX:
+			graph.addVertex(vertex);
+			break;
+		case REMOVE_VERTEX:
+			graph.removeVertex(vertex);
+			break;
+		case ADD_EDGE:
+			graph.addEdge(vertex, in.readUTF());
+			break;
+		case REMOVE_EDGE:
+			graph.removeEdge(vertex, in.readUTF());
+			break;
+		case ADD_WEIGHTED_EDGE:
+			((WeightedGraphADT<String>) graph).addEdge(vertex, in.readUTF(), in.readInt());
+			break;
+		default:
+			throw new IOException("unknown log record " + op);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String addVertex(String vertex) {
+		String added = graph.addVertex(vertex);
+		if (added != null)
+			append(ADD_VERTEX, vertex, null, -1);
+		return added;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String removeVertex(String vertex) {
+		String removed = graph.removeVertex(vertex);
+		if (removed != null)
+			append(REMOVE_VERTEX, vertex, null, -1);
+		return removed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized boolean addEdge(String vertex1, String vertex2) {
+		boolean added = graph.addEdge(vertex1, vertex2);
+		if (added)
+			append(ADD_EDGE, vertex1, vertex2, -1);
+		return added;
+	}
+
+	/**
+	 * Adds a weighted edge; the wrapped graph must be a {@link WeightedGraphADT}.
+	 *
+	 * @param vertex1 the first vertex
+	 * @param vertex2 the second vertex
+	 * @param weight positive weight of the edge
+	 * @return true if edge added, false if the graph is not weighted or the edge can not be added
+	 */
+	public synchronized boolean addEdge(String vertex1, String vertex2, int weight) {
+		if (!(graph instanceof WeightedGraphADT))
+			return false;
+		boolean added = ((WeightedGraphADT<String>) graph).addEdge(vertex1, vertex2, weight);
+		if (added)
+			append(ADD_WEIGHTED_EDGE, vertex1, vertex2, weight);
+		return added;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized boolean removeEdge(String vertex1, String vertex2) {
+		boolean removed = graph.removeEdge(vertex1, vertex2);
+		if (removed)
+			append(REMOVE_EDGE, vertex1, vertex2, -1);
+		return removed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isAdjacent(String vertex1, String vertex2) {
+		return graph.isAdjacent(vertex1, vertex2);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterable<String> getNeighbors(String vertex) {
+		return graph.getNeighbors(vertex);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterable<String> getAllVertices() {
+		return graph.getAllVertices();
+	}
+
+	/**
+	 * Adds a mutation to the batch, writing the batch when it is full and checkpointing when the log is long
+	 * enough. A log that can not be written fails the mutation with an {@link UncheckedIOException} (the graph
+	 * itself has already changed).
+	 */
+	private void append(byte op, String vertex1, String vertex2, int weight) {
+		try {
+			records.writeByte(op);
+			records.writeUTF(vertex1);
+			if (vertex2 != null)
+				records.writeUTF(vertex2);
+			if (op == ADD_WEIGHTED_EDGE)
+				records.writeInt(weight);
+			pending++;
+			logged++;
+			if (logged >= checkpointInterval)
+				checkpoint();
+			else if (pending >= batchSize)
+				flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the mutations of the current batch to the log, forced to the disk if fsync is on.
+	 *
+	 * @throws IOException if the log can not be written
+	 */
+	public synchronized void flush() throws IOException {
+		if (pending == 0)
+			return;
+		byte[] frame = batch.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(frame, 0, frame.length);
+		ByteBuffer buffer = ByteBuffer.allocate(8 + frame.length);
+		buffer.putInt(frame.length).putInt((int) crc.getValue()).put(frame).flip();
+		while (buffer.hasRemaining())
+			log.write(buffer);
+		if (fsync)
+			log.force(false);
+		batch.reset();
+		pending = 0;
+	}
+
+	/**
+	 * Writes a snapshot of the graph and starts an empty log. The new snapshot is complete on the disk before
+	 * the log is replaced, and the previous snapshot is deleted last.
+	 *
+	 * @throws IOException if the snapshot or the log can not be written
+	 */
+	public synchronized void checkpoint() throws IOException {
+		File next = snapshotFile(checkpointNumber + 1);
+		File temporary = new File(next.getPath() + ".tmp");
+		GraphIO.write(graph, temporary.getPath(), GraphIO.Format.BINARY);
+		try (FileChannel written = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+			written.force(true);
+		}
+		Files.move(temporary.toPath(), next.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory();
+		checkpointNumber++;
+		// the snapshot holds every mutation so far, the pending batch is no longer needed
+		batch.reset();
+		pending = 0;
+		log.close();
+		startLog();
+		logged = 0;
+		deleteOldSnapshots();
+	}
+
+	/**
+	 * Checkpoints automatically once the log holds a number of mutations.
+	 *
+	 * @param mutations largest number of mutations replayed on recovery, {@link Long#MAX_VALUE} to only
+	 *        checkpoint when asked
+	 */
+	public synchronized void setCheckpointInterval(long mutations) {
+		this.checkpointInterval = Math.max(1, mutations);
+	}
+
+	/**
+	 * Creates an empty log for the current checkpoint, replacing the old one in a single rename.
+	 */
+	private void startLog() throws IOException {
+		File logFile = new File(directory, "log.bin");
+		File temporary = new File(directory, "log.bin.tmp");
+		try (FileChannel created = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(12);
+			header.putInt(MAGIC).putLong(checkpointNumber).flip();
+			while (header.hasRemaining())
+				created.write(header);
+			created.force(true);
+		}
+		Files.move(temporary.toPath(), logFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory();
+		log = FileChannel.open(logFile.toPath(), StandardOpenOption.WRITE);
+		log.position(log.size());
+	}
+
+	/**
+	 * Forces the directory entries to the disk, so that a rename survives a power loss before the file it
+	 * replaces (or the previous snapshot) is given up.
+	 */
+	private void syncDirectory() throws IOException {
+		try (FileChannel entries = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+			entries.force(true);
+		}
+	}
+
+	private File snapshotFile(long number) {
+		return new File(directory, "snapshot-" + number + ".bin");
+	}
+
+	private void deleteOldSnapshots() {
+		File[] files = directory.listFiles((dir, name) -> name.startsWith("snapshot-"));
+		for (File file : files == null ? new File[0] : files) {
+			if (!file.equals(snapshotFile(checkpointNumber)))
+				file.delete();
+		}
+	}
+
+	/**
+	 * @return number of mutations in the log since the last checkpoint, including those not written yet
+	 */
+	public synchronized long getLogSize() {
+		return logged;
+	}
+
+	/**
+	 * @return number of mutations replayed from the log when this graph was opened
+	 */
+	public long getReplayedCount() {
+		return replayed;
+	}
+
+	/**
+	 * @return the wrapped graph; changes made to it directly are not logged
+	 */
+	public GraphADT<String> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Writes the pending batch and closes the log.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			log.close();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+import java.util.function.Consumer;
+
+/**
+ * Adjacency by edit distance. Neighbors are found by running a {@link LevenshteinAutomaton} for the word over the
+ * dictionary trie, which works the same way for any maximum distance.
+ */
+class EditDistancePolicy implements AdjacencyPolicy {
+
+	private final int maxDistance;
+	private final boolean transpositions;
+	private final boolean caseSensitive;
+
+	/**
+	 * @param maxDistance largest number of edits between adjacent words (at least 1)
+	 * @param transpositions whether swapping two neighboring chars counts as a single edit
+	 * @param caseSensitive whether words keep their case
+	 */
+	EditDistancePolicy(int maxDistance, boolean transpositions, boolean caseSensitive) {
+		if (maxDistance < 1)
+			throw new IllegalArgumentException("maxDistance must be at least 1: " + maxDistance);
+		this.maxDistance = maxDistance;
+		this.transpositions = transpositions;
+		this.caseSensitive = caseSensitive;
+	}
+
+	/**
+	 * @return largest number of edits between adjacent words
+	 */
+	int getMaxDistance() {
+		return maxDistance;
+	}
+
+	/**
+	 * @return whether swapping two neighboring chars counts as a single edit
+	 */
+	boolean hasTranspositions() {
+		return transpositions;
+	}
+
+	/**
+	 * @return whether words keep their case
+	 */
+	boolean isCaseSensitive() {
+		return caseSensitive;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String normalize(String word) {
+		return caseSensitive ? word.trim() : word.trim().toUpperCase();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isAdjacent(String word1, String word2) {
+		if (word1.equals(word2) || Math.abs(word1.length() - word2.length()) > maxDistance)
+			return false;
+		if (maxDistance == 1 && !transpositions)
+			return WordProcessor.isAdjacent(word1, word2);
+		return new LevenshteinAutomaton(word1, maxDistance, transpositions).matches(word2);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEachNeighbor(String word, WordTrie dictionary, Consumer<String> action) {
+		dictionary.forEachMatch(new LevenshteinAutomaton(word, maxDistance, transpositions), match -> {
+			if (!match.equals(word))
+				action.accept(match);
+		});
+	}
+}
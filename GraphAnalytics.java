@@ -0,0 +1,278 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Statistics of a word graph: degree distribution, connected components, hub words, diameter bounds and
+ * eccentricities.
+ *
+ * Works on an int id snapshot of the graph taken when the object is created. Per-vertex work (degrees, component
+ * labeling, eccentricity batches) is spread over all cores with parallel streams; whole-graph traversals
+ * (diameter sweeps) are linear breadth first searches on primitive arrays.
+ */
+public class GraphAnalytics {
+
+	/**
+	 * Number of double sweeps used to bound the diameter
+	 */
+	private static final int SWEEPS = 4;
+
+	private final List<String> words;
+	private final int[][] adjacency;
+	private int[] componentOf;
+	private int[] componentSizes;
+	private int[] componentRoots;
+
+	/**
+	 * @param words words indexed by id
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v
+	 */
+	GraphAnalytics(List<String> words, int[][] adjacency) {
+		this.words = words;
+		this.adjacency = adjacency;
+	}
+
+	/**
+	 * Takes a snapshot of any graph of words.
+	 *
+	 * @param graph the graph
+	 * @return analytics over the current vertices and edges of graph
+	 */
+	public static GraphAnalytics of(GraphADT<String> graph) {
+		IntGraphAdapter adapter = IntGraphAdapter.of(graph);
+		return new GraphAnalytics(adapter.getWords(), adapter.getIntGraph().toAdjacency());
+	}
+
+	/**
+	 * @return number of vertices
+	 */
+	public int getVertexCount() {
+		return adjacency.length;
+	}
+
+	/**
+	 * @return number of undirected edges
+	 */
+	public long getEdgeCount() {
+		return IntStream.range(0, adjacency.length).parallel().mapToLong(v -> adjacency[v].length).sum() / 2;
+	}
+
+	/**
+	 * @return histogram[d] is the number of vertices with degree d
+	 */
+	public int[] getDegreeHistogram() {
+		int max = IntStream.range(0, adjacency.length).parallel().map(v -> adjacency[v].length).max().orElse(0);
+		return IntStream.range(0, adjacency.length).parallel().collect(() -> new int[max + 1],
+				(histogram, v) -> histogram[adjacency[v].length]++,
+				(a, b) -> {
+					for (int d = 0; d < a.length; d++)
+						a[d] += b[d];
+				});
+	}
+
+	/**
+	 * Gets the words with the most neighbors.
+	 *
+	 * @param k number of words
+	 * @return up to k words by decreasing degree (ties by word)
+	 */
+	public List<String> getHubs(int k) {
+		PriorityQueue<Integer> top = new PriorityQueue<Integer>((a, b) -> adjacency[a].length != adjacency[b].length
+				? adjacency[a].length - adjacency[b].length : words.get(b).compareTo(words.get(a)));
+		for (int v = 0; v < adjacency.length && k > 0; v++) {
+			if (top.size() < k) {
+				top.add(v);
+			} else if (adjacency[v].length > adjacency[top.peek()].length
+					|| (adjacency[v].length == adjacency[top.peek()].length
+						&& words.get(v).compareTo(words.get(top.peek())) < 0)) {
+				top.poll();
+				top.add(v);
+			}
+		}
+		ArrayList<String> hubs = new ArrayList<String>();
+		while (!top.isEmpty())
+			hubs.add(words.get(top.poll()));
+		Collections.reverse(hubs);
+		return hubs;
+	}
+
+	/**
+	 * @return sizes of the connected components, largest first
+	 */
+	public int[] getComponentSizes() {
+		labelComponents();
+		return componentSizes.clone();
+	}
+
+	/**
+	 * Gets the words of one connected component.
+	 *
+	 * @param index 0 for the largest component, 1 for the next and so on
+	 * @return words of the component
+	 */
+	public List<String> getComponentWords(int index) {
+		labelComponents();
+		List<String> members = new ArrayList<String>(componentSizes[index]);
+		for (int v = 0; v < adjacency.length; v++) {
+			if (componentOf[v] == index)
+				members.add(words.get(v));
+		}
+		return members;
+	}
+
+	/**
+	 * Bounds the diameter of the largest component with repeated double sweeps: a breadth first search from a
+	 * vertex finds the farthest vertex, whose eccentricity is a lower bound; the vertex halfway along that path
+	 * has an eccentricity e giving the upper bound 2e. Exact on trees and usually tight on word graphs.
+	 *
+	 * @return {lower bound, upper bound}, {0, 0} for an empty graph
+	 */
+	public int[] getDiameterBounds() {
+		labelComponents();
+		if (adjacency.length == 0)
+			return new int[] { 0, 0 };
+		int n = adjacency.length;
+		int[] dist = new int[n];
+		int[] pred = new int[n];
+		int[] queue = new int[n];
+		// start from the highest degree vertex of the largest component
+		int start = componentRoots[0];
+		for (int v = 0; v < n; v++) {
+			if (componentOf[v] == 0 && adjacency[v].length > adjacency[start].length)
+				start = v;
+		}
+		int lower = 0;
+		int upper = Integer.MAX_VALUE;
+		for (int sweep = 0; sweep < SWEEPS && lower < upper; sweep++) {
+			int far = bfs(start, dist, pred, queue);
+			int ecc = bfs(far, dist, pred, queue);
+			lower = Math.max(lower, dist[ecc]);
+			// walk half way back from the far end of the second sweep
+			int middle = ecc;
+			for (int step = 0; step < dist[ecc] / 2; step++)
+				middle = pred[middle];
+			int center = bfs(middle, dist, pred, queue);
+			upper = Math.min(upper, 2 * dist[center]);
+			start = center;
+		}
+		return new int[] { lower, upper };
+	}
+
+	/**
+	 * Computes eccentricities with bit-parallel multi-source breadth first search ({@link MultiSourceBfs}),
+	 * 64 words per sweep and one batch per core.
+	 *
+	 * @param sources words to compute (words not in the graph are skipped)
+	 * @return eccentricity of each word within its component, in the order given
+	 */
+	public Map<String, Integer> getEccentricities(List<String> sources) {
+		HashMap<String, Integer> ids = new HashMap<String, Integer>();
+		for (int v = 0; v < words.size(); v++)
+			ids.put(words.get(v), v);
+		int[] present = sources.stream().filter(ids::containsKey).mapToInt(ids::get).toArray();
+		int[] ecc = new MultiSourceBfs(adjacency).eccentricities(present);
+		Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+		for (int i = 0; i < present.length; i++)
+			result.put(words.get(present[i]), ecc[i]);
+		return result;
+	}
+
+	/**
+	 * Breadth first search filling dist and pred.
+	 *
+	 * @return the last vertex reached (one of the farthest from source)
+	 */
+	private int bfs(int source, int[] dist, int[] pred, int[] queue) {
+		Arrays.fill(dist, -1);
+		int head = 0;
+		int tail = 0;
+		dist[source] = 0;
+		pred[source] = -1;
+		queue[tail++] = source;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int v : adjacency[u]) {
+				if (dist[v] == -1) {
+					dist[v] = dist[u] + 1;
+					pred[v] = u;
+					queue[tail++] = v;
+				}
+			}
+		}
+		return queue[tail - 1];
+	}
+
+	/**
+	 * Labels connected components with a concurrent union-find, edges processed in parallel.
+	 * Components are numbered by decreasing size.
+	 */
+	private synchronized void labelComponents() {
+		if (componentOf != null)
+			return;
+		int n = adjacency.length;
+		AtomicIntegerArray parent = new AtomicIntegerArray(n);
+		for (int v = 0; v < n; v++)
+			parent.set(v, v);
+		IntStream.range(0, n).parallel().forEach(u -> {
+			for (int v : adjacency[u]) {
+				if (u < v)
+					union(parent, u, v);
+			}
+		});
+		int[] root = new int[n];
+		int[] size = new int[n];
+		for (int v = 0; v < n; v++) {
+			root[v] = find(parent, v);
+			size[root[v]]++;
+		}
+		Integer[] roots = IntStream.range(0, n).filter(v -> root[v] == v).boxed().toArray(Integer[]::new);
+		Arrays.sort(roots, (a, b) -> size[b] != size[a] ? size[b] - size[a] : a - b);
+		int[] index = new int[n];
+		componentSizes = new int[roots.length];
+		componentRoots = new int[roots.length];
+		for (int i = 0; i < roots.length; i++) {
+			index[roots[i]] = i;
+			componentSizes[i] = size[roots[i]];
+			componentRoots[i] = roots[i];
+		}
+		componentOf = new int[n];
+		for (int v = 0; v < n; v++)
+			componentOf[v] = index[root[v]];
+	}
+
+	private static int find(AtomicIntegerArray parent, int v) {
+		while (true) {
+			int p = parent.get(v);
+			int gp = parent.get(p);
+			if (p == gp)
+				return p;
+			// path halving, a lost race only skips the shortcut
+			parent.compareAndSet(v, p, gp);
+			v = gp;
+		}
+	}
+
+	private static void union(AtomicIntegerArray parent, int a, int b) {
+		while (true) {
+			a = find(parent, a);
+			b = find(parent, b);
+			if (a == b)
+				return;
+			// always hang the larger root under the smaller one, so concurrent links can not form a cycle
+			if (a < b) {
+				int t = a;
+				a = b;
+				b = t;
+			}
+			if (parent.compareAndSet(a, a, b))
+				return;
+		}
+	}
+}
@@ -0,0 +1,404 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streams the vertices and edges of a word graph to and from files, so a graph can be moved between tools
+ * without recomputing its edges from a dictionary.
+ *
+ * Three formats are supported (see {@link Format}). Files are read and written through a {@link FileChannel}
+ * with a large direct buffer; only that buffer and the current line are held in memory, never the whole file.
+ * Writing the binary format also keeps a {@link WordArena} of the word ids.
+ * Weighted graphs ({@link WeightedGraphADT}) keep their weights in every format.
+ */
+public class GraphIO {
+
+	/**
+	 * Bytes of the direct buffer used for every read and write
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * First int of a binary graph file
+	 */
+	private static final int MAGIC = 0x57474231;
+
+	/**
+	 * File formats of a graph.
+	 */
+	public enum Format {
+		/**
+		 * One line per edge, "WORD1\tWORD2" or "WORD1\tWORD2\tWEIGHT"; a vertex without edges is a line of its own.
+		 * Each undirected edge is written once.
+		 */
+		EDGE_LIST,
+		/**
+		 * One line per vertex, "WORD\tNEIGHBOR1\tNEIGHBOR2..."; in a weighted graph each neighbor is followed by
+		 * ":WEIGHT".
+		 */
+		ADJACENCY_LIST,
+		/**
+		 * Header (magic, weighted flag, vertex count), the vertices as length-prefixed UTF-8, then the edge count
+		 * and one record of two vertex ids (and the weight, if weighted) per edge.
+		 */
+		BINARY
+	}
+
+	/**
+	 * Receives the edges read from a file.
+	 */
+	public interface EdgeVisitor {
+
+		/**
+		 * @param word1 first vertex of the edge
+		 * @param word2 second vertex of the edge
+		 * @param weight weight of the edge, -1 if the file has no weights
+		 */
+		void visit(String word1, String word2, int weight);
+	}
+
+	/**
+	 * Writes a graph to a file.
+	 *
+	 * @param graph the graph
+	 * @param filepath file to create or overwrite
+	 * @param format file format
+	 * @return number of edges written
+	 * @throws IOException exception resulting from accessing the filepath
+	 */
+	public static long write(GraphADT<String> graph, String filepath, Format format) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			Output out = new Output(channel);
+			long edges = format == Format.BINARY ? writeBinary(graph, out) : writeText(graph, out, format);
+			out.flush();
+			return edges;
+		}
+	}
+
+	/**
+	 * Reads a graph file into a graph. Vertices already in the graph are kept, edges already there are skipped.
+	 * Weights are kept if the file has them and the graph is a {@link WeightedGraphADT}.
+	 *
+	 * @param graph graph to add to
+	 * @param filepath file to read
+	 * @param format file format
+	 * @return number of edges read
+	 * @throws IOException exception resulting from accessing the filepath, or if the file is not in the format
+	 */
+	public static long read(GraphADT<String> graph, String filepath, Format format) throws IOException {
+		return read(filepath, format, graph::addVertex, (word1, word2, weight) -> {
+			if (weight > 0 && graph instanceof WeightedGraphADT)
+				((WeightedGraphADT<String>) graph).addEdge(word1, word2, weight);
+			else
+				graph.addEdge(word1, word2);
+		});
+	}
+
+	/**
+	 * Streams a graph file to callbacks. Every vertex is passed to vertices before any edge that uses it; in the
+	 * text formats a vertex may be passed more than once.
+	 *
+	 * @param filepath file to read
+	 * @param format file format
+	 * @param vertices receives the vertices
+	 * @param edges receives the edges
+	 * @return number of edges read
+	 * @throws IOException exception resulting from accessing the filepath, or if the file is not in the format
+	 */
+	public static long read(String filepath, Format format, Consumer<String> vertices, EdgeVisitor edges)
+			throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.READ)) {
+			Input in = new Input(channel);
+			return format == Format.BINARY ? readBinary(in, vertices, edges) : readText(in, format, vertices, edges);
+		}
+	}
+
+	private static long writeText(GraphADT<String> graph, Output out, Format format) throws IOException {
+		WeightedGraphADT<String> weighted = graph instanceof WeightedGraphADT ? (WeightedGraphADT<String>) graph : null;
+		long edges = 0;
+		for (String word : graph.getAllVertices()) {
+			boolean isolated = true;
+			if (format == Format.ADJACENCY_LIST)
+				out.writeText(word);
+			for (String neighbor : graph.getNeighbors(word)) {
+				isolated = false;
+				// each undirected edge is counted, and in an edge list written, from its smaller word
+				boolean first = word.compareTo(neighbor) < 0;
+				if (first)
+					edges++;
+				if (format == Format.ADJACENCY_LIST) {
+					out.writeText("\t" + neighbor);
+					if (weighted != null)
+						out.writeText(":" + weighted.getWeight(word, neighbor));
+				} else if (first) {
+					out.writeText(word + "\t" + neighbor);
+					if (weighted != null)
+						out.writeText("\t" + weighted.getWeight(word, neighbor));
+					out.writeText("\n");
+				}
+			}
+			if (format == Format.ADJACENCY_LIST)
+				out.writeText("\n");
+			else if (isolated)
+				out.writeText(word + "\n");
+		}
+		return edges;
+	}
+
+	private static long readText(Input in, Format format, Consumer<String> vertices, EdgeVisitor edges)
+			throws IOException {
+		long count = 0;
+		for (String line = in.readLine(); line != null; line = in.readLine()) {
+			if (line.isEmpty())
+				continue;
+			String[] fields = line.split("\t");
+			vertices.accept(fields[0]);
+			if (format == Format.EDGE_LIST) {
+				if (fields.length == 1)
+					continue;
+				vertices.accept(fields[1]);
+				edges.visit(fields[0], fields[1], fields.length > 2 ? parseWeight(fields[2]) : -1);
+				count++;
+			} else {
+				for (int i = 1; i < fields.length; i++) {
+					int colon = weightColon(fields[i]);
+					String neighbor = colon == -1 ? fields[i] : fields[i].substring(0, colon);
+					vertices.accept(neighbor);
+					// each edge appears on the lines of both ends, report it from the smaller word
+					if (fields[0].compareTo(neighbor) < 0) {
+						edges.visit(fields[0], neighbor, colon == -1 ? -1 : parseWeight(fields[i].substring(colon + 1)));
+						count++;
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the colon before the weight of an adjacency list entry, so words may contain colons themselves.
+	 *
+	 * @return index of the last colon if only digits follow it, else -1
+	 */
+	private static int weightColon(String field) {
+		int colon = field.lastIndexOf(':');
+		if (colon <= 0 || colon == field.length() - 1)
+			return -1;
+		for (int i = colon + 1; i < field.length(); i++) {
+			if (!Character.isDigit(field.charAt(i)))
+				return -1;
+		}
+		return colon;
+	}
+
+	private static int parseWeight(String field) throws IOException {
+		try {
+			return Integer.parseInt(field.trim());
+		} catch (NumberFormatException e) {
+			throw new IOException("bad edge weight: " + field, e);
+		}
+	}
+
+	private static long writeBinary(GraphADT<String> graph, Output out) throws IOException {
+		WeightedGraphADT<String> weighted = graph instanceof WeightedGraphADT ? (WeightedGraphADT<String>) graph : null;
+		WordArena ids = new WordArena(0);
+		for (String word : graph.getAllVertices())
+			ids.intern(word);
+		out.writeInt(MAGIC);
+		out.writeInt(weighted != null ? 1 : 0);
+		out.writeInt(ids.size());
+		for (int v = 0; v < ids.size(); v++) {
+			byte[] bytes = ids.get(v).getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.writeBytes(bytes);
+		}
+		long countAt = out.position();
+		out.writeLong(0);
+		long edges = 0;
+		for (int v = 0; v < ids.size(); v++) {
+			String word = ids.get(v);
+			for (String neighbor : graph.getNeighbors(word)) {
+				int u = ids.indexOf(neighbor);
+				if (u <= v)
+					continue;
+				out.writeInt(v);
+				out.writeInt(u);
+				if (weighted != null)
+					out.writeInt(weighted.getWeight(word, neighbor));
+				edges++;
+			}
+		}
+		out.flush();
+		out.writeLongAt(countAt, edges);
+		return edges;
+	}
+
+	private static long readBinary(Input in, Consumer<String> vertices, EdgeVisitor edges) throws IOException {
+		if (in.readInt() != MAGIC)
+			throw new IOException("not a binary graph file");
+		boolean weighted = in.readInt() == 1;
+		int n = in.readInt();
+		WordArena words = new WordArena(n);
+		for (int v = 0; v < n; v++) {
+			String word = new String(in.readBytes(in.readInt()), StandardCharsets.UTF_8);
+			words.intern(word);
+			vertices.accept(word);
+		}
+		long count = in.readLong();
+		for (long e = 0; e < count; e++) {
+			int v = in.readInt();
+			int u = in.readInt();
+			int weight = weighted ? in.readInt() : -1;
+			if (v < 0 || v >= n || u < 0 || u >= n)
+				throw new IOException("edge " + e + " has an unknown vertex");
+			edges.visit(words.get(v), words.get(u), weight);
+		}
+		return count;
+	}
+
+	/**
+	 * Buffered writes to a channel through one direct buffer.
+	 */
+	private static class Output {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		Output(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		void writeText(String text) throws IOException {
+			writeBytes(text.getBytes(StandardCharsets.UTF_8));
+		}
+
+		void writeBytes(byte[] bytes) throws IOException {
+			for (int at = 0; at < bytes.length; ) {
+				if (!buffer.hasRemaining())
+					flush();
+				int length = Math.min(buffer.remaining(), bytes.length - at);
+				buffer.put(bytes, at, length);
+				at += length;
+			}
+		}
+
+		void writeInt(int value) throws IOException {
+			if (buffer.remaining() < 4)
+				flush();
+			buffer.putInt(value);
+		}
+
+		void writeLong(long value) throws IOException {
+			if (buffer.remaining() < 8)
+				flush();
+			buffer.putLong(value);
+		}
+
+		/**
+		 * @return file position of the next byte written
+		 */
+		long position() throws IOException {
+			return channel.position() + buffer.position();
+		}
+
+		/**
+		 * Overwrites a long already flushed to the file.
+		 */
+		void writeLongAt(long position, long value) throws IOException {
+			ByteBuffer bytes = ByteBuffer.allocate(8).putLong(0, value);
+			while (bytes.hasRemaining())
+				channel.write(bytes, position + bytes.position());
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Buffered reads from a channel through one direct buffer.
+	 */
+	private static class Input {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		private byte[] line = new byte[256];
+
+		Input(FileChannel channel) {
+			this.channel = channel;
+			buffer.flip();
+		}
+
+		/**
+		 * Makes at least count bytes available, unless the file ends first.
+		 *
+		 * @return true if count bytes are available
+		 */
+		private boolean fill(int count) throws IOException {
+			if (buffer.remaining() >= count)
+				return true;
+			buffer.compact();
+			while (buffer.position() < count && channel.read(buffer) != -1) {
+				// keep reading until enough bytes arrived
+			}
+			buffer.flip();
+			return buffer.remaining() >= count;
+		}
+
+		/**
+		 * @return the next line without its line terminator, null at the end of the file
+		 */
+		String readLine() throws IOException {
+			int length = 0;
+			boolean any = false;
+			while (fill(1)) {
+				any = true;
+				byte b = buffer.get();
+				if (b == '\n')
+					break;
+				if (length == line.length)
+					line = Arrays.copyOf(line, length * 2);
+				line[length++] = b;
+			}
+			if (!any)
+				return null;
+			if (length > 0 && line[length - 1] == '\r')
+				length--;
+			return new String(line, 0, length, StandardCharsets.UTF_8).trim();
+		}
+
+		int readInt() throws IOException {
+			if (!fill(4))
+				throw new EOFException();
+			return buffer.getInt();
+		}
+
+		long readLong() throws IOException {
+			if (!fill(8))
+				throw new EOFException();
+			return buffer.getLong();
+		}
+
+		byte[] readBytes(int count) throws IOException {
+			if (count < 0)
+				throw new IOException("bad length " + count);
+			byte[] bytes = new byte[count];
+			for (int at = 0; at < count; ) {
+				if (!fill(1))
+					throw new EOFException();
+				int length = Math.min(buffer.remaining(), count - at);
+				buffer.get(bytes, at, length);
+				at += length;
+			}
+			return bytes;
+		}
+	}
+}
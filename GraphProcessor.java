@@ -1,15 +1,29 @@
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Stack;
-import java.util.function.Supplier;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntBiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 
@@ -37,27 +51,184 @@ import java.util.stream.Stream;
  *  - returns distance (number of edges) as an Integer for the shortest path between two given vertices
  *  - this is computed using the precomputed data structures computed as part of {@link #shortestPathPrecomputation()}.
  *  - {@link #shortestPathPrecomputation()} must have been invoked once before invoking this method.
+ * @see #GraphProcessor(AdjacencyPolicy, ToIntBiFunction)
+ *  - creates a processor whose edges follow an {@link AdjacencyPolicy} (edit distance k, transpositions, case).
+ * @see #GraphProcessor(ToIntBiFunction)
+ *  - creates a processor whose edges are weighted by the edit separating the two words.
+ *  - shortest paths then minimize the total weight, see {@link #getShortestPathWeight(String, String)}.
+ * @see #publishEdges()
+ *  - streams a large result (edges, a neighborhood, the paths of many pairs) as a {@link Flow.Publisher}.
+ *  - items are computed as the subscriber requests them, and cancelling stops the search.
  *  
  * @author sapan (sapan@cs.wisc.edu)
  * 
  */
 public class GraphProcessor {
 
+    /**
+     * How {@link #getShortestPath(String, String)} finds its paths.
+     */
+    public enum SearchMode {
+    	/**
+    	 * Read paths from the all-pairs data computed by {@link GraphProcessor#shortestPathPrecomputation()}
+    	 */
+    	PRECOMPUTED,
+    	/**
+    	 * Search each query with A*, guided by the edit distance to the target word; no all-pairs data is kept
+    	 */
+    	A_STAR,
+    	/**
+    	 * Answer distances from pruned landmark labels ({@link DistanceLabels}) and derive paths from them; 
+    	 * memory grows with the labels instead of the square of the words. Only for graphs without edge costs
+    	 */
+    	LABELS
+    }
+
+    /**
+     * How vertex ids are laid out in the query data. Words keep their insertion order for everything callers 
+     * see; the layout only changes which ids sit next to each other in memory.
+     */
+    public enum VertexOrder {
+    	/**
+    	 * Ids in the order the words were added
+    	 */
+    	INSERTION,
+    	/**
+    	 * Breadth first order, so a word's neighbors get nearby ids
+    	 */
+    	BREADTH_FIRST,
+    	/**
+    	 * Reverse Cuthill-McKee order, keeping the two ends of every edge close together
+    	 */
+    	REVERSE_CUTHILL_MCKEE,
+    	/**
+    	 * Decreasing degree, so the most connected words share the first cache lines
+    	 */
+    	DEGREE
+    }
+
+    /**
+     * Default bytes of heap for predecessor rows read back from the path store
+     */
+    private static final long DEFAULT_PATH_HEAP_BUDGET = 64L << 20;
+    
+    /**
+     * Number of vertices from which each unweighted search is spread over all cores ({@link ParallelBfs})
+     */
+    private static final int PARALLEL_SEARCH_THRESHOLD = 1 << 16;
+    
+    /**
+     * Changes to at most one word in this many are patched into the query data instead of rebuilding it
+     */
+    private static final int INCREMENTAL_SHARE = 8;
+    
     /**
      * Graph which stores the dictionary words and their associated connections
      */
-	private ArrayList<ArrayList<ArrayList<String>>> paths;
+	private PathStore paths;
+	private File pathFile;
+	private long pathHeapBudget;
+	private SpellingIndex spelling;
+	private File spellingFile;
+	private int spellingDistance;
     private GraphADT<String> graph;
-    private ArrayList<Vertex<String>> vertices;
+    /**
+     * Words of the graph by vertex id, kept in one byte arena rather than as Strings
+     */
+    private WordArena vertices;
+    /**
+     * insertionIndex[v] orders vertex v by when its word was added, null while the ids follow that order
+     */
+    private int[] insertionIndex;
+    /**
+     * insertionIndex of the next word added
+     */
+    private int nextInsertion;
+    /**
+     * Words added since the spelling index was built, and the number of words added or removed since then
+     */
+    private List<String> spellingAdded = Collections.emptyList();
+    private int spellingChanges;
+    private VertexOrder vertexOrder = VertexOrder.INSERTION;
     private int numVertices;
+    private ToIntBiFunction<String, String> edgeCost;
+    private AdjacencyPolicy policy;
+    private WordTrie dictionary;
+    private int[][] adjacency;
+    private int[][] weights;
+    private long numEdges;
+    private long numChars;
+    private int[] rank;
+    private PathCache cache;
+    private SearchMode mode = SearchMode.PRECOMPUTED;
+    private ThreadLocal<AStarSearch> searches;
+    private DistanceLabels labels;
+    private int minWeight;
+    /**
+     * Whether an imported edge joins words the adjacency policy does not call adjacent, so the edit distance no 
+     * longer bounds the length of a path
+     */
+    private boolean foreignEdges;
+    private final AtomicLong nodesExpanded = new AtomicLong();
+    /**
+     * Queries hold the read lock; new path data is built beside the old one and swapped in under the write lock
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Serializes changes to the graph
+     */
+    private final Object updateLock = new Object();
     /**
      * Constructor for this class. Initializes instances variables to set the starting state of the object
      */
     public GraphProcessor() {
         this.graph = new Graph<>();
-        vertices = new ArrayList<>();
-        this.paths = new ArrayList<ArrayList<ArrayList<String>>>();
+        vertices = new WordArena(0);
+        this.paths = null;
+        this.pathFile = null;
+        this.pathHeapBudget = DEFAULT_PATH_HEAP_BUDGET;
         numVertices = 0;
+        edgeCost = null;
+        policy = AdjacencyPolicy.singleEdit();
+        dictionary = new WordTrie();
+        adjacency = new int[0][];
+        weights = null;
+        rank = new int[0];
+        minWeight = 1;
+        searches = ThreadLocal.withInitial(() -> new AStarSearch(adjacency, weights, rank));
+    }
+    
+    /**
+     * Constructor for a processor with weighted edges. Every edge found by {@link #populateGraph(String)} gets the
+     * weight edgeCost gives for its two words, for example {@link WordProcessor#editCost(int, int)}.
+     * 
+     * @param edgeCost positive weight of the edge between two adjacent words
+     */
+    public GraphProcessor(ToIntBiFunction<String, String> edgeCost) {
+        this(AdjacencyPolicy.singleEdit(), edgeCost);
+    }
+    
+    /**
+     * Constructor for a processor whose edges follow the given adjacency policy.
+     * 
+     * @param policy decides which words are adjacent, see {@link AdjacencyPolicy#editDistance(int, boolean, boolean)}
+     */
+    public GraphProcessor(AdjacencyPolicy policy) {
+        this();
+        this.policy = policy;
+    }
+    
+    /**
+     * Constructor for a processor with an adjacency policy and weighted edges.
+     * 
+     * @param policy decides which words are adjacent
+     * @param edgeCost positive weight of the edge between two adjacent words
+     */
+    public GraphProcessor(AdjacencyPolicy policy, ToIntBiFunction<String, String> edgeCost) {
+        this();
+        this.graph = new WeightedGraph<>();
+        this.policy = policy;
+        this.edgeCost = edgeCost;
     }
         
     /**
@@ -68,7 +239,9 @@ public class GraphProcessor {
      * Reads a word from the file and adds it as a vertex to a graph.
      * Repeat for all words.
      * 
-     * For all possible pairs of vertices, finds if the pair of vertices is adjacent {@link WordProcessor#isAdjacent(String, String)}
+     * For every new word, finds the existing words adjacent to it (by default {@link WordProcessor#isAdjacent(String, String)},
+     * otherwise by the {@link AdjacencyPolicy} of this processor). The candidates come from a trie of the dictionary 
+     * searched with a Levenshtein automaton, so the word is not compared against every other word.
      * If a pair is adjacent, adds an undirected and unweighted edge between the pair of vertices in the graph.
      * 
      * @param filepath file path to the dictionary
@@ -77,30 +250,9 @@ public class GraphProcessor {
     public Integer populateGraph(String filepath) {
        int count = 0;
        try {
-    	   Stream<String> stream = WordProcessor.getWordStream(filepath);
+    	   Stream<String> stream = WordProcessor.getWordStream(filepath, policy::normalize);
     	   List<String> listOfLines = stream.collect(Collectors.toList());
-    	   
-    		for(String word: listOfLines) {
-				String newString = graph.addVertex(word);
-				if(newString != null) {
-					Vertex<String> v = new Vertex<String>(word);
-					vertices.add(v);
-					count++;
-					numVertices++;
-					for(String vertices: graph.getAllVertices()) {
-						if(vertices.equals(word))
-							continue;
-						if(WordProcessor.isAdjacent(word, vertices)) {
-							graph.addEdge(word, vertices);
-						}
-					}
-					paths.add(new ArrayList<ArrayList<String>>());
-					for(ArrayList<ArrayList<String>> col: paths) {
-						col.add(new ArrayList<String>());
-					}
-					shortestPathPrecomputation();
-				}
-			}
+    	   count = applyDelta(listOfLines, Collections.<String>emptyList());
 		} catch (IOException e) {
 			count = -1; 
 		}
@@ -109,7 +261,718 @@ public class GraphProcessor {
     	return count;
     
     }
+    
+    /**
+     * Builds the graph from many dictionary files at once. The files are read and normalized in parallel, words 
+     * found in several files are added once, and the path data is computed once at the end.
+     * Words are added in sorted order, so the graph does not depend on the order the files are read in.
+     * 
+     * @param filepaths file paths to the dictionary files
+     * @return Integer the number of vertices (words) added; -1 if a file is not found or if there is some other problem.
+     */
+    public Integer populateGraph(Collection<String> filepaths) {
+    	try {
+    		ArrayList<String> words = new ArrayList<String>(WordProcessor.getWordSet(filepaths, policy::normalize));
+    		Collections.sort(words);
+    		return applyDelta(words, Collections.<String>emptyList());
+    	} catch (IOException e) {
+    		return -1;
+    	}
+    }
+    
+    /**
+     * Builds the graph from every file of a directory of word lists, see {@link #populateGraph(Collection)}.
+     * 
+     * @param directory path to the directory
+     * @return Integer the number of vertices (words) added; -1 if the directory or a file can not be read.
+     */
+    public Integer populateGraphFromDirectory(String directory) {
+    	try {
+    		return populateGraph(WordProcessor.getDictionaryFiles(directory));
+    	} catch (IOException e) {
+    		return -1;
+    	}
+    }
+    
+    /**
+     * Adds the words and edges of a graph file written by {@link #exportGraph(String, GraphIO.Format)} or 
+     * {@link GraphIO#write(GraphADT, String, GraphIO.Format)}. The edges are taken from the file instead of being
+     * recomputed by the adjacency policy; edge costs, if any, are recomputed by the edge cost function.
+     * The path data is computed once at the end. Once an edge the policy would not have made is imported, 
+     * {@link SearchMode#A_STAR} searches without its edit distance heuristic.
+     * 
+     * @param filepath file path to the graph file
+     * @param format format of the file
+     * @return Integer the number of vertices (words) added; -1 if the file is not found or is not in the format.
+     */
+    public Integer importGraph(String filepath, GraphIO.Format format) {
+    	synchronized(updateLock) {
+    		WordArena next = new WordArena(numVertices);
+    		for(String word: insertionOrder())
+    			next.intern(word);
+    		int before = next.size();
+    		try {
+    			GraphIO.read(filepath, format, word -> {
+    				String normalized = policy.normalize(word);
+    				if(graph.addVertex(normalized) != null) {
+    					next.intern(normalized);
+    					dictionary.add(normalized);
+    				}
+    			}, (word1, word2, weight) -> {
+    				String normalized1 = policy.normalize(word1);
+    				String normalized2 = policy.normalize(word2);
+    				if(!policy.isAdjacent(normalized1, normalized2))
+    					foreignEdges = true;
+    				connect(normalized1, normalized2);
+    			});
+    		} catch (IOException e) {
+    			// the words read so far stay in the graph
+    			publish(next);
+    			return -1;
+    		}
+    		publish(next);
+    		return next.size() - before;
+    	}
+    }
+    
+    /**
+     * Writes the words and edges of the graph to a file, see {@link GraphIO}.
+     * 
+     * @param filepath file path to write to
+     * @param format format of the file
+     * @return number of edges written
+     * @throws IOException exception resulting from accessing the filepath
+     */
+    public long exportGraph(String filepath, GraphIO.Format format) throws IOException {
+    	synchronized(updateLock) {
+    		return GraphIO.write(graph, filepath, format);
+    	}
+    }
+    
+    /**
+     * Adds and removes words without rebuilding the graph. Removed words lose their edges through 
+     * {@link GraphADT#removeVertex(Object)}; each added word only gets the edges to the words the adjacency policy 
+     * finds for it in the dictionary trie. The added words are looked up in the trie in parallel.
+     * 
+     * A batch changing at most an eighth of the words is patched into the query data while ids follow the 
+     * {@link VertexOrder#INSERTION} order. Removed words hand their ids to the last words and added words take 
+     * new ids at the end, so only the adjacency rows, ranks and words they touch change. Only the rows of the 
+     * path store whose distances can change are searched again: without edge costs, the rows in which some word 
+     * loses every neighbor one step closer to the source or in which a new word shortens a path; with edge costs, 
+     * the rows of the components the changed words are in. The other rows only get the distances to the new 
+     * words. Distance labels gain entries for new words by resuming the pruned searches of the hubs at the ends 
+     * of their edges, and are rebuilt when words are removed. The spelling index checks new words one by one and 
+     * skips removed ones until an eighth of its words changed. Changed rows are computed beside the current 
+     * data and written under the write lock; removals are swapped in before additions.
+     * 
+     * Larger batches, the other vertex orders, and path stores that are full or whose changed rows would not fit 
+     * the heap budget of {@link #setPathStore(String, long)} rebuild the query data beside the current data, as 
+     * {@link #shortestPathPrecomputation()} does.
+     * 
+     * @param added words to add (words already in the graph are ignored)
+     * @param removed words to remove (words not in the graph are ignored)
+     * @return the number of words added plus the number removed
+     */
+    public int applyDelta(Collection<String> added, Collection<String> removed) {
+    	synchronized(updateLock) {
+    		ArrayList<String> gone = new ArrayList<String>();
+    		for(String word: removed) {
+    			word = policy.normalize(word);
+    			if(graph.removeVertex(word) != null) {
+    				dictionary.remove(word);
+    				gone.add(word);
+    			}
+    		}
+    		ArrayList<String> fresh = new ArrayList<String>();
+    		HashMap<String, Integer> order = new HashMap<String, Integer>();
+    		for(String word: added) {
+    			String normalized = policy.normalize(word);
+    			if(!normalized.equals("") && graph.addVertex(normalized) != null) {
+    				order.put(normalized, fresh.size());
+    				fresh.add(normalized);
+    				dictionary.add(normalized);
+    			}
+    		}
+    		// neighbors are looked up in parallel and connected here; an edge between two new words is found from 
+    		// both ends and made from the word added later, as if they had been added one by one
+    		List<List<String>> found = fresh.parallelStream().map(word -> {
+    			ArrayList<String> neighbors = new ArrayList<String>();
+    			policy.forEachNeighbor(word, dictionary, neighbors::add);
+    			return neighbors;
+    		}).collect(Collectors.toList());
+    		for(int i = 0; i < fresh.size(); i++) {
+    			for(String neighbor: found.get(i)) {
+    				Integer position = order.get(neighbor);
+    				if(position == null || position < i)
+    					connect(fresh.get(i), neighbor);
+    			}
+    		}
+    		int count = gone.size() + fresh.size();
+    		if(count == 0)
+    			return 0;
+    		if(vertexOrder == VertexOrder.INSERTION && numVertices > 0 && (long) count * INCREMENTAL_SHARE <= numVertices) {
+    			if(!gone.isEmpty())
+    				removeVertices(gone);
+    			if(!fresh.isEmpty())
+    				addVertices(fresh);
+    			refreshSpelling();
+    		} else {
+    			// path data is recomputed once for the whole batch of changes
+    			HashSet<String> dropped = new HashSet<String>(gone);
+    			WordArena next = new WordArena(numVertices + fresh.size());
+    			for(String word: insertionOrder()) {
+    				if(!dropped.contains(word))
+    					next.intern(word);
+    			}
+    			for(String word: fresh)
+    				next.intern(word);
+    			publish(next);
+    		}
+    		return count;
+    	}
+    }
+    
+    /**
+     * Patches the query data for words just removed from the graph, see {@link #applyDelta(Collection, Collection)}.
+     * Must be called while holding updateLock.
+     * 
+     * @param gone the removed words, all in the current query data
+     */
+    private void removeVertices(List<String> gone) {
+    	int n = numVertices;
+    	int m = n - gone.size();
+    	boolean[] removed = new boolean[n];
+    	for(String word: gone)
+    		removed[vertices.indexOf(word)] = true;
+    	// the last remaining words move into the ids of removed words, so the ids stay dense
+    	int[] newId = new int[n];
+    	int[] oldId = new int[m];
+    	Arrays.fill(newId, -1);
+    	boolean moved = false;
+    	for(int id = 0, last = m; id < m; id++) {
+    		oldId[id] = id;
+    		if(removed[id]) {
+    			while(removed[last])
+    				last++;
+    			oldId[id] = last++;
+    			moved = true;
+    		}
+    		newId[oldId[id]] = id;
+    	}
+    	// only the rows of removed and moved words and of their neighbors change
+    	boolean[] touched = new boolean[n];
+    	for(int v = 0; v < n; v++) {
+    		if(removed[v] || newId[v] != v) {
+    			touched[v] = true;
+    			for(int u: adjacency[v])
+    				touched[u] = true;
+    		}
+    	}
+    	int[][] nextAdjacency = new int[m][];
+    	int[][] nextWeights = weights == null ? null : new int[m][];
+    	long lostEdges = 0;
+    	long lostChars = 0;
+    	for(int v = 0; v < n; v++) {
+    		if(removed[v]) {
+    			// an edge between two removed words is seen from both
+    			for(int u: adjacency[v])
+    				lostEdges += removed[u] ? 1 : 2;
+    			lostChars += vertices.length(v);
+    			continue;
+    		}
+    		int id = newId[v];
+    		if(!touched[v]) {
+    			nextAdjacency[id] = adjacency[v];
+    			if(weights != null)
+    				nextWeights[id] = weights[v];
+    			continue;
+    		}
+    		int[] row = new int[adjacency[v].length];
+    		int[] rowWeights = new int[row.length];
+    		int size = 0;
+    		for(int k = 0; k < row.length; k++) {
+    			int u = adjacency[v][k];
+    			if(removed[u])
+    				continue;
+    			rowWeights[size] = weights == null ? 1 : weights[v][k];
+    			row[size++] = newId[u];
+    		}
+    		nextAdjacency[id] = Arrays.copyOf(row, size);
+    		if(weights != null)
+    			nextWeights[id] = Arrays.copyOf(rowWeights, size);
+    	}
+    	// ranks keep their order, each lowered by the removed words ranked below it
+    	int[] below = new int[n + 1];
+    	for(int v = 0; v < n; v++) {
+    		if(removed[v])
+    			below[rank[v] + 1]++;
+    	}
+    	for(int r = 0; r < n; r++)
+    		below[r + 1] += below[r];
+    	int[] nextRank = new int[m];
+    	for(int id = 0; id < m; id++)
+    		nextRank[id] = rank[oldId[id]] - below[rank[oldId[id]]];
+    	// a new arena, so that paths handed out before keep reading their words
+    	WordArena nextVertices = new WordArena(m);
+    	for(int id = 0; id < m; id++)
+    		nextVertices.intern(vertices.get(oldId[id]));
+    	int[] nextIndex = null;
+    	if(insertionIndex != null || moved) {
+    		nextIndex = new int[m];
+    		for(int id = 0; id < m; id++)
+    			nextIndex[id] = insertionIndex == null ? oldId[id] : insertionIndex[oldId[id]];
+    	}
+    	PathStore nextPaths = paths;
+    	Runnable patch = null;
+    	if(paths != null) {
+    		patch = removalPatch(removed, newId, oldId, nextAdjacency, nextWeights, nextRank);
+    		if(patch == null)
+    			nextPaths = buildPathStore(nextAdjacency, nextWeights, nextRank);
+    	}
+    	DistanceLabels nextLabels = labels == null ? null : new DistanceLabels(nextAdjacency, nextRank, nextVertices);
+    	HashSet<String> dropped = new HashSet<String>(gone);
+    	ArrayList<String> nextAdded = new ArrayList<String>();
+    	for(String word: spellingAdded) {
+    		if(!dropped.contains(word))
+    			nextAdded.add(word);
+    	}
+    	// a lighter edge may be gone, the old lightest weight still bounds the A* heuristic from below
+    	install(nextVertices, nextIndex, nextAdjacency, nextWeights, nextRank, nextPaths, patch, nextLabels, spelling, 
+    			nextAdded, spellingChanges + gone.size(), minWeight, numEdges - lostEdges / 2, numChars - lostChars);
+    }
+    
+    /**
+     * Computes the rows of the path store that removing words changes, see 
+     * {@link #applyDelta(Collection, Collection)}.
+     * 
+     * @param removed removed[v] is true if vertex v is removed
+     * @param newId newId[v] is the id vertex v moves to, -1 if it is removed
+     * @param oldId oldId[id] is the current id of the vertex that takes id
+     * @param nextAdjacency adjacency after the removal
+     * @param nextWeights weights after the removal, null without edge costs
+     * @param nextRank ranks after the removal
+     * @return writes the rows into the store, to run under the write lock; null if the store must be rebuilt
+     */
+    private Runnable removalPatch(boolean[] removed, int[] newId, int[] oldId, int[][] nextAdjacency, 
+    		int[][] nextWeights, int[] nextRank) {
+    	PathStore store = paths;
+    	int[][] edges = adjacency;
+    	int n = removed.length;
+    	int m = oldId.length;
+    	IntStream rows;
+    	if(store.isDistanceOnly()) {
+    		// a distance only grows where some word loses every neighbor one step closer to the source
+    		int[] boundary = IntStream.range(0, n).filter(v -> !removed[v] && IntStream.of(edges[v]).anyMatch(u -> removed[u]))
+    				.toArray();
+    		rows = IntStream.range(0, n).parallel().filter(s -> !removed[s] && losesParent(store, edges, s, boundary, removed));
+    	} else {
+    		// predecessors can not be checked row by row: the components of removed and moved words are searched again
+    		int[] component = components(edges);
+    		boolean[] changed = new boolean[n];
+    		for(int v = 0; v < n; v++) {
+    			if(removed[v] || (newId[v] != v))
+    				changed[component[v]] = true;
+    		}
+    		rows = IntStream.range(0, n).filter(s -> !removed[s] && changed[component[s]]);
+    	}
+    	int[] sources = rows.map(s -> newId[s]).sorted().toArray();
+    	byte[][] images = searchRows(sources, nextAdjacency, nextWeights, nextRank, store.isDistanceOnly(), 0);
+    	if(images == null)
+    		return null;
+    	return () -> {
+    		if(store.isDistanceOnly()) {
+    			for(int id = 0; id < m; id++) {
+    				if(oldId[id] != id)
+    					store.moveVertex(oldId[id], id);
+    			}
+    		}
+    		// rows without predecessors in a changed component reach neither removed nor moved words
+    		store.resize(m, nextAdjacency, nextRank);
+    		for(int i = 0; i < sources.length; i++)
+    			store.putRow(sources[i], images[i]);
+    	};
+    }
+    
+    /**
+     * @param store distance-only path store
+     * @param adjacency adjacency of the store
+     * @param source a source vertex
+     * @param boundary the remaining vertices with a removed neighbor
+     * @param removed removed[v] is true if vertex v is removed
+     * @return true if some vertex has no remaining neighbor one step closer to source, so the row changes
+     */
+    private static boolean losesParent(PathStore store, int[][] adjacency, int source, int[] boundary, boolean[] removed) {
+    	for(int v: boundary) {
+    		int d = store.distance(source, v);
+    		if(d <= 0)
+    			continue;
+    		boolean kept = false;
+    		for(int k = 0; k < adjacency[v].length && !kept; k++) {
+    			int u = adjacency[v][k];
+    			kept = !removed[u] && store.distance(source, u) == d - 1;
+    		}
+    		if(!kept)
+    			return true;
+    	}
+    	return false;
+    }
+    
+    /**
+     * Patches the query data for words just added to the graph, see {@link #applyDelta(Collection, Collection)}.
+     * Must be called while holding updateLock.
+     * 
+     * @param fresh the added words, in the order they were added
+     */
+    private void addVertices(List<String> fresh) {
+    	int before = numVertices;
+    	int n = before + fresh.size();
+    	HashMap<String, Integer> freshIds = new HashMap<String, Integer>();
+    	for(int i = 0; i < fresh.size(); i++)
+    		freshIds.put(fresh.get(i), before + i);
+    	int[][] nextAdjacency = Arrays.copyOf(adjacency, n);
+    	int[][] nextWeights = weights == null ? null : Arrays.copyOf(weights, n);
+    	// the rows of existing words only gain the new words, at their end
+    	HashMap<Integer, ArrayList<int[]>> gained = new HashMap<Integer, ArrayList<int[]>>();
+    	long newEdges = 0;
+    	long newChars = 0;
+    	int nextMinWeight = minWeight;
+    	for(int i = 0; i < fresh.size(); i++) {
+    		String word = fresh.get(i);
+    		int id = before + i;
+    		ArrayList<int[]> row = new ArrayList<int[]>();
+    		for(String neighbor: graph.getNeighbors(word)) {
+    			Integer other = freshIds.get(neighbor);
+    			int u = other != null ? other : vertices.indexOf(neighbor);
+    			int weight = edgeCost == null ? 1 : ((WeightedGraphADT<String>) graph).getWeight(word, neighbor);
+    			row.add(new int[] {u, weight});
+    			nextMinWeight = Math.min(nextMinWeight, weight);
+    			if(u < before) {
+    				gained.computeIfAbsent(u, k -> new ArrayList<int[]>()).add(new int[] {id, weight});
+    				newEdges += 2;
+    			} else {
+    				// an edge between two new words is seen from both
+    				newEdges++;
+    			}
+    		}
+    		nextAdjacency[id] = row.stream().mapToInt(edge -> edge[0]).toArray();
+    		if(weights != null)
+    			nextWeights[id] = row.stream().mapToInt(edge -> edge[1]).toArray();
+    		newChars += word.length();
+    	}
+    	for(Map.Entry<Integer, ArrayList<int[]>> entry: gained.entrySet()) {
+    		int u = entry.getKey();
+    		int length = adjacency[u].length;
+    		nextAdjacency[u] = Arrays.copyOf(adjacency[u], length + entry.getValue().size());
+    		if(weights != null)
+    			nextWeights[u] = Arrays.copyOf(weights[u], length + entry.getValue().size());
+    		for(int[] edge: entry.getValue()) {
+    			nextAdjacency[u][length] = edge[0];
+    			if(weights != null)
+    				nextWeights[u][length] = edge[1];
+    			length++;
+    		}
+    	}
+    	// ranks keep their order, each raised by the new words ranked below it; no sort of the existing words
+    	int[] byRank = new int[before];
+    	for(int v = 0; v < before; v++)
+    		byRank[rank[v]] = v;
+    	int[] position = new int[fresh.size()];
+    	int[] above = new int[before + 1];
+    	for(int i = 0; i < fresh.size(); i++) {
+    		int low = 0;
+    		int high = before;
+    		while(low < high) {
+    			int middle = (low + high) >>> 1;
+    			if(vertices.get(byRank[middle]).compareTo(fresh.get(i)) < 0)
+    				low = middle + 1;
+    			else
+    				high = middle;
+    		}
+    		position[i] = low;
+    		above[low]++;
+    	}
+    	for(int r = 0; r < before; r++)
+    		above[r + 1] += above[r];
+    	int[] nextRank = Arrays.copyOf(rank, n);
+    	for(int v = 0; v < before; v++)
+    		nextRank[v] = rank[v] + above[rank[v]];
+    	Integer[] sorted = new Integer[fresh.size()];
+    	for(int i = 0; i < sorted.length; i++)
+    		sorted[i] = i;
+    	Arrays.sort(sorted, (a, b) -> fresh.get(a).compareTo(fresh.get(b)));
+    	for(int j = 0; j < sorted.length; j++)
+    		nextRank[before + sorted[j]] = position[sorted[j]] + j;
+    	int[] nextIndex = null;
+    	if(insertionIndex != null) {
+    		nextIndex = Arrays.copyOf(insertionIndex, n);
+    		for(int i = 0; i < fresh.size(); i++)
+    			nextIndex[before + i] = nextInsertion + i;
+    	}
+    	PathStore nextPaths = paths;
+    	Runnable storePatch = null;
+    	if(paths != null) {
+    		if(n <= paths.capacity())
+    			storePatch = additionPatch(before, nextAdjacency, nextWeights, nextRank);
+    		if(storePatch == null)
+    			nextPaths = buildPathStore(nextAdjacency, nextWeights, nextRank);
+    	}
+    	WordArena words = vertices;
+    	DistanceLabels nextLabels = null;
+    	if(labels != null) {
+    		nextLabels = labels.add(nextAdjacency, nextRank, words);
+    		// added entries are partly redundant, the labels start over once they outnumber the built ones
+    		if(2 * nextLabels.getAddedEntryCount() > nextLabels.getEntryCount())
+    			nextLabels = new DistanceLabels(nextAdjacency, nextRank, words);
+    	}
+    	ArrayList<String> nextAdded = new ArrayList<String>(spellingAdded);
+    	nextAdded.addAll(fresh);
+    	Runnable patch = storePatch;
+    	// appended ids are new, so readers of the arena never see a word change
+    	install(words, nextIndex, nextAdjacency, nextWeights, nextRank, nextPaths, () -> {
+    		for(String word: fresh)
+    			words.intern(word);
+    		if(patch != null)
+    			patch.run();
+    	}, nextLabels, spelling, nextAdded, spellingChanges + fresh.size(), nextMinWeight, numEdges + newEdges / 2, 
+    			numChars + newChars);
+    	nextInsertion += fresh.size();
+    }
+    
+    /**
+     * Computes the rows of the path store that adding words changes, see 
+     * {@link #applyDelta(Collection, Collection)}.
+     * 
+     * @param before number of vertices before the new ones
+     * @param nextAdjacency adjacency with the new vertices
+     * @param nextWeights weights with the new vertices, null without edge costs
+     * @param nextRank ranks with the new vertices
+     * @return writes the rows into the store, to run under the write lock; null if the store must be rebuilt
+     */
+    private Runnable additionPatch(int before, int[][] nextAdjacency, int[][] nextWeights, int[] nextRank) {
+    	PathStore store = paths;
+    	int n = nextAdjacency.length;
+    	if(!store.isDistanceOnly()) {
+    		// predecessors can not be checked row by row: the components of new words are searched again
+    		int[] component = components(nextAdjacency);
+    		boolean[] changed = new boolean[n];
+    		for(int w = before; w < n; w++)
+    			changed[component[w]] = true;
+    		int[] sources = IntStream.range(0, n).filter(s -> changed[component[s]]).toArray();
+    		byte[][] images = searchRows(sources, nextAdjacency, nextWeights, nextRank, false, 0);
+    		if(images == null)
+    			return null;
+    		return () -> {
+    			store.resize(n, nextAdjacency, nextRank);
+    			for(int s = 0; s < before; s++) {
+    				if(!changed[component[s]]) {
+    					for(int w = before; w < n; w++)
+    						store.putUnreached(s, w);
+    				}
+    			}
+    			for(int i = 0; i < sources.length; i++)
+    				store.putRow(sources[i], images[i]);
+    		};
+    	}
+    	if((long) before * (n - before) > pathHeapBudget)
+    		return null;
+    	// a row keeps its distances unless a new word shortens one; it then only needs the distances to new words
+    	byte[][] columns = new byte[before][];
+    	IntStream.range(0, before).parallel().forEach(s -> columns[s] = newColumns(store, s, before, nextAdjacency));
+    	int[] sources = IntStream.range(0, n).filter(s -> s >= before || columns[s] == null).toArray();
+    	byte[][] images = searchRows(sources, nextAdjacency, null, nextRank, true, (long) before * (n - before));
+    	if(images == null)
+    		return null;
+    	return () -> {
+    		store.resize(n, nextAdjacency, nextRank);
+    		for(int s = 0; s < before; s++) {
+    			if(columns[s] == null)
+    				continue;
+    			for(int i = 0; i < columns[s].length; i++) {
+    				if(columns[s][i] == 0)
+    					store.putUnreached(s, before + i);
+    				else
+    					store.putDistance(s, before + i, (columns[s][i] & 0xFF) - 1);
+    			}
+    		}
+    		for(int i = 0; i < sources.length; i++)
+    			store.putRow(sources[i], images[i]);
+    	};
+    }
+    
+    /**
+     * Computes the distances from a source to new vertices from its distances to their existing neighbors, 
+     * relaxing the edges between new vertices in order of distance.
+     * 
+     * @param store distance-only path store over the vertices before the new ones
+     * @param source an existing vertex
+     * @param before number of existing vertices
+     * @param adjacency adjacency with the new vertices
+     * @return distance plus one to each new vertex (0 if not reached); null if a new vertex shortens the path to 
+     *         an existing vertex, or a distance is too long for the store, so the row has to be searched again
+     */
+    private static byte[] newColumns(PathStore store, int source, int before, int[][] adjacency) {
+    	int count = adjacency.length - before;
+    	int unreached = Integer.MAX_VALUE / 2;
+    	int[] d = new int[count];
+    	int[] level = new int[PathStore.FAR + 1];
+    	for(int i = 0; i < count; i++) {
+    		d[i] = unreached;
+    		for(int u: adjacency[before + i]) {
+    			int du = u < before ? store.distance(source, u) : -1;
+    			if(du >= 0)
+    				d[i] = Math.min(d[i], du + 1);
+    		}
+    		if(d[i] < unreached)
+    			level[d[i]]++;
+    	}
+    	// new vertices sorted by their distance through existing neighbors, merged with a breadth first queue
+    	for(int l = 0; l < PathStore.FAR; l++)
+    		level[l + 1] += level[l];
+    	int[] order = new int[level[PathStore.FAR]];
+    	for(int i = count - 1; i >= 0; i--) {
+    		if(d[i] < unreached)
+    			order[--level[d[i]]] = i;
+    	}
+    	boolean[] done = new boolean[count];
+    	int[] queue = new int[count];
+    	int head = 0;
+    	int tail = 0;
+    	for(int next = 0; next < order.length || head < tail; ) {
+    		int i = head < tail && (next == order.length || d[queue[head]] <= d[order[next]]) ? queue[head++] : order[next++];
+    		if(done[i])
+    			continue;
+    		done[i] = true;
+    		for(int u: adjacency[before + i]) {
+    			if(u >= before && !done[u - before] && d[i] + 1 < d[u - before]) {
+    				d[u - before] = d[i] + 1;
+    				queue[tail++] = u - before;
+    			}
+    		}
+    	}
+    	byte[] columns = new byte[count];
+    	for(int i = 0; i < count; i++) {
+    		if(d[i] == unreached)
+    			continue;
+    		if(d[i] >= PathStore.FAR)
+    			return null;
+    		for(int u: adjacency[before + i]) {
+    			int du = u < before ? store.distance(source, u) : 0;
+    			if(du == -1 || d[i] + 1 < du)
+    				return null;
+    		}
+    		columns[i] = (byte) (d[i] + 1);
+    	}
+    	return columns;
+    }
+    
+    /**
+     * Searches the rows of some sources for the path store, unless they do not fit in the heap budget.
+     * 
+     * @param sources source vertices
+     * @param nextAdjacency adjacency to search
+     * @param nextWeights weights to search, null without edge costs
+     * @param nextRank tie-break ranks
+     * @param distanceOnly true for the rows of a distance-only store
+     * @param staged bytes already held for the same change
+     * @return row images for {@link PathStore#putRow(int, byte[])}, null if they do not fit in the budget or the 
+     *         distances do not fit a distance-only store
+     */
+    private byte[][] searchRows(int[] sources, int[][] nextAdjacency, int[][] nextWeights, int[] nextRank, 
+    		boolean distanceOnly, long staged) {
+    	int n = nextAdjacency.length;
+    	if(staged + sources.length * (distanceOnly ? n : 5L * n) > pathHeapBudget)
+    		return null;
+    	byte[][] rows = new byte[sources.length][];
+    	if(distanceOnly)
+    		return new MultiSourceBfs(nextAdjacency).rows(sources, rows) ? rows : null;
+    	PathSearch search = newSearch(nextAdjacency, nextWeights, nextRank);
+    	for(int i = 0; i < sources.length; i++) {
+    		search.search(sources[i]);
+    		rows[i] = PathStore.rowImage(search, n);
+    	}
+    	return rows;
+    }
+    
+    /**
+     * @param adjacency an adjacency snapshot
+     * @return component[v] is the smallest id of the connected component of vertex v
+     */
+    private static int[] components(int[][] adjacency) {
+    	int n = adjacency.length;
+    	int[] component = new int[n];
+    	int[] queue = new int[n];
+    	Arrays.fill(component, -1);
+    	for(int root = 0; root < n; root++) {
+    		if(component[root] != -1)
+    			continue;
+    		int tail = 0;
+    		queue[tail++] = root;
+    		component[root] = root;
+    		for(int head = 0; head < tail; head++) {
+    			for(int u: adjacency[queue[head]]) {
+    				if(component[u] == -1) {
+    					component[u] = root;
+    					queue[tail++] = u;
+    				}
+    			}
+    		}
+    	}
+    	return component;
+    }
+    
+    /**
+     * Rebuilds the spelling index once an eighth of its words changed since it was built. Must be called while 
+     * holding updateLock.
+     */
+    private void refreshSpelling() {
+    	if(spelling == null || (long) spellingChanges * INCREMENTAL_SHARE <= spelling.size())
+    		return;
+    	SpellingIndex next;
+    	try {
+    		next = buildSpellingIndex(insertionOrder());
+    	} catch (IOException e) {
+    		throw new UncheckedIOException(e);
+    	}
+    	lock.writeLock().lock();
+    	try {
+    		spelling = next;
+    		spellingAdded = Collections.emptyList();
+    		spellingChanges = 0;
+    	} finally {
+    		lock.writeLock().unlock();
+    	}
+    }
+    
+    /**
+     * Gets the words in the order they were added, the order a rebuild of the query data numbers them in.
+     * 
+     * @return the words of the query data, in insertion order
+     */
+    private WordArena insertionOrder() {
+    	if(insertionIndex == null)
+    		return vertices;
+    	long[] keyed = new long[numVertices];
+    	for(int v = 0; v < numVertices; v++)
+    		keyed[v] = (long) insertionIndex[v] << 32 | v;
+    	Arrays.sort(keyed);
+    	WordArena words = new WordArena(numVertices);
+    	for(long key: keyed)
+    		words.intern(vertices.get((int) key));
+    	return words;
+    }
 
+    /**
+     * Adds the edge between two adjacent words, weighted if the processor has edge costs.
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     */
+    private void connect(String word1, String word2) {
+    	if(edgeCost == null)
+    		graph.addEdge(word1, word2);
+    	else
+    		((WeightedGraphADT<String>) graph).addEdge(word1, word2, edgeCost.applyAsInt(word1, word2));
+    }
     
     /**
      * Gets the list of words that create the shortest path between word1 and word2
@@ -124,35 +987,159 @@ public class GraphProcessor {
      *  shortest path between cat and wheat is the following list of words:
      *     [cat, hat, heat, wheat]
      * 
+     * The path is a {@link WordPath}: it holds vertex ids and builds each word when it is read.
+     * 
      * @param word1 first word
      * @param word2 second word
      * @return List<String> list of the words
      */
     public List<String> getShortestPath(String word1, String word2) {
+    	lock.readLock().lock();
+    	try {
     	// if graph has < 2 words
     	if(vertices.size() < 2 || word1 == null || word2 == null) 
     		return new ArrayList<String>();
-    	word1 = word1.toUpperCase().trim();
-        word2 = word2.toUpperCase().trim();
+    	word1 = policy.normalize(word1);
+        word2 = policy.normalize(word2);
     	if(word1.equals(word2)
     			|| word1.equals("") || word2.equals("") ) // if the two words are the same
     		return null;
-        int location1 = -1; // stores location of word1 and 2 in the array vertices
-        int location2 = -1; 
-        int counter = 0; // tracks location of words 
-        for(Vertex<String> v: vertices) {
-        	if(v.getVal().equals(word1))
-        		location1 = counter;
-        	if(v.getVal().equals(word2))
-        		location2 = counter;
-        	counter++;
-        }
+        if(cache != null)
+        	return cache.get(word1, word2, this::lookupPath);
+        return lookupPath(word1, word2);
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+      }
+    
+    /**
+     * Reads the path between two normalized words from the precomputed data.
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     * @return the path from word1 to word2, null if either word isn't in the graph
+     */
+    private WordPath lookupPath(String word1, String word2) {
+        int location1 = vertices.indexOf(word1); // stores location of word1 and 2 in the array vertices
+        int location2 = vertices.indexOf(word2);
         // if either word isn't in the graph
         if(location1 == -1 || location2 == -1)
         	return null;
-        // returns the shortest path from word1 to word2
-        return paths.get(location2).get(location1);
-      }
+        // paths are searched from the word that was added first, so the answer does not depend on the layout
+        boolean forward = insertedBefore(location1, location2);
+        int source = forward ? location1 : location2;
+        int target = forward ? location2 : location1;
+        int[] path = paths != null ? paths.path(source, target) 
+        		: labels != null ? labels.path(source, target) : searchPath(source, target);
+        WordPath words = new WordPath(path, vertices, pathWeight(path));
+        return forward ? words : words.reverse();
+    }
+    
+    /**
+     * @param id1 a vertex id
+     * @param id2 another vertex id
+     * @return true if the word of id1 was added before the word of id2
+     */
+    private boolean insertedBefore(int id1, int id2) {
+    	return insertionIndex == null ? id1 < id2 : insertionIndex[id1] < insertionIndex[id2];
+    }
+    
+    /**
+     * @param path vertex ids of a path
+     * @return total weight of the edges of the path, its number of edges if edges are not weighted
+     */
+    private int pathWeight(int[] path) {
+    	if(weights == null)
+    		return path.length - 1;
+    	int total = 0;
+    	for(int i = 1; i < path.length; i++) {
+    		int from = path[i - 1];
+    		for(int k = 0; k < adjacency[from].length; k++) {
+    			if(adjacency[from][k] == path[i])
+    				total += weights[from][k];
+    		}
+    	}
+    	return total;
+    }
+    
+    /**
+     * Searches one path with A*. The heuristic is the edit distance from a word to the target divided by the 
+     * most edits an edge can make (times the lightest edge weight), a lower bound on the remaining distance.
+     * Without an edit distance policy, or once imported edges join words further apart, there is no heuristic 
+     * and the search is Dijkstra's.
+     * 
+     * @param source id of the first word
+     * @param target id of the second word
+     * @return vertex ids of the path, the same path the precomputed data would give
+     */
+    private int[] searchPath(int source, int target) {
+    	AStarSearch search = searches.get();
+    	IntUnaryOperator heuristic = v -> 0;
+    	if(policy instanceof EditDistancePolicy && !foreignEdges) {
+    		EditDistancePolicy edits = (EditDistancePolicy) policy;
+    		// a transposition is two Levenshtein edits
+    		int perEdge = edits.getMaxDistance() * (edits.hasTranspositions() ? 2 : 1);
+    		WordArena words = vertices;
+    		String goal = words.get(target);
+    		int weight = minWeight;
+    		heuristic = v -> (words.editDistance(v, goal) + perEdge - 1) / perEdge * weight;
+    	}
+    	int[] path = search.search(source, target, heuristic);
+    	nodesExpanded.addAndGet(search.getExpandedCount());
+    	return path;
+    }
+    
+    /**
+     * Chooses how paths are found. {@link SearchMode#A_STAR} drops the all-pairs data, so loading a dictionary 
+     * only builds the graph, and searches each query on demand. {@link SearchMode#LABELS} replaces the all-pairs 
+     * data with distance labels. The path data is rebuilt for the new mode.
+     * 
+     * @param mode the search mode
+     * @throws IllegalArgumentException if mode is LABELS and the processor has edge costs
+     */
+    public void setSearchMode(SearchMode mode) {
+    	if(mode == SearchMode.LABELS && edgeCost != null)
+    		throw new IllegalArgumentException("distance labels need a graph without edge costs");
+    	synchronized(updateLock) {
+    		this.mode = mode;
+    		publish(insertionOrder());
+    	}
+    }
+    
+    /**
+     * Chooses how vertex ids are laid out in the adjacency, path data and searches. Orders that keep neighbors 
+     * close together make searches read memory in order; paths and distances are the same in every order.
+     * The query data is rebuilt in the new order.
+     * 
+     * @param order the vertex order
+     */
+    public void setVertexOrder(VertexOrder order) {
+    	synchronized(updateLock) {
+    		this.vertexOrder = order;
+    		publish(insertionOrder());
+    	}
+    }
+    
+    /**
+     * Gets the distance labels of the graph, for example to {@link DistanceLabels#save(String)} them.
+     * 
+     * @return the labels built at the last precomputation, null unless the search mode is {@link SearchMode#LABELS}
+     */
+    public DistanceLabels getDistanceLabels() {
+    	lock.readLock().lock();
+    	try {
+    		return labels;
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    }
+    
+    /**
+     * @return total number of vertices expanded by A* searches so far (see {@link SearchMode#A_STAR})
+     */
+    public long getNodesExpanded() {
+    	return nodesExpanded.get();
+    }
     
     /**
      * Gets the distance of the shortest path between word1 and word2
@@ -167,149 +1154,802 @@ public class GraphProcessor {
      *  distance of the shortest path between cat and wheat, [cat, hat, heat, wheat]
      *   = 3 (the number of edges in the shortest path)
      * 
+     * The distance is read from the precomputed data without building the path.
+     * 
      * @param word1 first word
      * @param word2 second word
-     * @return Integer distance
+     * @return Integer distance, -1 if there is no path or the words are equal or missing
      */
     public Integer getShortestDistance(String word1, String word2) {
-    	 return getShortestPath(word1, word2).size() - 1;
+    	lock.readLock().lock();
+    	try {
+    		if(word1 == null || word2 == null)
+    			return -1;
+    		int location1 = vertices.indexOf(policy.normalize(word1));
+    		int location2 = vertices.indexOf(policy.normalize(word2));
+    		if(location1 == -1 || location2 == -1 || location1 == location2)
+    			return -1;
+    		boolean forward = insertedBefore(location1, location2);
+    		int source = forward ? location1 : location2;
+    		int target = forward ? location2 : location1;
+    		if(paths != null)
+    			return paths.distance(source, target);
+    		if(labels != null)
+    			return labels.distance(source, target);
+    		// A* keeps no distances, the path has to be searched
+    		return searchPath(source, target).length - 1;
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    }
+    
+    /**
+     * Gets the total weight of the shortest path between word1 and word2.
+     * Without edge weights this equals {@link #getShortestDistance(String, String)}.
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     * @return Integer sum of the edge weights along the path, -1 if there is no path
+     */
+    public Integer getShortestPathWeight(String word1, String word2) {
+    	lock.readLock().lock();
+    	try {
+    		List<String> path = getShortestPath(word1, word2);
+    		if(path == null || path.isEmpty())
+    			return -1;
+    		return ((WordPath) path).distance();
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    }
+    
+    /**
+     * Lazily iterates every shortest path (fewest edges) between word1 and word2, in lexical order.
+     * 
+     * The paths are read from a DAG built with one breadth first search, so only the path 
+     * being returned is held in memory even when there are exponentially many.
+     * 
+     * Example: Given a dictionary,
+     *             cat
+     *             cot
+     *             hat
+     *             hot
+     *  the shortest paths between cat and hot are [cat, cot, hot] and [cat, hat, hot]
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     * @return Iterator<List<String>> over the paths, empty if the words are equal, missing or not connected
+     */
+    public Iterator<List<String>> iterateShortestPaths(String word1, String word2) {
+    	ShortestPathDag dag;
+    	List<String> words;
+    	lock.readLock().lock();
+    	try {
+    		dag = shortestPathDag(word1, word2);
+    		words = vertices;
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    	if(dag == null)
+    		return Collections.emptyIterator();
+    	Iterator<int[]> ids = dag.iterator();
+    	return new Iterator<List<String>>() {
+    		@Override
+    		public boolean hasNext() {
+    			return ids.hasNext();
+    		}
+    		@Override
+    		public List<String> next() {
+    			return ShortestPathDag.toWords(ids.next(), words);
+    		}
+    	};
+    }
+    
+    /**
+     * Gets up to limit shortest paths between word1 and word2 as a lazy Stream.
+     * @see #iterateShortestPaths(String, String)
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     * @param limit maximum number of paths in the Stream
+     * @return Stream<List<String>> of the paths
+     */
+    public Stream<List<String>> getAllShortestPaths(String word1, String word2, long limit) {
+    	return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterateShortestPaths(word1, word2), 
+    			Spliterator.ORDERED | Spliterator.NONNULL), false).limit(limit);
+    }
+    
+    /**
+     * Counts the shortest paths between word1 and word2 without enumerating them.
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     * @return long number of paths (Long.MAX_VALUE if larger), 0 if the words are equal, missing or not connected
+     */
+    public long countShortestPaths(String word1, String word2) {
+    	ShortestPathDag dag;
+    	lock.readLock().lock();
+    	try {
+    		dag = shortestPathDag(word1, word2);
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    	return dag == null ? 0 : dag.count();
+    }
+    
+    /**
+     * Builds the shortest path DAG between two words.
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     * @return the DAG, or null if either word is not in the graph
+     */
+    private ShortestPathDag shortestPathDag(String word1, String word2) {
+    	int location1 = idOf(word1);
+    	int location2 = idOf(word2);
+    	if(location1 == -1 || location2 == -1)
+    		return null;
+    	return new ShortestPathDag(adjacency, rank, location1, location2);
+    }
+    
+    /**
+     * Finds the vertex id of a word, normalized the same way as the dictionary.
+     * 
+     * @param word the word
+     * @return index of the word in vertices, -1 if it is not in the graph
+     */
+    private int idOf(String word) {
+    	if(word == null)
+    		return -1;
+    	return vertices.indexOf(policy.normalize(word));
+    }
+    
+    /**
+     * Extracts the words within a number of edges of some words, with all the edges between them, as of the 
+     * last {@link #shortestPathPrecomputation()}. Runs one breadth first pass over the adjacency snapshot, 
+     * see {@link GraphTraversal#neighborhood(Collection, int, int, long)}.
+     * 
+     * @param words the words to start from (words not in the graph are skipped)
+     * @param maxDepth largest number of edges from the nearest start word
+     * @param maxVertices largest number of words taken
+     * @param maxEdges largest number of edges taken
+     * @return Subgraph of the neighborhood
+     */
+    public Subgraph<String> getNeighborhood(Collection<String> words, int maxDepth, int maxVertices, long maxEdges) {
+    	ArrayList<String> seeds = new ArrayList<String>(words.size());
+    	for(String word: words) {
+    		if(word != null)
+    			seeds.add(policy.normalize(word));
+    	}
+    	lock.readLock().lock();
+    	try {
+    		return new GraphTraversal<String>(new SnapshotGraph(vertices, adjacency)).neighborhood(seeds, maxDepth, 
+    				maxVertices, maxEdges);
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    }
+    
+    /**
+     * Publishes the words within a number of edges of a word, nearest first, as of the last 
+     * {@link #shortestPathPrecomputation()}. The breadth first search only moves on as the subscriber requests 
+     * words and stops when it cancels, so no result set is held, see {@link ResultPublisher}.
+     * 
+     * @param word the word to start from
+     * @param maxDepth largest number of edges from word
+     * @return Flow.Publisher of the words, starting with word; empty if word is not in the graph
+     */
+    public Flow.Publisher<String> publishNeighborhood(String word, int maxDepth) {
+    	return new ResultPublisher<String>(() -> {
+    		if(word == null)
+    			return Collections.emptyIterator();
+    		lock.readLock().lock();
+    		try {
+    			return new GraphTraversal<String>(new SnapshotGraph(vertices, adjacency))
+    					.breadthFirst(policy.normalize(word), maxDepth);
+    		} finally {
+    			lock.readLock().unlock();
+    		}
+    	});
+    }
+    
+    /**
+     * Publishes the shortest path of each pair of words, in the order of the pairs. A path is only looked up 
+     * when the subscriber requests it, and the pairs are read from their iterator one at a time, so neither the 
+     * pairs nor the answers are held. Cancelling stops the lookups.
+     * 
+     * @param pairs pairs of words (key to value)
+     * @return Flow.Publisher of the paths as {@link #getShortestPath(String, String)} returns them, except that 
+     *         an empty list stands for null
+     */
+    public Flow.Publisher<List<String>> publishShortestPaths(Iterable<? extends Map.Entry<String, String>> pairs) {
+    	return new ResultPublisher<List<String>>(() -> {
+    		Iterator<? extends Map.Entry<String, String>> pair = pairs.iterator();
+    		return new Iterator<List<String>>() {
+    			@Override
+    			public boolean hasNext() {
+    				return pair.hasNext();
+    			}
+    			@Override
+    			public List<String> next() {
+    				Map.Entry<String, String> words = pair.next();
+    				List<String> path = getShortestPath(words.getKey(), words.getValue());
+    				return path == null ? Collections.<String>emptyList() : path;
+    			}
+    		};
+    	});
+    }
+    
+    /**
+     * Publishes every shortest path between word1 and word2 in lexical order, 
+     * see {@link #iterateShortestPaths(String, String)}. The next path is only read from the DAG when the 
+     * subscriber requests it.
+     * 
+     * @param word1 first word
+     * @param word2 second word
+     * @return Flow.Publisher of the paths, empty if the words are equal, missing or not connected
+     */
+    public Flow.Publisher<List<String>> publishAllShortestPaths(String word1, String word2) {
+    	return new ResultPublisher<List<String>>(() -> iterateShortestPaths(word1, word2));
+    }
+    
+    /**
+     * Publishes every edge of the graph once, as of the last {@link #shortestPathPrecomputation()}, walking the 
+     * adjacency snapshot as the subscriber requests edges. An edge is a path of two words whose 
+     * {@link WordPath#distance()} is its weight (1 if edges are not weighted).
+     * 
+     * @return Flow.Publisher of the edges, by vertex id of their first word
+     */
+    public Flow.Publisher<WordPath> publishEdges() {
+    	return new ResultPublisher<WordPath>(() -> {
+    		WordArena words;
+    		int[][] edges;
+    		int[][] edgeWeights;
+    		lock.readLock().lock();
+    		try {
+    			words = vertices;
+    			edges = adjacency;
+    			edgeWeights = weights;
+    		} finally {
+    			lock.readLock().unlock();
+    		}
+    		return new Iterator<WordPath>() {
+    			// the next edge is edges[vertex][index], each edge taken from its end with the lower id
+    			private int vertex;
+    			private int index = -1;
+    			private boolean found;
+    			
+    			@Override
+    			public boolean hasNext() {
+    				if(!found) {
+    					index++;
+    					for(; vertex < edges.length; vertex++, index = 0) {
+    						while(index < edges[vertex].length && edges[vertex][index] < vertex)
+    							index++;
+    						if(index < edges[vertex].length)
+    							break;
+    					}
+    					found = true;
+    				}
+    				return vertex < edges.length;
+    			}
+    			
+    			@Override
+    			public WordPath next() {
+    				if(!hasNext())
+    					throw new NoSuchElementException();
+    				found = false;
+    				return new WordPath(new int[] {vertex, edges[vertex][index]}, words, 
+    						edgeWeights == null ? 1 : edgeWeights[vertex][index]);
+    			}
+    		};
+    	});
+    }
+    
+    /**
+     * Read-only view of an adjacency snapshot as a graph of words, for traversals that must not see the graph 
+     * while it changes. Mutations return null or false.
+     */
+    private static class SnapshotGraph implements GraphADT<String> {
+    	private final WordArena words;
+    	private final int[][] adjacency;
+    	
+    	SnapshotGraph(WordArena words, int[][] adjacency) {
+    		this.words = words;
+    		this.adjacency = adjacency;
+    	}
+    	
+    	@Override
+    	public String addVertex(String vertex) {
+    		return null;
+    	}
+    	
+    	@Override
+    	public String removeVertex(String vertex) {
+    		return null;
+    	}
+    	
+    	@Override
+    	public boolean addEdge(String vertex1, String vertex2) {
+    		return false;
+    	}
+    	
+    	@Override
+    	public boolean removeEdge(String vertex1, String vertex2) {
+    		return false;
+    	}
+    	
+    	/**
+    	 * @return id of a vertex of the snapshot, -1 if it is not one (words added to the arena since are not)
+    	 */
+    	private int idOf(String vertex) {
+    		int id = vertex == null ? -1 : words.indexOf(vertex);
+    		return id < adjacency.length ? id : -1;
+    	}
+    	
+    	@Override
+    	public boolean isAdjacent(String vertex1, String vertex2) {
+    		int id1 = idOf(vertex1);
+    		int id2 = idOf(vertex2);
+    		if(id1 == -1 || id2 == -1)
+    			return false;
+    		for(int u: adjacency[id1]) {
+    			if(u == id2)
+    				return true;
+    		}
+    		return false;
+    	}
+    	
+    	@Override
+    	public Iterable<String> getNeighbors(String vertex) {
+    		int id = idOf(vertex);
+    		if(id == -1)
+    			return null;
+    		int[] row = adjacency[id];
+    		return () -> IntStream.of(row).mapToObj(words::get).iterator();
+    	}
+    	
+    	@Override
+    	public Iterable<String> getAllVertices() {
+    		return words.subList(0, adjacency.length);
+    	}
+    }
+    
+    /**
+     * Puts a bounded cache of path answers in front of {@link #getShortestPath(String, String)} (and so of 
+     * {@link #getShortestPathWeight(String, String)}, which reads the cached path). Distances are read from the 
+     * path data directly and do not go through the cache. Popular word pairs are kept by frequency (W-TinyLFU),
+     * (A, B) and (B, A) share an entry, and the cache is cleared whenever the path data is recomputed.
+     * 
+     * @param maxBytes memory budget of the cache, in estimated bytes
+     * @return the cache, for its hit rate and size statistics
+     */
+    public PathCache enablePathCache(long maxBytes) {
+    	cache = new PathCache(maxBytes);
+    	return cache;
+    }
+    
+    /**
+     * Gets statistics of the graph as of the last {@link #shortestPathPrecomputation()}: degree histogram,
+     * components, hub words, diameter bounds and eccentricities, computed in parallel.
+     * 
+     * @return GraphAnalytics over the current graph
+     */
+    public GraphAnalytics getAnalytics() {
+    	lock.readLock().lock();
+    	try {
+    		// the arena may grow after the snapshot, the analytics only see its words
+    		return new GraphAnalytics(vertices.subList(0, adjacency.length), adjacency);
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    }
+    
+    /**
+     * Estimates the memory used by the graph, the precomputed paths and the cache, by component. Built from 
+     * counts kept at the last precomputation, so it is cheap enough to call often.
+     * 
+     * @return MemoryFootprint of this processor
+     * @see MemoryFootprint#predict(int, double, double)
+     */
+    public MemoryFootprint getFootprint() {
+    	lock.readLock().lock();
+    	try {
+    		MemoryFootprint footprint = new MemoryFootprint();
+    		footprint.addGraph(numVertices, numEdges, numChars, weights != null);
+    		footprint.add(MemoryFootprint.WORD_ARENA, vertices.getMemoryBytes());
+    		footprint.replace(MemoryFootprint.WORD_ARENA, MemoryFootprint.wordIndex(numVertices));
+    		if(insertionIndex != null)
+    			footprint.add(MemoryFootprint.WORD_ARENA, MemoryFootprint.array(4, numVertices));
+    		footprint.add(MemoryFootprint.DICTIONARY, dictionary.getMemoryBytes());
+    		footprint.addSnapshot(numVertices, numEdges, weights != null);
+    		footprint.add(MemoryFootprint.PATHS_HEAP, paths == null ? 0 : paths.getHeapBytes());
+    		footprint.add(MemoryFootprint.PATHS_MAPPED, paths == null ? 0 : paths.getFileBytes());
+    		if(labels != null)
+    			footprint.add(MemoryFootprint.LABELS, labels.getMemoryBytes());
+    		footprint.add(MemoryFootprint.SPELLING_MAPPED, spelling == null ? 0 : spelling.getFileBytes());
+    		if(cache != null)
+    			footprint.add(MemoryFootprint.CACHE, cache.getWeightedSize());
+    		return footprint;
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    }
+    
+    /**
+     * Splits the graph of a dictionary into length shards, each owned by a separate worker process on this machine.
+     * 
+     * Since adjacent words differ in length by at most the edit distance of the policy, each shard only shares
+     * edges with the shards next to it, and searches exchange only frontier words between them 
+     * (see {@link ShardCoordinator}). The dictionary is read by the workers, not loaded into this processor.
+     * 
+     * @param filepath file path to the dictionary
+     * @param shards number of worker processes
+     * @return ShardCoordinator answering path queries; close it to stop the workers
+     * @throws IOException if the dictionary can not be read or a worker can not be started
+     * @throws IllegalArgumentException if the adjacency policy of this processor is not an edit distance policy
+     */
+    public ShardCoordinator partition(String filepath, int shards) throws IOException {
+    	if(!(policy instanceof EditDistancePolicy))
+    		throw new IllegalArgumentException("only edit distance policies can be partitioned by length");
+    	return new ShardCoordinator(filepath, (EditDistancePolicy) policy, shards);
+    }
+    
+    /**
+     * Keeps the graph in step with a dictionary file: the words of the file are added now, and every later change 
+     * to the file adds the new words and removes the deleted ones through {@link #applyDelta(Collection, Collection)}.
+     * Small changes patch the query data in place; the cost and the cases that rebuild it are given there.
+     * 
+     * @param filepath file path to the dictionary
+     * @return DictionaryWatcher watching the file; close it to stop watching
+     * @throws IOException if the file can not be read or watched
+     */
+    public DictionaryWatcher watchDictionary(String filepath) throws IOException {
+    	return new DictionaryWatcher(this, filepath, false);
+    }
+    
+    /**
+     * Applies a file of changes to the graph as it grows: each line "+WORD" adds a word and "-WORD" removes one.
+     * The lines appended between two reads are applied together as one batch, patched into the query data or 
+     * rebuilding it as described in {@link #applyDelta(Collection, Collection)}.
+     * 
+     * @param filepath file path to the delta file
+     * @return DictionaryWatcher watching the file; close it to stop watching
+     * @throws IOException if the file can not be read or watched
+     */
+    public DictionaryWatcher watchDeltaFile(String filepath) throws IOException {
+    	return new DictionaryWatcher(this, filepath, true);
+    }
+    
+    /**
+     * @param word a word
+     * @return the word as stored in the graph by the adjacency policy
+     */
+    String normalize(String word) {
+    	return policy.normalize(word);
     }
     
     /**
      * Computes shortest paths and distances between all possible pairs of vertices.
      * This method is called after every set of updates in the graph to recompute the path information.
      * Any shortest path algorithm can be used (Djikstra's or Floyd-Warshall recommended).
+     * 
+     * Without edge weights all distances are computed by a bit-parallel breadth first search from 64 sources 
+     * at a time ({@link MultiSourceBfs}) into a byte matrix, and paths are derived from the distances. They are 
+     * the same paths as Dijkstra ordered by (distance, word).
+     * Weighted graphs use Dijkstra's algorithm on an indexed heap ({@link WeightedSearch}).
      */
     public void shortestPathPrecomputation() {
-    	// add new cell to column to create a new row
-    	for(int i = 0; i < vertices.size(); i++) {
-			ArrayList<String> aa = new ArrayList<String>();
-			for(int j = 0; j < vertices.size(); j++)
-			paths.get(i).add(j, aa);
-    	}
-    	// i iterates through list, counter finds elements to compute a path for
-    	 
-    	int counter;
-		int i = counter = 0;
-				
-		//finds shortest path, builds shortest path from i to j
-    	for(ArrayList<ArrayList<String>> v: paths) {
-    		dijkstra(vertices.get(i));
-    		for(int j = counter; j < v.size(); j++) {
-    			ArrayList<String> finalPath = buildPath(vertices.get(i), vertices.get(j));
-    				v.set(j, finalPath);
-    				paths.get(j).set(i, finalPath);
-    		}
-    		i++;
-    		counter++;
-    		// resets vertex values
-    		for(Vertex<String> ver: vertices)
-        		ver.setDefault(); 
-    	}
-    }
-    
-    private void dijkstra(Vertex<String> start) {
-    	start.setWeight(0); // sets start weight at 0
-    	PriorityQueue<Vertex<String>> pq = new PriorityQueue<Vertex<String>>(new VertexComparator());
-    	pq.add(start); // adds first vertex to PQ
-    	while(!pq.isEmpty()) { // runs through whole pq 
-    		Vertex<String> min = pq.poll(); // removes highest element in pq
-    		min.setVisited(true); // marks element as visited
-    		for(String str: graph.getNeighbors(min.getVal())) { 
-    			Vertex<String> neighbor = null;
-    			
-    			//finds the vertices to each neighbor
-    			for(Vertex<String> v: vertices) {
-    				if(v.getVal().equals(str)) {
-    					neighbor = v;
-    					break;
-    				}
+    	synchronized(updateLock) {
+    		publish(insertionOrder());
+    	}
+    }
+    
+    /**
+     * Builds the query data for a list of words (adjacency snapshot and the all-pairs path store) without 
+     * touching the current data, then swaps it in. Must be called while holding updateLock.
+     * 
+     * @param words the vertices of the graph, in id order
+     */
+    private void publish(WordArena words) {
+    	int n = words.size();
+    	int[][] insertedAdjacency = adjacencySnapshot(words);
+    	int[][] insertedWeights = weightSnapshot(words, insertedAdjacency);
+    	WordArena layout = words;
+    	int[] nextIndex = null;
+    	if(vertexOrder != VertexOrder.INSERTION) {
+    		nextIndex = vertexOrder == VertexOrder.BREADTH_FIRST ? VertexOrdering.breadthFirst(insertedAdjacency)
+    				: vertexOrder == VertexOrder.REVERSE_CUTHILL_MCKEE ? VertexOrdering.reverseCuthillMcKee(insertedAdjacency)
+    				: VertexOrdering.degree(insertedAdjacency);
+    		int[][][] relabeled = VertexOrdering.relabel(insertedAdjacency, insertedWeights, nextIndex);
+    		insertedAdjacency = relabeled[0];
+    		insertedWeights = relabeled[1];
+    		layout = new WordArena(n);
+    		for(int id: nextIndex)
+    			layout.intern(words.get(id));
+    	}
+    	int[][] nextAdjacency = insertedAdjacency;
+    	int[][] nextWeights = insertedWeights;
+    	int[] nextRank = layout.lexicalRank();
+    	// in the other modes paths are searched per query or derived from labels, no all-pairs data is kept
+    	PathStore nextPaths = mode != SearchMode.PRECOMPUTED ? null : buildPathStore(nextAdjacency, nextWeights, nextRank);
+    	DistanceLabels nextLabels = mode != SearchMode.LABELS ? null : new DistanceLabels(nextAdjacency, nextRank, layout);
+    	SpellingIndex nextSpelling;
+    	try {
+    		nextSpelling = buildSpellingIndex(words);
+    	} catch (IOException e) {
+    		throw new UncheckedIOException(e);
+    	}
+    	int nextMinWeight = 1;
+    	if(nextWeights != null) {
+    		nextMinWeight = Integer.MAX_VALUE;
+    		for(int[] row: nextWeights) {
+    			for(int w: row)
+    				nextMinWeight = Math.min(nextMinWeight, w);
+    		}
+    	}
+    	long edges = 0;
+    	long chars = 0;
+    	for(int i = 0; i < n; i++) {
+    		edges += nextAdjacency[i].length;
+    		chars += words.length(i);
+    	}
+    	install(layout, nextIndex, nextAdjacency, nextWeights, nextRank, nextPaths, null, nextLabels, nextSpelling, 
+    			Collections.<String>emptyList(), 0, nextMinWeight, edges / 2, chars);
+    	nextInsertion = n;
+    }
+    
+    /**
+     * Swaps new query data in under the write lock. The path store is either a new one, and the current store is 
+     * closed, or the current one patched in place by the patch. Must be called while holding updateLock.
+     * 
+     * @param layout the words by vertex id
+     * @param index insertion order of the vertices, null if the ids follow it
+     * @param nextAdjacency adjacency snapshot
+     * @param nextWeights weights of the snapshot, null without edge costs
+     * @param nextRank tie-break ranks
+     * @param nextPaths path store, null if none is kept
+     * @param patch changes to make to the current data before the swap, null if none
+     * @param nextLabels distance labels, null if none are kept
+     * @param nextSpelling spelling index, null if none is kept
+     * @param added words added since the spelling index was built
+     * @param changes number of words added or removed since the spelling index was built
+     * @param nextMinWeight lowest edge weight, or a lower bound of it
+     * @param edges number of edges
+     * @param chars total length of the words
+     */
+    private void install(WordArena layout, int[] index, int[][] nextAdjacency, int[][] nextWeights, int[] nextRank, 
+    		PathStore nextPaths, Runnable patch, DistanceLabels nextLabels, SpellingIndex nextSpelling, 
+    		List<String> added, int changes, int nextMinWeight, long edges, long chars) {
+    	lock.writeLock().lock();
+    	try {
+    		PathStore old = paths;
+    		if(patch != null)
+    			patch.run();
+    		vertices = layout;
+    		insertionIndex = index;
+    		adjacency = nextAdjacency;
+    		weights = nextWeights;
+    		rank = nextRank;
+    		paths = nextPaths;
+    		labels = nextLabels;
+    		minWeight = nextMinWeight;
+    		spelling = nextSpelling;
+    		spellingAdded = added;
+    		spellingChanges = changes;
+    		searches = ThreadLocal.withInitial(() -> new AStarSearch(nextAdjacency, nextWeights, nextRank));
+    		numVertices = nextAdjacency.length;
+    		numEdges = edges;
+    		numChars = chars;
+    		if(old != null && old != nextPaths)
+    			old.close();
+    		if(cache != null)
+    			cache.invalidateAll();
+    	} finally {
+    		lock.writeLock().unlock();
+    	}
+    }
+    
+    /**
+     * Computes the all-pairs path store of an adjacency snapshot.
+     * 
+     * @param nextAdjacency adjacency snapshot
+     * @param nextWeights weights of the snapshot, null without edge costs
+     * @param nextRank tie-break ranks
+     * @return PathStore holding a shortest path between every pair of vertices
+     */
+    private PathStore buildPathStore(int[][] nextAdjacency, int[][] nextWeights, int[] nextRank) {
+    	int n = nextAdjacency.length;
+    	PathStore nextPaths = null;
+    	try {
+    		if(nextWeights == null) {
+    			// all sources at once, 64 per sweep; distances too long for a byte fall back to one search per source
+    			nextPaths = new PathStore(nextPathFile(), nextAdjacency, nextRank, PathStore.capacityFor(n));
+    			if(!new MultiSourceBfs(nextAdjacency).allPairs(nextPaths)) {
+    				nextPaths.close();
+    				nextPaths = null;
     			}
-    			// iterates through each unvisited neighbor
-    			if(!neighbor.isVisited()) {
-    				// checks if the weight can be reduced
-    				if(neighbor.getWeight() > min.getWeight() + 1) {
-    					
-    					//updates vaules for neighbor and puts in priority queue
-    					neighbor.setWeight(min.getWeight() + 1);
-    					neighbor.setPred(min);
-    					pq.add(neighbor);
-    				}
+    		}
+    		if(nextPaths == null) {
+    			nextPaths = new PathStore(nextPathFile(), n, PathStore.capacityFor(n), pathHeapBudget);
+    			PathSearch search = newSearch(nextAdjacency, nextWeights, nextRank);
+    			//finds shortest paths from i, the rows of vertices added later read their paths to i from here
+    			for(int i = 0; i < n; i++) {
+    				search.search(i);
+    				nextPaths.putRow(search);
     			}
     		}
+    	} catch (IOException e) {
+    		closeAfterFailure(nextPaths, e);
+    		throw new UncheckedIOException(e);
+    	} catch (RuntimeException | Error e) {
+    		closeAfterFailure(nextPaths, e);
+    		throw e;
     	}
+    	return nextPaths;
     }
-private ArrayList<String> buildPath(Vertex<String> start, Vertex<String> end) {
-	Stack<String> stack = new Stack<String>();
-	Vertex<String> current = end;
-	ArrayList<String> array = new ArrayList<String>();
-	// adds vertices to start of list
-	while(current != start && current != null) {
-		stack.add(current.getVal());
-		current = current.getPred();
-		}
-	stack.add(start.getVal());
-	// if path does not exist or start = end
-	if(stack.size() == 1 || current == null || current != start)
-		return new ArrayList<String>();
-	while(!stack.isEmpty()) {
-		array.add(stack.pop());
-	}
-	return array;
-}
-
-
-    class Vertex<T>{
-    	public Vertex(T val) {
-    		visited = false;
-    		weight = Integer.MAX_VALUE;
-    		pred = null;
-    		this.val = val;
+    
+    /**
+     * @param nextAdjacency adjacency snapshot
+     * @param nextWeights weights of the snapshot, null without edge costs
+     * @param nextRank tie-break ranks
+     * @return the search filling the rows of a path store with predecessors
+     */
+    private static PathSearch newSearch(int[][] nextAdjacency, int[][] nextWeights, int[] nextRank) {
+    	if(nextWeights != null)
+    		return new WeightedSearch(nextAdjacency, nextWeights, nextRank);
+    	if(nextAdjacency.length >= PARALLEL_SEARCH_THRESHOLD)
+    		return new ParallelBfs(nextAdjacency, nextRank);
+    	return new UnitWeightSearch(nextAdjacency, nextRank);
+    }
+    
+    /**
+     * Closes (and so deletes) a path store that failed to build, keeping the build failure as the error.
+     * 
+     * @param store the store, null if it was not created
+     * @param failure what made the build fail
+     */
+    private static void closeAfterFailure(PathStore store, Throwable failure) {
+    	if(store == null)
+    		return;
+    	try {
+    		store.close();
+    	} catch (RuntimeException e) {
+    		failure.addSuppressed(e);
     	}
-    	
-    	public T getVal() {
-			return val;
-		}
-    	public boolean isVisited() {
-			return visited;
-		}
-		public void setVisited(boolean visited) {
-			this.visited = visited;
-		}
-		public int getWeight() {
-			return weight;
-		}
-		public void setWeight(int weight) {
-			this.weight = weight;
-		}
-		public Vertex<String> getPred() {
-			return pred;
-		}
-		public void setPred(Vertex<String> pred) {
-			this.pred = pred;
-		}
-		public void setDefault() {
-			visited = false;
-    		weight = Integer.MAX_VALUE;
-    		pred = null;
-		}
-		private boolean visited;
-		private int weight;
-    	private Vertex<String> pred;
-    	private T val;
-	}
-    
-    class VertexComparator implements Comparator<Vertex<String>> {
-		
-    	@Override
-		public int compare(Vertex<String> o1, Vertex<String> o2) {
-			Integer comp1 = o1.getWeight();
-			Integer comp2 = o2.getWeight();
-			if(comp1.equals(comp2)) {
-				return o1.getVal().compareTo(o2.getVal());
-			}
-			else
-				return comp1.compareTo(comp2);
-		}
-}
+    }
+    
+    /**
+     * Chooses the file of a new path store: the configured file, or a file next to it while the current store 
+     * uses it, or a temporary file.
+     */
+    private File nextPathFile() throws IOException {
+    	File file = pathFile;
+    	if(file == null) {
+    		file = File.createTempFile("paths", ".bin");
+    		file.deleteOnExit();
+    	} else if(paths != null && paths.getFile().equals(file)) {
+    		// the current store still answers queries, build the new one next to it
+    		file = new File(file.getPath() + ".next");
+    	}
+    	return file;
+    }
+    
+    /**
+     * Sets where {@link #shortestPathPrecomputation()} keeps its path data. The all-pairs table lives in a 
+     * memory-mapped file (a temporary file by default), with one byte per distance and predecessor rows read 
+     * back into the heap on demand, so dictionaries whose table is larger than the heap can be precomputed.
+     * Takes effect at the next precomputation.
+     * 
+     * @param filepath file for the path table, null for a temporary file
+     * @param heapBudget bytes of heap for predecessor rows read back from the file
+     */
+    public void setPathStore(String filepath, long heapBudget) {
+    	this.pathFile = filepath == null ? null : new File(filepath);
+    	this.pathHeapBudget = heapBudget;
+    }
+    
+    /**
+     * Keeps a spelling index of the dictionary in a file, for {@link #getSuggestions(String)}. An index file 
+     * left by an earlier run is mapped as it is when it was built from the same words, otherwise the index is 
+     * built now. It is rebuilt whenever the dictionary changes.
+     * 
+     * @param filepath file for the index, null to drop the index
+     * @param maxDistance largest edit distance of a suggestion
+     * @throws IOException if the index can not be written
+     * @see SpellingIndex
+     */
+    public void setSpellingIndex(String filepath, int maxDistance) throws IOException {
+    	synchronized(updateLock) {
+    		spellingFile = filepath == null ? null : new File(filepath);
+    		spellingDistance = maxDistance;
+    		SpellingIndex next = buildSpellingIndex(insertionOrder());
+    		lock.writeLock().lock();
+    		try {
+    			spelling = next;
+    			spellingAdded = Collections.emptyList();
+    			spellingChanges = 0;
+    		} finally {
+    			lock.writeLock().unlock();
+    		}
+    	}
+    }
+    
+    /**
+     * Gets the dictionary words close to a word, for example to suggest alternatives to a word that 
+     * {@link #getShortestPath(String, String)} does not know. Needs {@link #setSpellingIndex(String, int)}.
+     * 
+     * @param word any word
+     * @return words within the edit distance of the index, closest first; null if there is no spelling index
+     */
+    public List<String> getSuggestions(String word) {
+    	lock.readLock().lock();
+    	try {
+    		if(spelling == null || word == null)
+    			return null;
+    		if(spellingChanges == 0)
+    			return spelling.suggest(policy.normalize(word));
+    		return spelling.suggest(policy.normalize(word), spellingAdded, vertices::contains);
+    	} finally {
+    		lock.readLock().unlock();
+    	}
+    }
+    
+    /**
+     * Maps the spelling index file if it was built from these words, otherwise builds it next to the current 
+     * one and moves it into place, so the index being queried is never overwritten.
+     * 
+     * @param words the vertices, in id order
+     * @return SpellingIndex of the words, null if no index is kept
+     * @throws IOException if the index can not be written
+     */
+    private SpellingIndex buildSpellingIndex(WordArena words) throws IOException {
+    	if(spellingFile == null)
+    		return null;
+    	boolean transpositions = policy instanceof EditDistancePolicy && ((EditDistancePolicy) policy).hasTranspositions();
+    	if(spellingFile.exists()) {
+    		try {
+    			SpellingIndex existing = SpellingIndex.open(spellingFile);
+    			if(existing.matches(words, spellingDistance, transpositions))
+    				return existing;
+    		} catch (IOException e) {
+    			// not an index, overwrite it
+    		}
+    	}
+    	File next = new File(spellingFile.getPath() + ".next");
+    	SpellingIndex.build(words, spellingDistance, transpositions, next);
+    	Files.move(next.toPath(), spellingFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    	return SpellingIndex.open(spellingFile);
+    }
+    
+    /**
+     * Reads the weight of every edge of an adjacency snapshot from the weighted graph.
+     * 
+     * @param words the vertices, in id order
+     * @param adjacency adjacency snapshot of words
+     * @return weights[i][k] is the weight of the edge from i to adjacency[i][k], null without edge costs
+     */
+    private int[][] weightSnapshot(List<String> words, int[][] adjacency) {
+    	if(edgeCost == null)
+    		return null;
+    	WeightedGraphADT<String> weighted = (WeightedGraphADT<String>) graph;
+    	int[][] weights = new int[adjacency.length][];
+    	for(int i = 0; i < adjacency.length; i++) {
+    		weights[i] = new int[adjacency[i].length];
+    		for(int k = 0; k < adjacency[i].length; k++)
+    			weights[i][k] = weighted.getWeight(words.get(i), words.get(adjacency[i][k]));
+    	}
+    	return weights;
+    }
+    
+    /**
+     * Copies the neighbors of every vertex into an array of vertex ids, through the int form of the graph.
+     * 
+     * @param words the vertices, in id order
+     * @return adjacency[i] holds the ids of the neighbors of words.get(i)
+     */
+    private int[][] adjacencySnapshot(WordArena words) {
+    	return new IntGraphAdapter(graph, words).getIntGraph().toAdjacency();
+    }
+    
 }
@@ -4,9 +4,23 @@ import static org.junit.Assert.fail;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -461,4 +475,1185 @@ public class GraphProcessorTest {
 		}
 	}
 
-}
\ No newline at end of file
+	/*
+	 * tests weighted search gives the same paths as the unweighted search when every weight is 1
+	 */
+	@Test
+	public final void weightedPathShouldMatchUnweightedForUnitCosts() throws IOException {
+		
+		GraphProcessor weighted = new GraphProcessor(WordProcessor.editCost(1, 1));
+		File dictionary = dictionaryOf("chat", "hat", "hate", "hates", "dates", "dated", "dared", "cared", 
+				"scared", "scare", "scarce", "chats", "chap");
+		graphproc1.populateGraph(dictionary.getPath());
+		weighted.populateGraph(dictionary.getPath());
+		List<String> expectedwordList = graphproc1.getShortestPath("chat", "scarce");
+		List<String> actualwordlist = weighted.getShortestPath("chat", "scarce");
+		
+		if (!expectedwordList.equals(actualwordlist)) {
+			System.out.println("Failed: expected: "+expectedwordList+ " actual: "+actualwordlist);
+			fail("expected: "+expectedwordList+ " actual: "+actualwordlist);
+		}
+	}
+	
+	/*
+	 * tests path weight counts additions and deletions with their own cost
+	 */
+	@Test
+	public final void pathWeightShouldUseEditCosts() throws IOException {
+		
+		GraphProcessor weighted = new GraphProcessor(WordProcessor.editCost(1, 2));
+		weighted.populateGraph(dictionaryOf("chat", "hat", "hate", "that").getPath());
+		int actualweight = weighted.getShortestPathWeight("chat", "hate"); // chat -> hat -> hate
+		int expectedweight = 4;
+		
+		if (expectedweight != actualweight) {
+			System.out.println("Failed: expected: "+expectedweight+ " actual: "+actualweight);
+			fail("expected: "+expectedweight+ " actual: "+actualweight);
+		}
+	}
+
+	/*
+	 * tests the length sharded search finds paths as long as the local search, across every shard
+	 */
+	@Test
+	public final void partitionedDistanceShouldMatchLocal() throws IOException {
+		
+		// lengths 3 to 6 in 3 shards: CHAT -> HAT -> HATE -> ... -> SCARCE crosses all of them
+		File dictionary = dictionaryOf("chat", "hat", "hate", "hates", "dates", "dated", "dared", "cared", 
+				"scared", "scare", "scarce", "blind");
+		graphproc1.populateGraph(dictionary.getPath());
+		try (ShardCoordinator shards = graphproc1.partition(dictionary.getPath(), 3)) {
+			int actualdist = shards.getShortestDistance("chat", "scarce");
+			int expecteddist = graphproc1.getShortestDistance("chat", "scarce");
+			int actualunreached = shards.getShortestDistance("chat", "blind");
+			
+			if (expecteddist != actualdist || expecteddist != 10 || actualunreached != -1) {
+				System.out.println("Failed: expected: 10, -1 actual: "+actualdist+ ", "+actualunreached);
+				fail("expected: 10, -1 actual: "+actualdist+ ", "+actualunreached);
+			}
+		}
+	}
+
+	/*
+	 * tests only edit distance policies can be partitioned, since other policies do not bound the length change
+	 */
+	@Test
+	public final void partitionShouldRejectOtherPolicies() throws IOException {
+		
+		AdjacencyPolicy edits = AdjacencyPolicy.singleEdit();
+		GraphProcessor custom = new GraphProcessor(new AdjacencyPolicy() {
+			public String normalize(String word) {
+				return edits.normalize(word);
+			}
+			public boolean isAdjacent(String word1, String word2) {
+				return edits.isAdjacent(word1, word2);
+			}
+			public void forEachNeighbor(String word, WordTrie dictionary, Consumer<String> action) {
+				edits.forEachNeighbor(word, dictionary, action);
+			}
+		});
+		String actual = "no exception";
+		try {
+			custom.partition(dictionaryOf("cat", "hat").getPath(), 2).close();
+		} catch (IllegalArgumentException e) {
+			actual = "IllegalArgumentException";
+		}
+		
+		if (!"IllegalArgumentException".equals(actual)) {
+			System.out.println("Failed: expected: IllegalArgumentException actual: "+actual);
+			fail("expected: IllegalArgumentException actual: "+actual);
+		}
+	}
+
+	/*
+	 * tests the spelling index suggests dictionary words for a word that isn't in the graph
+	 */
+	@Test
+	public final void suggestionsShouldFindCloseWords() throws IOException {
+		
+		graphproc1.populateGraph(dictionaryOf("chat", "hat", "chatter", "chia", "scarce").getPath());
+		File index = File.createTempFile("spelling", ".idx");
+		index.deleteOnExit();
+		graphproc1.setSpellingIndex(index.getPath(), 1);
+		List<String> actual = graphproc1.getSuggestions("chatt");
+		List<String> expected = new ArrayList<String>();
+		expected.add("CHAT");
+		
+		if (!expected.equals(actual)) {
+			System.out.println("Failed: expected: "+expected+ " actual: "+actual);
+			fail("expected: "+expected+ " actual: "+actual);
+		}
+	}
+
+	/*
+	 * tests a path longer than a stored byte (more than 253 edges) is counted from the predecessors
+	 */
+	@Test
+	public final void longPathShouldBeRecountedFromPredecessors() throws IOException {
+		
+		// A, AA, AAA, ... each word is adjacent to the next one only
+		File dictionary = File.createTempFile("chain", ".txt");
+		dictionary.deleteOnExit();
+		StringBuilder words = new StringBuilder();
+		String word = "";
+		for (int i = 0; i < 300; i++) {
+			word += "a";
+			words.append(word).append('\n');
+		}
+		Files.write(dictionary.toPath(), words.toString().getBytes());
+		graphproc1.populateGraph(dictionary.getPath());
+		int actualdist = graphproc1.getShortestDistance("a", word);
+		int expecteddist = 299;
+		int actualsize = graphproc1.getShortestPath("a", word).size();
+		
+		if (expecteddist != actualdist || expecteddist + 1 != actualsize) {
+			System.out.println("Failed: expected: "+expecteddist+ " actual: "+actualdist+ " path size: "+actualsize);
+			fail("expected: "+expecteddist+ " actual: "+actualdist+ " path size: "+actualsize);
+		}
+	}
+	
+	/*
+	 * tests the path store keeps no more predecessor rows in the heap than its budget allows, and still 
+	 * rebuilds paths whose rows were evicted
+	 */
+	@Test
+	public final void pathStoreShouldEvictRowsOverBudget() throws IOException {
+		
+		int n = 300;
+		int[][] adjacency = new int[n][];
+		int[] rank = new int[n];
+		for (int v = 0; v < n; v++) {
+			adjacency[v] = v == 0 ? new int[] {1} : v == n - 1 ? new int[] {n - 2} : new int[] {v - 1, v + 1};
+			rank[v] = v;
+		}
+		File file = File.createTempFile("paths", ".bin");
+		long rowBytes = MemoryFootprint.array(4, n) + 64;
+		// room for two rows
+		try (PathStore store = new PathStore(file, n, 2 * (4L * n + 64))) {
+			UnitWeightSearch search = new UnitWeightSearch(adjacency, rank);
+			for (int v = 0; v < n; v++) {
+				search.search(v);
+				store.putRow(search);
+			}
+			for (int source = 0; source < 10; source++)
+				store.path(source, n - 1);
+			long actualbytes = store.getHeapBytes();
+			int actuallength = store.path(0, n - 1).length;
+			
+			if (actualbytes != 2 * rowBytes || actuallength != n) {
+				System.out.println("Failed: expected: "+2 * rowBytes+ " bytes, " +n+ " words actual: "+actualbytes
+						+ " bytes, "+actuallength+ " words");
+				fail("expected: "+2 * rowBytes+ " bytes, " +n+ " words actual: "+actualbytes+ " bytes, "
+						+actuallength+ " words");
+			}
+		}
+	}
+
+	/*
+	 * tests a watched dictionary adds appended words and removes deleted ones
+	 */
+	@Test
+	public final void watchedDictionaryShouldFollowFile() throws IOException, InterruptedException {
+		
+		File directory = Files.createTempDirectory("watch").toFile();
+		File dictionary = new File(directory, "words.txt");
+		Files.write(dictionary.toPath(), "cat\nhat\n".getBytes());
+		try (DictionaryWatcher watcher = graphproc1.watchDictionary(dictionary.getPath())) {
+			Files.write(dictionary.toPath(), "hot\n".getBytes(), StandardOpenOption.APPEND);
+			awaitUpdates(watcher, 2);
+			int actualadded = graphproc1.getShortestDistance("cat", "hot");
+			// rewritten without hat, in one rename so the watcher never reads half a file
+			replace(dictionary, "cat\nhot\n");
+			awaitUpdates(watcher, 3);
+			int actualremoved = graphproc1.getShortestDistance("cat", "hat");
+			
+			if (actualadded != 2 || actualremoved != -1) {
+				System.out.println("Failed: expected: 2, -1 actual: "+actualadded+ ", "+actualremoved);
+				fail("expected: 2, -1 actual: "+actualadded+ ", "+actualremoved);
+			}
+		} finally {
+			deleteDirectory(directory);
+		}
+	}
+	
+	/*
+	 * tests a watched delta file waits for complete lines, applies the lines read together in order, and reads a 
+	 * shorter rewritten file from its start
+	 */
+	@Test
+	public final void watchedDeltaFileShouldApplyCompleteLines() throws IOException, InterruptedException {
+		
+		File directory = Files.createTempDirectory("watch").toFile();
+		File deltas = new File(directory, "deltas.txt");
+		Files.write(deltas.toPath(), "+cat\n+ha".getBytes());
+		try (DictionaryWatcher watcher = graphproc1.watchDeltaFile(deltas.getPath())) {
+			int actualpartial = graphproc1.getShortestDistance("cat", "ha");
+			// completes +hat; cat is removed then added back, hot added then removed
+			Files.write(deltas.toPath(), "t\n-cat\n+cat\n+hot\n-hot\n".getBytes(), StandardOpenOption.APPEND);
+			awaitUpdates(watcher, 2);
+			int actualkept = graphproc1.getShortestDistance("cat", "hat");
+			int actualdropped = graphproc1.getShortestDistance("hat", "hot");
+			replace(deltas, "+cot\n");
+			awaitUpdates(watcher, 3);
+			int actualrewritten = graphproc1.getShortestDistance("cat", "cot");
+			
+			if (actualpartial != -1 || actualkept != 1 || actualdropped != -1 || actualrewritten != 1) {
+				System.out.println("Failed: expected: -1, 1, -1, 1 actual: "+actualpartial+ ", "+actualkept+ ", "
+						+actualdropped+ ", "+actualrewritten);
+				fail("expected: -1, 1, -1, 1 actual: "+actualpartial+ ", "+actualkept+ ", "+actualdropped+ ", "
+						+actualrewritten);
+			}
+		} finally {
+			deleteDirectory(directory);
+		}
+	}
+	
+	/*
+	 * tests the words of several files are read once each, that only the files of a directory are read, and that 
+	 * a missing file or directory gives -1
+	 */
+	@Test
+	public final void dictionaryFilesShouldBeMergedWithoutDuplicates() throws IOException {
+		
+		File directory = Files.createTempDirectory("words").toFile();
+		try {
+			File first = new File(directory, "a.txt");
+			File second = new File(directory, "b.txt");
+			Files.write(first.toPath(), "cat\nhat\n".getBytes());
+			Files.write(second.toPath(), "hat\nCAT\n hot \n\n".getBytes());
+			// not a file, so not a word list
+			new File(directory, "sub").mkdir();
+			List<String> actualfiles = WordProcessor.getDictionaryFiles(directory.getPath());
+			List<String> expectedfiles = Arrays.asList(first.getPath(), second.getPath());
+			Set<String> actualwords = WordProcessor.getWordSet(actualfiles, String::toUpperCase);
+			Set<String> expectedwords = new HashSet<String>(Arrays.asList("CAT", "HAT", "HOT"));
+			int actualfromdirectory = graphproc1.populateGraphFromDirectory(directory.getPath());
+			int actualdistance = graphproc1.getShortestDistance("cat", "hot");
+			int actualfromfiles = new GraphProcessor().populateGraph(expectedfiles);
+			int actualmissingfile = new GraphProcessor().populateGraph(Arrays.asList(first.getPath(), 
+					new File(directory, "missing.txt").getPath()));
+			int actualmissingdirectory = new GraphProcessor().populateGraphFromDirectory(
+					new File(directory, "missing").getPath());
+			
+			if (!expectedfiles.equals(actualfiles) || !expectedwords.equals(actualwords) || actualfromdirectory != 3 
+					|| actualdistance != 2 || actualfromfiles != 3 || actualmissingfile != -1 
+					|| actualmissingdirectory != -1) {
+				System.out.println("Failed: expected: "+expectedfiles+ ", "+expectedwords+ ", 3, 2, 3, -1, -1 actual: "
+						+actualfiles+ ", "+actualwords+ ", "+actualfromdirectory+ ", "+actualdistance+ ", "
+						+actualfromfiles+ ", "+actualmissingfile+ ", "+actualmissingdirectory);
+				fail("expected: "+expectedfiles+ ", "+expectedwords+ ", 3, 2, 3, -1, -1 actual: "+actualfiles+ ", "
+						+actualwords+ ", "+actualfromdirectory+ ", "+actualdistance+ ", "+actualfromfiles+ ", "
+						+actualmissingfile+ ", "+actualmissingdirectory);
+			}
+		} finally {
+			deleteDirectory(directory);
+		}
+	}
+	
+	/*
+	 * waits until a watcher has applied a number of changes
+	 */
+	private static void awaitUpdates(DictionaryWatcher watcher, long updates) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30000;
+		while (watcher.getUpdateCount() < updates) {
+			if (System.currentTimeMillis() > deadline)
+				fail("expected: "+updates+ " updates actual: "+watcher.getUpdateCount());
+			Thread.sleep(10);
+		}
+	}
+	
+	/*
+	 * replaces the content of a file with a single rename
+	 */
+	private static void replace(File file, String content) throws IOException {
+		File temporary = new File(file.getParentFile(), file.getName() + ".tmp");
+		Files.write(temporary.toPath(), content.getBytes());
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, 
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	private static void deleteDirectory(File directory) {
+		File[] files = directory.listFiles();
+		for (File file : files == null ? new File[0] : files)
+			file.delete();
+		directory.delete();
+	}
+
+	/*
+	 * tests adjacent is false for words two edits apart that the old char matching accepted (AC -> BCA adds B 
+	 * and A)
+	 */
+	@Test
+	public final void isAdjacentShouldReturnFalseTwoEditsAcBca() {
+		
+		boolean actualadjacent = WordProcessor.isAdjacent("AC","BCA")
+				|| AdjacencyPolicy.singleEdit().isAdjacent("AC","BCA")
+				|| new LevenshteinAutomaton("AC", 1, false).matches("BCA");
+		boolean expectedadjacent = false;
+				
+		if (expectedadjacent != actualadjacent) {
+			System.out.println("Failed: expected: "+expectedadjacent+ " actual: "+actualadjacent);
+			fail("expected: "+expectedadjacent+ " actual: "+actualadjacent);			
+		}
+
+	}
+	
+	/*
+	 * tests a distance 2 policy connects words two edits apart, in isAdjacent and in the graph built from the 
+	 * dictionary trie
+	 */
+	@Test
+	public final void distanceTwoPolicyShouldConnectTwoEdits() throws IOException {
+		
+		AdjacencyPolicy policy = AdjacencyPolicy.editDistance(2, false, false);
+		GraphProcessor distance2 = new GraphProcessor(policy);
+		File dictionary = dictionaryOf("chat", "chia", "chatter");
+		distance2.populateGraph(dictionary.getPath());
+		graphproc1.populateGraph(dictionary.getPath());
+		boolean actualadjacent = policy.isAdjacent("CHAT", "CHIA");
+		boolean actualfar = policy.isAdjacent("CHAT", "CHATTER");
+		int actualdist = distance2.getShortestDistance("chat", "chia");
+		int actualsingle = graphproc1.getShortestDistance("chat", "chia");
+		
+		if (!actualadjacent || actualfar || actualdist != 1 || actualsingle != -1) {
+			System.out.println("Failed: expected: true, false, 1, -1 actual: "+actualadjacent+ ", "+actualfar+ ", "
+					+actualdist+ ", "+actualsingle);
+			fail("expected: true, false, 1, -1 actual: "+actualadjacent+ ", "+actualfar+ ", "+actualdist+ ", "
+					+actualsingle);
+		}
+	}
+	
+	/*
+	 * tests swapping two neighboring chars is a single edit only with transpositions, and that case sensitive 
+	 * words keep their case
+	 */
+	@Test
+	public final void transpositionPolicyShouldConnectSwappedChars() throws IOException {
+		
+		AdjacencyPolicy policy = AdjacencyPolicy.editDistance(1, true, true);
+		GraphProcessor swaps = new GraphProcessor(policy);
+		File dictionary = dictionaryOf("cat", "cta", "Cat");
+		swaps.populateGraph(dictionary.getPath());
+		graphproc1.populateGraph(dictionary.getPath());
+		boolean actualswap = policy.isAdjacent("cat", "cta") && new LevenshteinAutomaton("cat", 1, true).matches("cta");
+		boolean actualnoswap = WordProcessor.isAdjacent("CAT", "CTA");
+		int actualdist = swaps.getShortestDistance("cta", "Cat");
+		int actualsingle = graphproc1.getShortestDistance("cat", "cta");
+		
+		if (!actualswap || actualnoswap || actualdist != 2 || actualsingle != -1) {
+			System.out.println("Failed: expected: true, false, 2, -1 actual: "+actualswap+ ", "+actualnoswap+ ", "
+					+actualdist+ ", "+actualsingle);
+			fail("expected: true, false, 2, -1 actual: "+actualswap+ ", "+actualnoswap+ ", "+actualdist+ ", "
+					+actualsingle);
+		}
+	}
+	
+	/*
+	 * writes a temporary dictionary file, one word per line
+	 */
+	private static File dictionaryOf(String... words) throws IOException {
+		File dictionary = File.createTempFile("words", ".txt");
+		dictionary.deleteOnExit();
+		Files.write(dictionary.toPath(), String.join("\n", words).getBytes());
+		return dictionary;
+	}
+
+	/*
+	 * tests A* gives the paths and distances of the precomputed data, with and without edge costs, and that a 
+	 * query between close words expands only a few of the words
+	 */
+	@Test
+	public final void aStarShouldMatchPrecomputed() throws IOException {
+		
+		// every word of 1 to 3 letters a-d
+		List<String> words = new ArrayList<String>();
+		for (char a = 'A'; a <= 'D'; a++) {
+			words.add("" + a);
+			for (char b = 'A'; b <= 'D'; b++) {
+				words.add("" + a + b);
+				for (char c = 'A'; c <= 'D'; c++)
+					words.add("" + a + b + c);
+			}
+		}
+		String dictionary = dictionaryOf(words.toArray(new String[0])).getPath();
+		int mismatches = 0;
+		for (boolean weighted : new boolean[] {false, true}) {
+			GraphProcessor precomputed = weighted ? new GraphProcessor(WordProcessor.editCost(1, 2)) 
+					: new GraphProcessor();
+			GraphProcessor searched = weighted ? new GraphProcessor(WordProcessor.editCost(1, 2)) 
+					: new GraphProcessor();
+			searched.setSearchMode(GraphProcessor.SearchMode.A_STAR);
+			precomputed.populateGraph(dictionary);
+			searched.populateGraph(dictionary);
+			for (String word1 : words) {
+				for (String word2 : words) {
+					if (word1.equals(word2))
+						continue;
+					if (!precomputed.getShortestPath(word1, word2).equals(searched.getShortestPath(word1, word2))
+							|| !precomputed.getShortestDistance(word1, word2).equals(
+									searched.getShortestDistance(word1, word2))
+							|| !precomputed.getShortestPathWeight(word1, word2).equals(
+									searched.getShortestPathWeight(word1, word2)))
+						mismatches++;
+				}
+			}
+		}
+		GraphProcessor targeted = new GraphProcessor();
+		targeted.setSearchMode(GraphProcessor.SearchMode.A_STAR);
+		targeted.populateGraph(dictionary);
+		List<String> actualpath = targeted.getShortestPath("aaa", "abb");
+		long actualexpanded = targeted.getNodesExpanded();
+		
+		if (mismatches != 0 || actualpath.size() != 3 || actualexpanded > words.size() / 4) {
+			System.out.println("Failed: expected: 0 mismatches, 3 words, at most "+words.size() / 4+ " expanded actual: "
+					+mismatches+ ", "+actualpath+ ", "+actualexpanded);
+			fail("expected: 0 mismatches, 3 words, at most "+words.size() / 4+ " expanded actual: "+mismatches+ ", "
+					+actualpath+ ", "+actualexpanded);
+		}
+	}
+
+	/*
+	 * tests A* still finds the shortest path once an imported edge joins words the policy does not call adjacent, 
+	 * which the edit distance heuristic would overestimate
+	 */
+	@Test
+	public final void aStarShouldFindImportedShortcuts() throws IOException {
+		
+		// CAT - COT - DOT - DOG by single edits, and CAT - ZZZZ - DOG by imported edges only
+		Graph<String> graph = new Graph<String>();
+		for (String word : Arrays.asList("CAT", "COT", "DOT", "DOG", "ZZZZ"))
+			graph.addVertex(word);
+		graph.addEdge("CAT", "COT");
+		graph.addEdge("COT", "DOT");
+		graph.addEdge("DOT", "DOG");
+		graph.addEdge("CAT", "ZZZZ");
+		graph.addEdge("ZZZZ", "DOG");
+		File file = File.createTempFile("graph", ".txt");
+		file.deleteOnExit();
+		GraphIO.write(graph, file.getPath(), GraphIO.Format.EDGE_LIST);
+		GraphProcessor searched = new GraphProcessor();
+		searched.setSearchMode(GraphProcessor.SearchMode.A_STAR);
+		searched.importGraph(file.getPath(), GraphIO.Format.EDGE_LIST);
+		List<String> actual = searched.getShortestPath("cat", "dog");
+		List<String> expected = Arrays.asList("CAT", "ZZZZ", "DOG");
+		
+		if (!expected.equals(actual)) {
+			System.out.println("Failed: expected: "+expected+ " actual: "+actual);
+			fail("expected: "+expected+ " actual: "+actual);
+		}
+	}
+
+	/*
+	 * tests every vertex order gives the same paths and distances in every search mode
+	 */
+	@Test
+	public final void vertexOrdersShouldNotChangeAnswers() throws IOException {
+		
+		// every word of 1 to 3 letters a-d, and two words no other word reaches
+		List<String> words = new ArrayList<String>();
+		for (char a = 'A'; a <= 'D'; a++) {
+			words.add("" + a);
+			for (char b = 'A'; b <= 'D'; b++) {
+				words.add("" + a + b);
+				for (char c = 'A'; c <= 'D'; c++)
+					words.add("" + a + b + c);
+			}
+		}
+		words.add("XYZZY");
+		words.add("XYZZYX");
+		graphproc1.populateGraph(dictionaryOf(words.toArray(new String[0])).getPath());
+		List<Object> expected = new ArrayList<Object>();
+		for (String word1 : words) {
+			for (String word2 : words) {
+				expected.add(graphproc1.getShortestPath(word1, word2));
+				expected.add(graphproc1.getShortestDistance(word1, word2));
+			}
+		}
+		
+		List<String> failures = new ArrayList<String>();
+		for (GraphProcessor.SearchMode mode : GraphProcessor.SearchMode.values()) {
+			for (GraphProcessor.VertexOrder order : GraphProcessor.VertexOrder.values()) {
+				graphproc1.setSearchMode(mode);
+				graphproc1.setVertexOrder(order);
+				List<Object> actual = new ArrayList<Object>();
+				for (String word1 : words) {
+					for (String word2 : words) {
+						actual.add(graphproc1.getShortestPath(word1, word2));
+						actual.add(graphproc1.getShortestDistance(word1, word2));
+					}
+				}
+				if (!expected.equals(actual))
+					failures.add(mode+ " "+order);
+			}
+		}
+		
+		if (!failures.isEmpty()) {
+			System.out.println("Failed: expected: [] actual: "+failures);
+			fail("expected: [] actual: "+failures);
+		}
+	}
+
+	/*
+	 * tests renumbering keeps each weight with its edge and sorts every row by new id
+	 */
+	@Test
+	public final void relabelShouldKeepWeightsWithTheirEdges() {
+		
+		// a star around 0 with a triangle 1 2 3; the edge u - v weighs 10 * u + v from u, 10 * v + u from v
+		int[][] adjacency = {{4, 2, 1, 3}, {0, 3, 2}, {3, 1, 0}, {1, 0, 2}, {0}};
+		int[][] weights = new int[adjacency.length][];
+		for (int u = 0; u < adjacency.length; u++) {
+			weights[u] = new int[adjacency[u].length];
+			for (int k = 0; k < adjacency[u].length; k++)
+				weights[u][k] = 10 * u + adjacency[u][k];
+		}
+		int[] order = {3, 0, 4, 1, 2};
+		int[][][] relabeled = VertexOrdering.relabel(adjacency, weights, order);
+		int mismatches = 0;
+		for (int i = 0; i < order.length; i++) {
+			int[] row = relabeled[0][i];
+			if (row.length != adjacency[order[i]].length)
+				mismatches++;
+			for (int k = 0; k < row.length; k++) {
+				if (relabeled[1][i][k] != 10 * order[i] + order[row[k]] || (k > 0 && row[k - 1] >= row[k]))
+					mismatches++;
+			}
+		}
+		int[][][] unweighted = VertexOrdering.relabel(adjacency, null, order);
+		String actualrow = Arrays.toString(unweighted[0][1]);
+		
+		if (mismatches != 0 || unweighted[1] != null || !"[0, 2, 3, 4]".equals(actualrow)) {
+			System.out.println("Failed: expected: 0 mismatches, no weights, [0, 2, 3, 4] actual: "+mismatches+ ", "
+					+Arrays.deepToString(unweighted[1])+ ", "+actualrow);
+			fail("expected: 0 mismatches, no weights, [0, 2, 3, 4] actual: "+mismatches+ ", "
+					+Arrays.deepToString(unweighted[1])+ ", "+actualrow);
+		}
+	}
+
+	/*
+	 * tests the parallel search gives the distances and predecessors of the sequential search, on a random graph 
+	 * large enough to be split between threads and to go bottom up in its middle levels and top down in its tail
+	 */
+	@Test
+	public final void parallelBfsShouldMatchSequentialSearch() {
+		
+		// 20000 vertices with about 6 random neighbors each, a chain of 200 hanging off vertex 0 and 100 vertices 
+		// no edge reaches
+		int n = 20300;
+		Random random = new Random(42);
+		List<List<Integer>> neighbors = new ArrayList<List<Integer>>();
+		for (int v = 0; v < n; v++)
+			neighbors.add(new ArrayList<Integer>());
+		for (int e = 0; e < 60000; e++) {
+			int u = random.nextInt(20000);
+			int v = random.nextInt(20000);
+			if (u != v && !neighbors.get(u).contains(v)) {
+				neighbors.get(u).add(v);
+				neighbors.get(v).add(u);
+			}
+		}
+		for (int v = 20000; v < 20200; v++) {
+			neighbors.get(v).add(v == 20000 ? 0 : v - 1);
+			neighbors.get(v == 20000 ? 0 : v - 1).add(v);
+		}
+		int[][] adjacency = new int[n][];
+		for (int v = 0; v < n; v++)
+			adjacency[v] = neighbors.get(v).stream().mapToInt(Integer::intValue).toArray();
+		List<Integer> order = new ArrayList<Integer>();
+		for (int v = 0; v < n; v++)
+			order.add(v);
+		Collections.shuffle(order, random);
+		int[] rank = order.stream().mapToInt(Integer::intValue).toArray();
+		
+		UnitWeightSearch sequential = new UnitWeightSearch(adjacency, rank);
+		ParallelBfs parallel = new ParallelBfs(adjacency, rank);
+		int mismatches = 0;
+		int reached = 0;
+		for (int source : new int[] {0, 7, 20199, 20250}) {
+			sequential.search(source);
+			parallel.search(source);
+			for (int v = 0; v < n; v++) {
+				if (parallel.getDistance(v) != sequential.getDistance(v) || parallel.getPred(v) != sequential.getPred(v))
+					mismatches++;
+				if (source == 0 && sequential.getDistance(v) != PathSearch.UNREACHED)
+					reached++;
+			}
+		}
+		
+		if (mismatches != 0 || reached < 19000) {
+			System.out.println("Failed: expected: 0 mismatches, most vertices reached actual: "+mismatches+ ", "
+					+reached);
+			fail("expected: 0 mismatches, most vertices reached actual: "+mismatches+ ", "+reached);
+		}
+	}
+
+	/*
+	 * tests the analytics of a small dictionary: a path of 11 words, a triangle and a lone word
+	 */
+	@Test
+	public final void analyticsShouldDescribeSmallDictionary() throws IOException {
+		
+		List<String> words = Arrays.asList("CHAT", "HAT", "HATE", "HATES", "DATES", "DATED", "DARED", "CARED", 
+				"SCARED", "SCARE", "SCARCE", "BLIND", "BLAND", "BLEND", "ZZZ");
+		graphproc1.populateGraph(dictionaryOf(words.toArray(new String[0])).getPath());
+		GraphAnalytics analytics = graphproc1.getAnalytics();
+		String actualsizes = Arrays.toString(analytics.getComponentSizes());
+		int[] actualbounds = analytics.getDiameterBounds();
+		String actualhistogram = Arrays.toString(analytics.getDegreeHistogram());
+		List<String> actualhubs = analytics.getHubs(3);
+		List<String> actualsmall = analytics.getComponentWords(1);
+		// the eccentricity of a word is its largest distance to a word it reaches
+		Map<String, Integer> actualecc = analytics.getEccentricities(words);
+		int mismatches = 0;
+		for (String word1 : words) {
+			int expectedecc = 0;
+			for (String word2 : words)
+				expectedecc = Math.max(expectedecc, graphproc1.getShortestDistance(word1, word2));
+			if (actualecc.get(word1) != expectedecc)
+				mismatches++;
+		}
+		// the multi-source search gives every row of distances in one batch
+		Graph<String> graph = new Graph<String>();
+		for (String word : words)
+			graph.addVertex(word);
+		for (String word1 : words) {
+			for (String word2 : words) {
+				if (WordProcessor.isAdjacent(word1, word2))
+					graph.addEdge(word1, word2);
+			}
+		}
+		IntGraphAdapter adapter = IntGraphAdapter.of(graph);
+		byte[][] rows = new byte[words.size()][];
+		boolean actualfits = new MultiSourceBfs(adapter.getIntGraph().toAdjacency())
+				.rows(MultiSourceBfs.allVertices(words.size()), rows);
+		for (int i = 0; i < words.size(); i++) {
+			for (int j = 0; j < words.size(); j++) {
+				int expecteddist = i == j ? 0 : graphproc1.getShortestDistance(adapter.getWord(i), adapter.getWord(j));
+				if (rows[i][j] - 1 != expecteddist)
+					mismatches++;
+			}
+		}
+		
+		if (!"[11, 3, 1]".equals(actualsizes) || actualbounds[0] > 10 || actualbounds[1] < 10 
+				|| !"[1, 2, 12]".equals(actualhistogram) || !Arrays.asList("BLAND", "BLEND", "BLIND").equals(actualhubs)
+				|| !Arrays.asList("BLIND", "BLAND", "BLEND").equals(actualsmall) || mismatches != 0 || !actualfits) {
+			System.out.println("Failed: expected: [11, 3, 1], 10 within bounds, [1, 2, 12], [BLAND, BLEND, BLIND], "
+					+ "0 mismatches actual: "+actualsizes+ ", "+Arrays.toString(actualbounds)+ ", "+actualhistogram
+					+ ", "+actualhubs+ ", "+actualsmall+ ", "+mismatches);
+			fail("expected: [11, 3, 1], 10 within bounds, [1, 2, 12], [BLAND, BLEND, BLIND], 0 mismatches actual: "
+					+actualsizes+ ", "+Arrays.toString(actualbounds)+ ", "+actualhistogram+ ", "+actualhubs+ ", "
+					+actualsmall+ ", "+mismatches);
+		}
+	}
+
+	/*
+	 * tests distance labels give the distances and paths of the precomputed data: in LABELS mode, built in 
+	 * parallel batches of hubs, and after a save and load
+	 */
+	@Test
+	public final void distanceLabelsShouldMatchPrecomputed() throws IOException {
+		
+		// every word of 1 to 3 letters a-f
+		List<String> words = new ArrayList<String>();
+		for (char a = 'A'; a <= 'F'; a++) {
+			words.add("" + a);
+			for (char b = 'A'; b <= 'F'; b++) {
+				words.add("" + a + b);
+				for (char c = 'A'; c <= 'F'; c++)
+					words.add("" + a + b + c);
+			}
+		}
+		File dictionary = dictionaryOf(words.toArray(new String[0]));
+		graphproc1.populateGraph(dictionary.getPath());
+		GraphProcessor labeled = new GraphProcessor();
+		labeled.setSearchMode(GraphProcessor.SearchMode.LABELS);
+		labeled.populateGraph(dictionary.getPath());
+		Graph<String> graph = new Graph<String>();
+		for (String word : words)
+			graph.addVertex(word);
+		for (String word1 : words) {
+			for (String word2 : words) {
+				if (WordProcessor.isAdjacent(word1, word2))
+					graph.addEdge(word1, word2);
+			}
+		}
+		DistanceLabels batched = DistanceLabels.of(graph, 7);
+		File file = File.createTempFile("labels", ".bin");
+		file.deleteOnExit();
+		labeled.getDistanceLabels().save(file.getPath());
+		DistanceLabels loaded = DistanceLabels.load(file.getPath());
+		
+		int mismatches = 0;
+		for (int i = 0; i < words.size(); i++) {
+			for (int j = 0; j < words.size(); j++) {
+				if (i == j)
+					continue;
+				String word1 = words.get(i);
+				String word2 = words.get(j);
+				int expecteddist = graphproc1.getShortestDistance(word1, word2);
+				List<String> expectedpath = graphproc1.getShortestPath(word1, word2);
+				if (labeled.getShortestDistance(word1, word2) != expecteddist 
+						|| !expectedpath.equals(labeled.getShortestPath(word1, word2)))
+					mismatches++;
+				// labels are searched from word1, the precomputed data from the word added first
+				if (i < j && (batched.getDistance(word1, word2) != expecteddist 
+						|| loaded.getDistance(word1, word2) != expecteddist
+						|| !expectedpath.equals(batched.getPath(word1, word2))
+						|| !expectedpath.equals(loaded.getPath(word1, word2))))
+					mismatches++;
+			}
+		}
+		
+		if (mismatches != 0) {
+			System.out.println("Failed: expected: 0 mismatches actual: "+mismatches);
+			fail("expected: 0 mismatches actual: "+mismatches);
+		}
+	}
+
+	/*
+	 * tests a few words added and removed by applyDelta, which patches the query data in place, give the 
+	 * distances and paths of a graph built from the resulting dictionary, for the path store and for labels
+	 */
+	@Test
+	public final void patchedDeltaShouldMatchRebuild() throws IOException {
+		
+		// every word of 1 to 3 letters a-f; ADD is left out at first and added last, BED and FFF are removed
+		List<String> words = new ArrayList<String>();
+		for (char a = 'A'; a <= 'F'; a++) {
+			words.add("" + a);
+			for (char b = 'A'; b <= 'F'; b++) {
+				words.add("" + a + b);
+				for (char c = 'A'; c <= 'F'; c++)
+					words.add("" + a + b + c);
+			}
+		}
+		List<String> first = new ArrayList<String>(words);
+		first.remove("ADD");
+		// paths are read from the word added first, so the rebuilt dictionary keeps the order of the words
+		List<String> last = new ArrayList<String>(first);
+		last.removeAll(Arrays.asList("BED", "FFF"));
+		last.add("ADD");
+		GraphProcessor patched = new GraphProcessor();
+		patched.populateGraph(dictionaryOf(first.toArray(new String[0])).getPath());
+		GraphProcessor labeled = new GraphProcessor();
+		labeled.setSearchMode(GraphProcessor.SearchMode.LABELS);
+		labeled.populateGraph(dictionaryOf(first.toArray(new String[0])).getPath());
+		int actualchanges = patched.applyDelta(Arrays.asList("ADD"), Arrays.asList("BED", "FFF"));
+		labeled.applyDelta(Arrays.asList("ADD"), Arrays.asList("BED", "FFF"));
+		graphproc1.populateGraph(dictionaryOf(last.toArray(new String[0])).getPath());
+		
+		int mismatches = 0;
+		for (String word1 : last) {
+			for (String word2 : last) {
+				if (word1.equals(word2))
+					continue;
+				int expecteddist = graphproc1.getShortestDistance(word1, word2);
+				List<String> expectedpath = graphproc1.getShortestPath(word1, word2);
+				if (patched.getShortestDistance(word1, word2) != expecteddist 
+						|| !expectedpath.equals(patched.getShortestPath(word1, word2))
+						|| labeled.getShortestDistance(word1, word2) != expecteddist 
+						|| !expectedpath.equals(labeled.getShortestPath(word1, word2)))
+					mismatches++;
+			}
+			if (patched.getShortestDistance(word1, "BED") != -1 || labeled.getShortestDistance("FFF", word1) != -1)
+				mismatches++;
+		}
+		
+		if (actualchanges != 3 || mismatches != 0) {
+			System.out.println("Failed: expected: 3 changes, 0 mismatches actual: "+actualchanges+ ", "+mismatches);
+			fail("expected: 3 changes, 0 mismatches actual: "+actualchanges+ ", "+mismatches);
+		}
+	}
+
+	/*
+	 * tests a publisher emits nothing before a request and exactly n items after request(n)
+	 */
+	@Test
+	public final void publisherShouldHonorDemand() {
+		
+		AtomicInteger pulled = new AtomicInteger();
+		Recorder<Integer> recorder = new Recorder<Integer>();
+		new ResultPublisher<Integer>(() -> counter(pulled), Runnable::run).subscribe(recorder);
+		int actualbefore = recorder.items.size() + pulled.get();
+		recorder.subscription.request(3);
+		int actualafter = recorder.items.size();
+		int actualpulled = pulled.get();
+		
+		if (actualbefore != 0 || actualafter != 3 || actualpulled != 3 || recorder.completed) {
+			System.out.println("Failed: expected: 0, 3, 3 actual: "+actualbefore+ ", "+actualafter+ ", "+actualpulled);
+			fail("expected: 0, 3, 3 actual: "+actualbefore+ ", "+actualafter+ ", "+actualpulled);
+		}
+	}
+	
+	/*
+	 * tests cancelling stops pulling items from the iterator, even with demand left
+	 */
+	@Test
+	public final void publisherShouldStopIteratorOnCancel() {
+		
+		AtomicInteger pulled = new AtomicInteger();
+		Recorder<Integer> recorder = new Recorder<Integer>() {
+			@Override
+			public void onNext(Integer item) {
+				super.onNext(item);
+				if (items.size() == 5)
+					subscription.cancel();
+			}
+		};
+		new ResultPublisher<Integer>(() -> counter(pulled), Runnable::run).subscribe(recorder);
+		recorder.subscription.request(100);
+		recorder.subscription.request(100);
+		int actualitems = recorder.items.size();
+		int actualpulled = pulled.get();
+		
+		if (actualitems != 5 || actualpulled != 5 || recorder.completed || recorder.error != null) {
+			System.out.println("Failed: expected: 5, 5 actual: "+actualitems+ ", "+actualpulled);
+			fail("expected: 5, 5 actual: "+actualitems+ ", "+actualpulled);
+		}
+	}
+	
+	/*
+	 * tests a request that is not positive is signaled as an error, and a finished result as complete
+	 */
+	@Test
+	public final void publisherShouldSignalErrorAndComplete() {
+		
+		Recorder<Integer> invalid = new Recorder<Integer>();
+		new ResultPublisher<Integer>(() -> counter(new AtomicInteger()), Runnable::run).subscribe(invalid);
+		invalid.subscription.request(0);
+		Recorder<Integer> finite = new Recorder<Integer>();
+		new ResultPublisher<Integer>(() -> Arrays.asList(1, 2).iterator(), Runnable::run).subscribe(finite);
+		finite.subscription.request(Long.MAX_VALUE);
+		
+		if (!(invalid.error instanceof IllegalArgumentException) || finite.items.size() != 2 || !finite.completed) {
+			System.out.println("Failed: expected: IllegalArgumentException, 2 items, complete actual: "+invalid.error
+					+ ", "+finite.items.size()+ " items, "+finite.completed);
+			fail("expected: IllegalArgumentException, 2 items, complete actual: "+invalid.error+ ", "
+					+finite.items.size()+ " items, "+finite.completed);
+		}
+	}
+	
+	/*
+	 * endless iterator of 0, 1, 2, ... counting the items pulled from it
+	 */
+	private static Iterator<Integer> counter(AtomicInteger pulled) {
+		return new Iterator<Integer>() {
+			@Override
+			public boolean hasNext() {
+				return true;
+			}
+			@Override
+			public Integer next() {
+				return pulled.getAndIncrement();
+			}
+		};
+	}
+	
+	/*
+	 * subscriber keeping every signal it receives
+	 */
+	private static class Recorder<T> implements Flow.Subscriber<T> {
+		Flow.Subscription subscription;
+		final List<T> items = new ArrayList<T>();
+		Throwable error;
+		boolean completed;
+		
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+		}
+		@Override
+		public void onNext(T item) {
+			items.add(item);
+		}
+		@Override
+		public void onError(Throwable error) {
+			this.error = error;
+		}
+		@Override
+		public void onComplete() {
+			completed = true;
+		}
+	}
+
+	/*
+	 * tests (A, B) and (B, A) share a cache entry, the second lookup getting the path reversed
+	 */
+	@Test
+	public final void pathCacheShouldReverseSymmetricKey() {
+		
+		PathCache cache = new PathCache(1 << 20);
+		AtomicInteger loads = new AtomicInteger();
+		BiFunction<String, String, List<String>> loader = (word1, word2) -> {
+			loads.incrementAndGet();
+			return Arrays.asList(word1, "HOT", word2);
+		};
+		List<String> forward = cache.get("CAT", "HOG", loader);
+		List<String> actual = cache.get("HOG", "CAT", loader);
+		List<String> expected = Arrays.asList("HOG", "HOT", "CAT");
+		
+		if (!expected.equals(actual) || !Arrays.asList("CAT", "HOT", "HOG").equals(forward) || loads.get() != 1 
+				|| cache.getHitCount() != 1) {
+			System.out.println("Failed: expected: "+expected+ " actual: "+actual+ " loads: "+loads.get());
+			fail("expected: "+expected+ " actual: "+actual+ " loads: "+loads.get());
+		}
+	}
+	
+	/*
+	 * tests invalidateAll drops every entry, and that a path loaded while the cache was invalidated is returned 
+	 * but not stored
+	 */
+	@Test
+	public final void pathCacheShouldDropStaleAnswers() {
+		
+		PathCache cache = new PathCache(1 << 20);
+		cache.get("CAT", "HAT", (word1, word2) -> Arrays.asList(word1, word2));
+		cache.invalidateAll();
+		int actualcleared = cache.size();
+		// the graph changes while this path is being computed
+		List<String> actualstale = cache.get("CAT", "COT", (word1, word2) -> {
+			cache.invalidateAll();
+			return Arrays.asList(word1, word2);
+		});
+		int actualsize = cache.size();
+		
+		if (actualcleared != 0 || !Arrays.asList("CAT", "COT").equals(actualstale) || actualsize != 0) {
+			System.out.println("Failed: expected: 0, [CAT, COT], 0 actual: "+actualcleared+ ", "+actualstale+ ", "
+					+actualsize);
+			fail("expected: 0, [CAT, COT], 0 actual: "+actualcleared+ ", "+actualstale+ ", "+actualsize);
+		}
+	}
+	
+	/*
+	 * tests the cache stays within its byte budget, and keeps a popular pair through a burst of one-off pairs
+	 */
+	@Test
+	public final void pathCacheShouldKeepPopularPairsWithinBudget() {
+		
+		long budget = 50 * PathCache.weigh(Arrays.asList("A", "B"));
+		PathCache cache = new PathCache(budget);
+		BiFunction<String, String, List<String>> loader = (word1, word2) -> Arrays.asList(word1, word2);
+		for (int i = 0; i < 20; i++)
+			cache.get("CAT", "HAT", loader);
+		long overbudget = 0;
+		for (int i = 0; i < 1000; i++) {
+			cache.get("W" + i, "X" + i, loader);
+			overbudget = Math.max(overbudget, cache.getWeightedSize() - budget);
+		}
+		long hits = cache.getHitCount();
+		cache.get("HAT", "CAT", loader);
+		boolean actualkept = cache.getHitCount() == hits + 1;
+		
+		if (overbudget > 0 || !actualkept || cache.getEvictionCount() == 0) {
+			System.out.println("Failed: expected: within budget, popular pair kept actual: "+overbudget
+					+ " bytes over, kept "+actualkept);
+			fail("expected: within budget, popular pair kept actual: "+overbudget+ " bytes over, kept "+actualkept);
+		}
+	}
+
+	/*
+	 * tests the footprints of a graph, of a processor and of its prediction agree: components add up to the total, 
+	 * the heap and the mapped files split it, and the prediction is within 20% of the processor
+	 */
+	@Test
+	public final void footprintsShouldAgree() throws IOException {
+		
+		// every word of 1 to 3 letters a-f
+		List<String> words = new ArrayList<String>();
+		long chars = 0;
+		for (char a = 'A'; a <= 'F'; a++) {
+			words.add("" + a);
+			for (char b = 'A'; b <= 'F'; b++) {
+				words.add("" + a + b);
+				for (char c = 'A'; c <= 'F'; c++)
+					words.add("" + a + b + c);
+			}
+		}
+		for (String word : words)
+			chars += word.length();
+		graphproc1.populateGraph(dictionaryOf(words.toArray(new String[0])).getPath());
+		MemoryFootprint actual = graphproc1.getFootprint();
+		long edges = graphproc1.getAnalytics().getEdgeCount();
+		MemoryFootprint predicted = MemoryFootprint.predict(words.size(), (double) chars / words.size(), 
+				2.0 * edges / words.size());
+		Graph<String> graph = new Graph<String>();
+		for (String word : words)
+			graph.addVertex(word);
+		for (String word1 : words) {
+			for (String word2 : words) {
+				if (WordProcessor.isAdjacent(word1, word2))
+					graph.addEdge(word1, word2);
+			}
+		}
+		MemoryFootprint ofgraph = MemoryFootprint.of(graph);
+		
+		List<String> failures = new ArrayList<String>();
+		for (MemoryFootprint footprint : Arrays.asList(actual, predicted, ofgraph)) {
+			long sum = 0;
+			for (long bytes : footprint.getComponents().values())
+				sum += bytes;
+			if (sum != footprint.getTotalBytes() || footprint.getHeapBytes() + footprint.getBytes(
+					MemoryFootprint.PATHS_MAPPED) + footprint.getBytes(MemoryFootprint.SPELLING_MAPPED) != sum)
+				failures.add("components of "+footprint.getComponents());
+		}
+		// the graph components are counted the same way from the graph and from the processor
+		for (String component : ofgraph.getComponents().keySet()) {
+			if (ofgraph.getBytes(component) != actual.getBytes(component))
+				failures.add(component+ " "+ofgraph.getBytes(component)+ " of the graph, "
+						+actual.getBytes(component)+ " of the processor");
+		}
+		if (actual.getBytes(MemoryFootprint.PATHS_MAPPED) != predicted.getBytes(MemoryFootprint.PATHS_MAPPED))
+			failures.add("mapped path store "+predicted.getBytes(MemoryFootprint.PATHS_MAPPED)+ " predicted, "
+					+actual.getBytes(MemoryFootprint.PATHS_MAPPED)+ " actual");
+		if (Math.abs(predicted.getTotalBytes() - actual.getTotalBytes()) > actual.getTotalBytes() / 5)
+			failures.add("total "+predicted.getTotalBytes()+ " predicted, "+actual.getTotalBytes()+ " actual");
+		
+		if (!failures.isEmpty()) {
+			System.out.println("Failed: expected: [] actual: "+failures);
+			fail("expected: [] actual: "+failures);
+		}
+	}
+
+	/*
+	 * tests the word arena finds the ids of Latin-1 and two byte words after its table grew, sorts them like 
+	 * Strings, and takes less than the list and map it replaces
+	 */
+	@Test
+	public final void wordArenaShouldFindAndSortWordsAfterGrowth() throws IOException {
+		
+		WordArena arena = new WordArena(0);
+		// CAFE with an accent is still Latin-1, the Greek words need two bytes per char
+		List<String> words = new ArrayList<String>(Arrays.asList("CAT", "CAF\u00C9", "\u0393\u0391\u03A4\u0391", "CA", "\u0393\u0391"));
+		for (int i = 0; i < 1000; i++)
+			words.add("W" + i);
+		int mismatches = 0;
+		for (int i = 0; i < words.size(); i++) {
+			if (arena.intern(words.get(i)) != i)
+				mismatches++;
+		}
+		// every probe after the table was rehashed several times, and interning again keeps the id
+		for (int i = 0; i < words.size(); i++) {
+			String word = words.get(i);
+			if (arena.indexOf(word) != i || arena.intern(word) != i || !word.equals(arena.get(i)) 
+					|| arena.length(i) != word.length() 
+					|| arena.charAt(i, word.length() - 1) != word.charAt(word.length() - 1))
+				mismatches++;
+			for (int j = 0; j < 5; j++) {
+				if (Integer.signum(arena.compare(i, j)) != Integer.signum(word.compareTo(words.get(j))))
+					mismatches++;
+			}
+		}
+		int[] rank = arena.lexicalRank();
+		List<String> sorted = new ArrayList<String>(words);
+		Collections.sort(sorted);
+		for (int i = 0; i < words.size(); i++) {
+			if (!sorted.get(rank[i]).equals(words.get(i)))
+				mismatches++;
+		}
+		String actualmissing = arena.indexOf("\u0393\u0391\u03A4")+ " "+arena.indexOf("W1000")+ " "
+				+arena.indexOf(7)+ " "+arena.size();
+		graphproc1.populateGraph(dictionaryOf(words.toArray(new String[0])).getPath());
+		MemoryFootprint footprint = graphproc1.getFootprint();
+		long actualarena = footprint.getBytes(MemoryFootprint.WORD_ARENA);
+		long actualreplaced = footprint.getReplacedBytes(MemoryFootprint.WORD_ARENA);
+		
+		if (mismatches != 0 || !"-1 -1 -1 1005".equals(actualmissing) || actualarena <= 0 
+				|| actualreplaced <= actualarena) {
+			System.out.println("Failed: expected: 0 mismatches, -1 -1 -1 1005, arena smaller than replaced actual: "
+					+mismatches+ ", "+actualmissing+ ", "+actualarena+ " of "+actualreplaced);
+			fail("expected: 0 mismatches, -1 -1 -1 1005, arena smaller than replaced actual: "+mismatches+ ", "
+					+actualmissing+ ", "+actualarena+ " of "+actualreplaced);
+		}
+	}
+
+	/*
+	 * tests a word path reads as the list of its words, both ways round, and is weighed by its ids in the cache
+	 */
+	@Test
+	public final void wordPathShouldReadAsListBothWays() {
+		
+		List<String> words = Arrays.asList("CAT", "COT", "HAT", "HOT");
+		WordPath path = new WordPath(new int[] {0, 1, 3}, words, 2);
+		WordPath reversed = path.reverse();
+		List<String> expected = Arrays.asList("CAT", "COT", "HOT");
+		List<String> expectedreversed = Arrays.asList("HOT", "COT", "CAT");
+		boolean actualequal = path.equals(expected) && expected.equals(path) && path.hashCode() == expected.hashCode()
+				&& reversed.equals(expectedreversed) && reversed.reverse().equals(path);
+		String actualids = Arrays.toString(reversed.toIdArray());
+		String actualread = path.size()+ " "+path.get(2)+ " "+reversed.get(0)+ " "+reversed.getId(0)+ " "
+				+reversed.length()+ " "+reversed.distance();
+		WordPath none = new WordPath(new int[0], words, 0);
+		String actualnone = none.size()+ " "+none.length()+ " "+none.distance();
+		String actualbounds = "no exception";
+		try {
+			reversed.get(3);
+		} catch (IndexOutOfBoundsException e) {
+			actualbounds = "IndexOutOfBoundsException";
+		}
+		PathCache cache = new PathCache(1 << 20);
+		cache.get("CAT", "HOT", (word1, word2) -> path);
+		long actualweight = cache.getWeightedSize();
+		
+		if (!actualequal || !"[3, 1, 0]".equals(actualids) || !"3 HOT HOT 3 2 2".equals(actualread) 
+				|| !"0 -1 -1".equals(actualnone) || !"IndexOutOfBoundsException".equals(actualbounds)
+				|| actualweight != 160 + 4 * 3 || PathCache.weigh(reversed) != 160 + 4 * 3) {
+			System.out.println("Failed: expected: equal, [3, 1, 0], 3 HOT HOT 3 2 2, 0 -1 -1, "
+					+ "IndexOutOfBoundsException, 172 actual: "+actualequal+ ", "+actualids+ ", "+actualread+ ", "
+					+actualnone+ ", "+actualbounds+ ", "+actualweight);
+			fail("expected: equal, [3, 1, 0], 3 HOT HOT 3 2 2, 0 -1 -1, IndexOutOfBoundsException, 172 actual: "
+					+actualequal+ ", "+actualids+ ", "+actualread+ ", "+actualnone+ ", "+actualbounds+ ", "
+					+actualweight);
+		}
+	}
+
+	/*
+	 * tests that of two paths of the same length the one through the lexically smaller word is returned, 
+	 * whichever word was added first
+	 */
+	@Test
+	public final void equalLengthPathsShouldBreakTiesByLexicalRank() throws IOException {
+		
+		// HAT is added before COT, but COT comes first lexically
+		graphproc1.populateGraph(dictionaryOf("cat", "hat", "cot", "hot").getPath());
+		List<String> actualforward = graphproc1.getShortestPath("cat", "hot");
+		List<String> actualbackward = graphproc1.getShortestPath("hot", "cat");
+		List<String> expected = Arrays.asList("CAT", "COT", "HOT");
+		List<String> reversed = Arrays.asList("HOT", "COT", "CAT");
+		// the same diamond searched directly: 0 CAT, 1 HAT, 2 COT, 3 HOT, ranked CAT < COT < HAT < HOT
+		UnitWeightSearch search = new UnitWeightSearch(new int[][] {{1, 2}, {0, 3}, {0, 3}, {1, 2}}, 
+				new int[] {0, 2, 1, 3});
+		search.search(0);
+		int actualpred = search.getPred(3);
+		
+		if (!expected.equals(actualforward) || !reversed.equals(actualbackward) || actualpred != 2) {
+			System.out.println("Failed: expected: "+expected+ ", 2 actual: "+actualforward+ ", "+actualbackward
+					+ ", "+actualpred);
+			fail("expected: "+expected+ ", 2 actual: "+actualforward+ ", "+actualbackward+ ", "+actualpred);
+		}
+	}
+
+	/*
+	 * tests every shortest path is counted and enumerated in lexical order, on two diamonds in a row
+	 */
+	@Test
+	public final void shortestPathsShouldBeCountedAndEnumerated() throws IOException {
+		
+		// AAAA -> BAAA or ABAA -> BBAA -> BBBA or BBAB -> BBBB, and no shorter way around
+		graphproc1.populateGraph(dictionaryOf("aaaa", "baaa", "abaa", "bbaa", "bbba", "bbab", "bbbb").getPath());
+		long actualcount = graphproc1.countShortestPaths("aaaa", "bbbb");
+		List<List<String>> actualpaths = new ArrayList<List<String>>();
+		Iterator<List<String>> paths = graphproc1.iterateShortestPaths("aaaa", "bbbb");
+		while (paths.hasNext())
+			actualpaths.add(paths.next());
+		List<List<String>> expectedpaths = Arrays.asList(
+				Arrays.asList("AAAA", "ABAA", "BBAA", "BBAB", "BBBB"),
+				Arrays.asList("AAAA", "ABAA", "BBAA", "BBBA", "BBBB"),
+				Arrays.asList("AAAA", "BAAA", "BBAA", "BBAB", "BBBB"),
+				Arrays.asList("AAAA", "BAAA", "BBAA", "BBBA", "BBBB"));
+		
+		if (actualcount != expectedpaths.size() || !expectedpaths.equals(actualpaths)) {
+			System.out.println("Failed: expected: "+expectedpaths+ " actual: "+actualcount+ " "+actualpaths);
+			fail("expected: "+expectedpaths+ " actual: "+actualcount+ " "+actualpaths);
+		}
+	}
+}
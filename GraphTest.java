@@ -1,7 +1,16 @@
 import static org.junit.Assert.assertEquals;
 
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -333,4 +342,337 @@ public class GraphTest {
 		assertEquals("num of vertices in the graph", numOfVertices-2, verticesCount);
 	}
 
+	@Test
+	public final void neighborhoodKeepsEdgesWithinDepth() {
+		for (String itrVertex : vertices)
+			this.graph.addVertex(itrVertex);
+		// a path 0 - 1 - 2 - 3 and a branch 1 - 4
+		this.graph.addEdge(vertices.get(0), vertices.get(1));
+		this.graph.addEdge(vertices.get(1), vertices.get(2));
+		this.graph.addEdge(vertices.get(2), vertices.get(3));
+		this.graph.addEdge(vertices.get(1), vertices.get(4));
+
+		Subgraph<String> subgraph = new GraphTraversal<>(this.graph)
+				.neighborhood(Arrays.asList(vertices.get(0)), 2, Integer.MAX_VALUE, Long.MAX_VALUE);
+		assertEquals("num of vertices within depth 2", 4, subgraph.getVertexCount());
+		assertEquals("num of edges within depth 2", 3, subgraph.getEdgeCount());
+		assertEquals("depth of a vertex two edges away", 2, subgraph.getDepth(vertices.get(2)));
+		assertEquals("depth of a vertex outside the neighborhood", -1, subgraph.getDepth(vertices.get(3)));
+		assertEquals("edge between vertices at depth 1 and 2", true,
+				subgraph.isAdjacent(vertices.get(1), vertices.get(4)));
+		assertEquals("neighborhood complete", true, subgraph.isComplete());
+
+		subgraph = new GraphTraversal<>(this.graph)
+				.neighborhood(Arrays.asList(vertices.get(0)), 2, 2, Long.MAX_VALUE);
+		assertEquals("num of vertices with a budget of 2", 2, subgraph.getVertexCount());
+		assertEquals("neighborhood cut by the budget", false, subgraph.isComplete());
+	}
+
+	@Test
+	public final void traversalWalksInOrderWithDepths() {
+		for (String itrVertex : vertices)
+			this.graph.addVertex(itrVertex);
+		// a square 0 - 1 - 3 - 2 - 0 with a tail 3 - 4; vertex 5 has no edges
+		this.graph.addEdge(vertices.get(0), vertices.get(1));
+		this.graph.addEdge(vertices.get(0), vertices.get(2));
+		this.graph.addEdge(vertices.get(1), vertices.get(3));
+		this.graph.addEdge(vertices.get(2), vertices.get(3));
+		this.graph.addEdge(vertices.get(3), vertices.get(4));
+		GraphTraversal<String> traversal = new GraphTraversal<>(this.graph);
+
+		assertEquals("breadth first order and depths", "at 0, it 1, cat 1, hat 2, hot 3",
+				walked(traversal.breadthFirst(vertices.get(0))));
+		assertEquals("breadth first within depth 1", "at 0, it 1, cat 1",
+				walked(traversal.breadthFirst(vertices.get(0), 1)));
+		// depths are taken along the depth first tree, so cat is 3 deep on the unlimited walk
+		assertEquals("depth first order and depths", "at 0, it 1, hat 2, cat 3, hot 3",
+				walked(traversal.depthFirst(vertices.get(0))));
+		assertEquals("depth first within depth 2", "at 0, it 1, hat 2, cat 1",
+				walked(traversal.depthFirst(vertices.get(0), 2)));
+		assertEquals("walk of a vertex without edges", "rat 0", walked(traversal.breadthFirst(vertices.get(5))));
+		assertEquals("walk of a missing vertex", "", walked(traversal.depthFirst("missing")));
+
+		List<List<String>> levels = new ArrayList<>();
+		traversal.levels(vertices.get(0)).forEachRemaining(levels::add);
+		assertEquals("levels", "[[at], [it, cat], [hat], [hot]]", levels.toString());
+		levels.clear();
+		traversal.levels(vertices.get(4), 1).forEachRemaining(levels::add);
+		assertEquals("levels within depth 1", "[[hot], [hat]]", levels.toString());
+		assertEquals("vertices reached by the last walk", 2, traversal.getReachedCount());
+
+		GraphTraversal<String>.Walk first = traversal.breadthFirst(vertices.get(0));
+		assertEquals("depth before the first vertex", -1, first.getDepth());
+		first.next();
+		traversal.depthFirst(vertices.get(0));
+		String thrown = "no exception";
+		try {
+			first.hasNext();
+		} catch (ConcurrentModificationException e) {
+			thrown = "ConcurrentModificationException";
+		}
+		assertEquals("walk ended by a newer walk", "ConcurrentModificationException", thrown);
+	}
+
+	@Test
+	public final void durableGraphDropsTornLastBatch() throws IOException {
+		File directory = Files.createTempDirectory("wal").toFile();
+		try {
+			try (DurableGraph durable = new DurableGraph(this.graph, directory.getPath(), 1, false)) {
+				fillGraph(durable);
+			}
+			String expected = contents(this.graph);
+			// a batch cut short by a crash: its length, its checksum and part of its records
+			try (FileOutputStream log = new FileOutputStream(new File(directory, "log.bin"), true)) {
+				log.write(new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 3, 0, 2});
+			}
+			try (DurableGraph durable = new DurableGraph(new Graph<>(), directory.getPath(), 1, false)) {
+				assertEquals("graph recovered without the torn batch", expected, contents(durable));
+				durable.addEdge(vertices.get(0), vertices.get(5));
+				expected = contents(durable);
+			}
+			// the torn bytes were cut off, so the mutation written after them is replayed
+			try (DurableGraph durable = new DurableGraph(new Graph<>(), directory.getPath(), 1, false)) {
+				assertEquals("graph recovered with the mutation after the torn batch", expected, contents(durable));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public final void durableGraphIgnoresLogOlderThanSnapshot() throws IOException {
+		File directory = Files.createTempDirectory("wal").toFile();
+		try {
+			File log = new File(directory, "log.bin");
+			byte[] oldLog;
+			try (DurableGraph durable = new DurableGraph(this.graph, directory.getPath(), 1, false)) {
+				fillGraph(durable);
+				durable.removeVertex(vertices.get(2));
+				oldLog = Files.readAllBytes(log.toPath());
+				durable.addVertex(vertices.get(2));
+				durable.checkpoint();
+			}
+			String expected = contents(this.graph);
+			// a crash after the new snapshot was renamed into place but before the log was replaced
+			Files.write(log.toPath(), oldLog);
+			try (DurableGraph durable = new DurableGraph(new Graph<>(), directory.getPath(), 1, false)) {
+				assertEquals("mutations replayed from the old log", 0, durable.getReplayedCount());
+				assertEquals("graph recovered from the snapshot only", expected, contents(durable));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public final void durableGraphCheckpointsEveryInterval() throws IOException {
+		File directory = Files.createTempDirectory("wal").toFile();
+		try {
+			try (DurableGraph durable = new DurableGraph(this.graph, directory.getPath(), 2, false)) {
+				durable.setCheckpointInterval(4);
+				// 9 mutations: checkpoints after the 4th and the 8th
+				for (int i = 0; i < 6; i++)
+					durable.addVertex(vertices.get(i));
+				durable.addEdge(vertices.get(0), vertices.get(1));
+				durable.addEdge(vertices.get(1), vertices.get(2));
+				durable.addEdge(vertices.get(2), vertices.get(3));
+				assertEquals("num of mutations in the log", 1, durable.getLogSize());
+			}
+			assertEquals("snapshot of the second checkpoint", true, new File(directory, "snapshot-2.bin").exists());
+			assertEquals("snapshot of the first checkpoint", false, new File(directory, "snapshot-1.bin").exists());
+			String expected = contents(this.graph);
+			try (DurableGraph durable = new DurableGraph(new Graph<>(), directory.getPath(), 2, false)) {
+				assertEquals("mutations replayed after the last checkpoint", 1, durable.getReplayedCount());
+				assertEquals("graph recovered from snapshot and log", expected, contents(durable));
+			}
+		} finally {
+			delete(directory);
+		}
+	}
+
+	@Test
+	public final void graphIORoundTripsEveryFormat() throws IOException {
+		// vertices 6 and up have no edges
+		fillGraph(this.graph);
+		WeightedGraph<String> weighted = new WeightedGraph<>();
+		for (String itrVertex : vertices)
+			weighted.addVertex(itrVertex);
+		weighted.addEdge(vertices.get(0), vertices.get(1), 3);
+		weighted.addEdge(vertices.get(1), vertices.get(2), 1);
+		weighted.addEdge(vertices.get(4), vertices.get(5), 7);
+		for (GraphIO.Format format : GraphIO.Format.values()) {
+			File file = File.createTempFile("graph", ".bin");
+			try {
+				long written = GraphIO.write(this.graph, file.getPath(), format);
+				Graph<String> copy = new Graph<>();
+				long read = GraphIO.read(copy, file.getPath(), format);
+				assertEquals(format + ": num of edges written", 3, written);
+				assertEquals(format + ": num of edges read", written, read);
+				assertEquals(format + ": graph read back", contents(this.graph), contents(copy));
+				if (format == GraphIO.Format.BINARY)
+					assertEquals("edge count patched into the header", written, binaryEdgeCount(file));
+
+				written = GraphIO.write(weighted, file.getPath(), format);
+				WeightedGraph<String> weightedCopy = new WeightedGraph<>();
+				read = GraphIO.read(weightedCopy, file.getPath(), format);
+				assertEquals(format + ": num of weighted edges read", written, read);
+				assertEquals(format + ": weighted graph read back", weightedContents(weighted),
+						weightedContents(weightedCopy));
+				if (format == GraphIO.Format.BINARY)
+					assertEquals("weighted edge count patched into the header", 3, binaryEdgeCount(file));
+			} finally {
+				file.delete();
+			}
+		}
+	}
+
+	@Test
+	public final void intGraphAddsAndRemovesVerticesAndEdges() {
+		// room for one vertex, so adding grows the rows
+		IntGraph intGraph = new IntGraph(1);
+		for (int v = 0; v < 5; v++)
+			assertEquals("id of a new vertex", v, intGraph.addVertex());
+		assertEquals("add edge", true, intGraph.addEdge(0, 1));
+		assertEquals("add duplicate edge", false, intGraph.addEdge(0, 1));
+		assertEquals("add duplicate edge reversed", false, intGraph.addEdge(1, 0));
+		assertEquals("add self loop", false, intGraph.addEdge(2, 2));
+		assertEquals("add edge to a missing vertex", false, intGraph.addEdge(0, 9));
+		intGraph.appendEdge(2, 3);
+		intGraph.appendEdge(2, 4);
+		intGraph.addEdge(1, 2);
+		assertEquals("appended edge seen from both ends", true, intGraph.isAdjacent(3, 2));
+		assertEquals("degree of vertex 2", 3, intGraph.getDegree(2));
+
+		assertEquals("remove edge", true, intGraph.removeEdge(1, 0));
+		assertEquals("remove missing edge", false, intGraph.removeEdge(0, 1));
+		assertEquals("remove vertex", true, intGraph.removeVertex(2));
+		assertEquals("remove removed vertex", false, intGraph.removeVertex(2));
+		assertEquals("num of vertices", 4, intGraph.getVertexCount());
+		assertEquals("id bound after removal", 5, intGraph.getIdBound());
+		assertEquals("degree of a removed vertex", -1, intGraph.getDegree(2));
+		assertEquals("edge to a removed vertex", false, intGraph.isAdjacent(3, 2));
+		assertEquals("degree of a neighbor of a removed vertex", 0, intGraph.getDegree(1));
+		// removed ids are not reused
+		assertEquals("id after a removal", 5, intGraph.addVertex());
+		intGraph.addEdge(5, 0);
+
+		List<Integer> all = new ArrayList<>();
+		intGraph.getAllVertices().forEachRemaining((int v) -> all.add(v));
+		assertEquals("vertices in id order", Arrays.asList(0, 1, 3, 4, 5), all);
+		int[][] adjacency = intGraph.toAdjacency();
+		assertEquals("rows of the adjacency", 6, adjacency.length);
+		assertEquals("row of a removed vertex", 0, adjacency[2].length);
+		assertEquals("row of vertex 0", "[5]", Arrays.toString(adjacency[0]));
+		assertEquals("row of vertex 5", "[0]", Arrays.toString(adjacency[5]));
+		assertEquals("row of vertex 3", "[]", Arrays.toString(adjacency[3]));
+	}
+
+	@Test
+	public final void intGraphAdapterKeepsIdsAlignedWithWords() {
+		fillGraph(this.graph);
+		IntGraphAdapter adapter = IntGraphAdapter.of(this.graph);
+		IntGraph intGraph = adapter.getIntGraph();
+		assertEquals("num of words", numOfVertices, adapter.getWords().size());
+		assertEquals("num of vertices", numOfVertices, intGraph.getVertexCount());
+		assertEquals("id of a missing word", -1, adapter.getId("missing"));
+		assertEquals("id of null", -1, adapter.getId(null));
+		for (String itrVertex : vertices) {
+			int id = adapter.getId(itrVertex);
+			assertEquals(String.format("word of the id of %s", itrVertex), itrVertex, adapter.getWord(id));
+			int degree = 0;
+			for (String itrNeighbor : this.graph.getNeighbors(itrVertex)) {
+				assertEquals(String.format("edge %s %s", itrVertex, itrNeighbor), true,
+						intGraph.isAdjacent(id, adapter.getId(itrNeighbor)));
+				degree++;
+			}
+			assertEquals(String.format("degree of %s", itrVertex), degree, intGraph.getDegree(id));
+		}
+
+		// removing vertices keeps the ids of the others, so they still name the same words
+		intGraph.removeVertex(adapter.getId(vertices.get(2)));
+		intGraph.removeVertex(adapter.getId(vertices.get(0)));
+		assertEquals("num of vertices after removals", numOfVertices - 2, intGraph.getVertexCount());
+		intGraph.getAllVertices().forEachRemaining((int v) -> {
+			String word = adapter.getWord(v);
+			assertEquals(String.format("id of %s after removals", word), v, adapter.getId(word));
+			assertEquals(String.format("%s is still a vertex", word), true,
+					!word.equals(vertices.get(0)) && !word.equals(vertices.get(2)));
+		});
+		assertEquals("edge of a removed vertex", false,
+				intGraph.isAdjacent(adapter.getId(vertices.get(2)), adapter.getId(vertices.get(3))));
+		assertEquals("degree of a neighbor of a removed vertex", 0, intGraph.getDegree(adapter.getId(vertices.get(1))));
+	}
+
+	/**
+	 * @return the vertices of a walk with their depths, as "vertex depth, ..."
+	 */
+	private static String walked(GraphTraversal<String>.Walk walk) {
+		StringBuilder text = new StringBuilder();
+		while (walk.hasNext()) {
+			String vertex = walk.next();
+			text.append(text.length() == 0 ? "" : ", ").append(vertex).append(' ').append(walk.getDepth());
+		}
+		return text.toString();
+	}
+
+	/**
+	 * @return the edge count of a binary graph file, read from after the vertices
+	 */
+	private static long binaryEdgeCount(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+			in.readInt();
+			in.readInt();
+			int count = in.readInt();
+			for (int v = 0; v < count; v++)
+				in.skipBytes(in.readInt());
+			return in.readLong();
+		}
+	}
+
+	/**
+	 * @return the edges of a weighted graph with their weights as sorted text
+	 */
+	private static String weightedContents(WeightedGraphADT<String> graph) {
+		TreeSet<String> contents = new TreeSet<>();
+		for (String itrVertex : graph.getAllVertices()) {
+			contents.add(itrVertex);
+			for (String itrNeighbor : graph.getNeighbors(itrVertex))
+				contents.add(itrVertex + " " + itrNeighbor + " " + graph.getWeight(itrVertex, itrNeighbor));
+		}
+		return contents.toString();
+	}
+
+	/**
+	 * Adds every test vertex and a few edges between them.
+	 */
+	private static void fillGraph(GraphADT<String> graph) {
+		for (String itrVertex : vertices)
+			graph.addVertex(itrVertex);
+		graph.addEdge(vertices.get(0), vertices.get(1));
+		graph.addEdge(vertices.get(2), vertices.get(3));
+		graph.addEdge(vertices.get(3), vertices.get(4));
+		graph.addEdge(vertices.get(2), vertices.get(5));
+		graph.removeEdge(vertices.get(3), vertices.get(4));
+	}
+
+	/**
+	 * @return the vertices and the edges of a graph as sorted text, to compare two graphs
+	 */
+	private static String contents(GraphADT<String> graph) {
+		TreeSet<String> contents = new TreeSet<>();
+		for (String itrVertex : graph.getAllVertices()) {
+			contents.add(itrVertex);
+			for (String itrNeighbor : graph.getNeighbors(itrVertex))
+				contents.add(itrVertex + " " + itrNeighbor);
+		}
+		return contents.toString();
+	}
+
+	private static void delete(File directory) {
+		File[] files = directory.listFiles();
+		for (File file : files == null ? new File[0] : files)
+			file.delete();
+		directory.delete();
+	}
+
 }
@@ -0,0 +1,385 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy walks over any {@link GraphADT}: breadth first, depth first (preorder) and level by level, each
+ * optionally limited in depth.
+ *
+ * Vertices are produced on demand. A vertex's neighbors are only asked for when the walk moves past that vertex,
+ * so stopping early (for example after the first 100 reachable words) only costs what was touched.
+ *
+ * One GraphTraversal keeps a single visited map (vertex to depth) and reuses it for every walk it starts. Starting
+ * a new walk ends the previous one, whose iterators then throw {@link ConcurrentModificationException}.
+ * {@link #neighborhood(Collection, int, int, long)} cuts out the subgraph around some vertices with the same map.
+ * Use one instance per thread.
+ *
+ * @param <E> type of a vertex
+ */
+public class GraphTraversal<E> {
+
+	/**
+	 * Depth limit of a walk that is not limited
+	 */
+	public static final int UNLIMITED = Integer.MAX_VALUE;
+
+	private final GraphADT<E> graph;
+	private final HashMap<E, Integer> depth;
+	private final ArrayDeque<E> queue;
+	private long walk;
+
+	/**
+	 * @param graph the graph to walk; it must not change while a walk is in progress
+	 */
+	public GraphTraversal(GraphADT<E> graph) {
+		this.graph = graph;
+		this.depth = new HashMap<E, Integer>();
+		this.queue = new ArrayDeque<E>();
+	}
+
+	/**
+	 * Walks breadth first from a vertex.
+	 *
+	 * @param start the first vertex
+	 * @return vertices in order of distance from start, starting with start; empty if start is not in the graph
+	 */
+	public Walk breadthFirst(E start) {
+		return breadthFirst(start, UNLIMITED);
+	}
+
+	/**
+	 * Walks breadth first from a vertex, up to a number of edges away.
+	 *
+	 * @param start the first vertex
+	 * @param maxDepth largest distance from start of a vertex returned
+	 * @return vertices in order of distance from start, starting with start; empty if start is not in the graph
+	 */
+	public Walk breadthFirst(E start, int maxDepth) {
+		long id = begin(start);
+		return new Walk() {
+			@Override
+			public boolean hasNext() {
+				check(id);
+				return !queue.isEmpty();
+			}
+
+			@Override
+			public E next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				E vertex = queue.poll();
+				int d = depth.get(vertex);
+				if (d < maxDepth) {
+					for (E neighbor : graph.getNeighbors(vertex)) {
+						if (depth.putIfAbsent(neighbor, d + 1) == null)
+							queue.add(neighbor);
+					}
+				}
+				last = d;
+				return vertex;
+			}
+		};
+	}
+
+	/**
+	 * Walks depth first from a vertex, returning each vertex when it is first reached (preorder).
+	 *
+	 * @param start the first vertex
+	 * @return vertices in depth first order, starting with start; empty if start is not in the graph
+	 */
+	public Walk depthFirst(E start) {
+		return depthFirst(start, UNLIMITED);
+	}
+
+	/**
+	 * Walks depth first from a vertex, never going deeper than a number of edges along the walk.
+	 * A vertex first reached too deep is not returned, even if a shorter route to it exists.
+	 *
+	 * @param start the first vertex
+	 * @param maxDepth largest depth (in the depth first tree) of a vertex returned
+	 * @return vertices in depth first order, starting with start; empty if start is not in the graph
+	 */
+	public Walk depthFirst(E start, int maxDepth) {
+		long id = begin(start);
+		E first = queue.poll();
+		ArrayDeque<Iterator<E>> stack = new ArrayDeque<Iterator<E>>();
+		return new Walk() {
+			private E pending = first;
+
+			@Override
+			public boolean hasNext() {
+				check(id);
+				// find the next unvisited vertex below the top of the stack, dropping exhausted branches
+				while (pending == null && !stack.isEmpty()) {
+					Iterator<E> branch = stack.peek();
+					if (!branch.hasNext()) {
+						stack.pop();
+						continue;
+					}
+					E candidate = branch.next();
+					if (!depth.containsKey(candidate)) {
+						depth.put(candidate, stack.size());
+						pending = candidate;
+					}
+				}
+				return pending != null;
+			}
+
+			@Override
+			public E next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				E vertex = pending;
+				pending = null;
+				last = depth.get(vertex);
+				if (last < maxDepth)
+					stack.push(graph.getNeighbors(vertex).iterator());
+				return vertex;
+			}
+		};
+	}
+
+	/**
+	 * Walks from a vertex one level at a time.
+	 *
+	 * @param start the first vertex
+	 * @return the frontier at each distance from start: {start}, its neighbors, and so on; empty if start is not
+	 *         in the graph
+	 */
+	public Iterator<List<E>> levels(E start) {
+		return levels(start, UNLIMITED);
+	}
+
+	/**
+	 * Walks from a vertex one level at a time, up to a number of edges away.
+	 *
+	 * @param start the first vertex
+	 * @param maxDepth distance from start of the last level returned
+	 * @return the frontier at each distance from start, up to maxDepth; empty if start is not in the graph
+	 */
+	public Iterator<List<E>> levels(E start, int maxDepth) {
+		long id = begin(start);
+		List<E> first = new ArrayList<E>(queue);
+		queue.clear();
+		return new Iterator<List<E>>() {
+			private List<E> frontier = first.isEmpty() ? null : first;
+			private List<E> previous;
+			private int level;
+
+			@Override
+			public boolean hasNext() {
+				check(id);
+				// the next level is only expanded once it is asked for
+				if (frontier == null && previous != null && level < maxDepth) {
+					List<E> next = new ArrayList<E>();
+					for (E vertex : previous) {
+						for (E neighbor : graph.getNeighbors(vertex)) {
+							if (depth.putIfAbsent(neighbor, level + 1) == null)
+								next.add(neighbor);
+						}
+					}
+					previous = null;
+					level++;
+					frontier = next.isEmpty() ? null : next;
+				}
+				return frontier != null;
+			}
+
+			@Override
+			public List<E> next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				previous = frontier;
+				frontier = null;
+				return Collections.unmodifiableList(previous);
+			}
+		};
+	}
+
+	/**
+	 * Extracts the subgraph induced by the vertices within a number of edges of some seeds, in one breadth first
+	 * pass. Once a budget is reached no more vertices (or edges) are taken; the result is then the part of the
+	 * neighborhood nearest to the seeds, see {@link Subgraph#isComplete()}.
+	 *
+	 * @param seeds the vertices to start from (those not in the graph are skipped)
+	 * @param maxDepth largest distance from the seeds of a vertex taken
+	 * @param maxVertices largest number of vertices taken
+	 * @param maxEdges largest number of edges taken
+	 * @return Subgraph of the neighborhood
+	 */
+	public Subgraph<E> neighborhood(Collection<E> seeds, int maxDepth, int maxVertices, long maxEdges) {
+		int[][] edges = { new int[64] };
+		int[] count = new int[1];
+		Neighborhood found = expand(seeds, maxDepth, maxVertices, maxEdges, (id1, vertex1, id2, vertex2) -> {
+			if (2 * count[0] + 2 > edges[0].length)
+				edges[0] = Arrays.copyOf(edges[0], edges[0].length * 2);
+			edges[0][2 * count[0]] = id1;
+			edges[0][2 * count[0] + 1] = id2;
+			count[0]++;
+		});
+		return new Subgraph<E>(found.reached, Arrays.copyOf(found.depth, found.reached.size()), edges[0], count[0],
+				found.complete);
+	}
+
+	/**
+	 * Streams the edges of the subgraph induced by the vertices within a number of edges of some seeds, in one
+	 * breadth first pass and without building the subgraph. Each edge is passed once, as soon as both of its
+	 * ends have been reached, nearest to the seeds first.
+	 *
+	 * @param seeds the vertices to start from (those not in the graph are skipped)
+	 * @param maxDepth largest distance from the seeds of a vertex taken
+	 * @param maxVertices largest number of vertices taken
+	 * @param maxEdges largest number of edges passed
+	 * @param edges receives each edge, the vertex reached first then the other
+	 * @return number of vertices of the neighborhood
+	 */
+	public int neighborhood(Collection<E> seeds, int maxDepth, int maxVertices, long maxEdges,
+			BiConsumer<? super E, ? super E> edges) {
+		return expand(seeds, maxDepth, maxVertices, maxEdges,
+				(id1, vertex1, id2, vertex2) -> edges.accept(vertex1, vertex2)).reached.size();
+	}
+
+	/**
+	 * Receives an edge of a neighborhood with the ids of its ends.
+	 */
+	private interface EdgeSink<E> {
+		void accept(int id1, E vertex1, int id2, E vertex2);
+	}
+
+	/**
+	 * Vertices reached by {@link GraphTraversal#expand}, by id.
+	 */
+	private class Neighborhood {
+		final ArrayList<E> reached = new ArrayList<E>();
+		int[] depth = new int[16];
+		boolean complete = true;
+	}
+
+	/**
+	 * Breadth first pass over a neighborhood. Vertices get ids in the order they are reached; while the vertex
+	 * with id v is expanded, the edge to each neighbor with a smaller id is passed, so every edge is passed once,
+	 * from its end expanded second. Vertices at maxDepth are expanded too, to pass the edges between them.
+	 */
+	private Neighborhood expand(Collection<E> seeds, int maxDepth, int maxVertices, long maxEdges, EdgeSink<E> sink) {
+		begin(null);
+		Neighborhood found = new Neighborhood();
+		// the visited map of this traversal holds the ids here
+		for (E seed : seeds) {
+			if (found.reached.size() < maxVertices && seed != null && !depth.containsKey(seed)
+					&& graph.getNeighbors(seed) != null)
+				reach(found, seed, 0);
+		}
+		long passed = 0;
+		for (int v = 0; v < found.reached.size(); v++) {
+			E vertex = found.reached.get(v);
+			int d = found.depth[v];
+			for (E neighbor : graph.getNeighbors(vertex)) {
+				Integer u = depth.get(neighbor);
+				if (u == null) {
+					if (d == maxDepth)
+						continue;
+					if (found.reached.size() == maxVertices) {
+						found.complete = false;
+						continue;
+					}
+					u = reach(found, neighbor, d + 1);
+				}
+				if (u < v) {
+					if (passed == maxEdges) {
+						found.complete = false;
+						return found;
+					}
+					sink.accept(u, neighbor, v, vertex);
+					passed++;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Gives a vertex the next id.
+	 *
+	 * @return the id
+	 */
+	private int reach(Neighborhood found, E vertex, int d) {
+		int id = found.reached.size();
+		found.reached.add(vertex);
+		if (id == found.depth.length)
+			found.depth = Arrays.copyOf(found.depth, id * 2);
+		found.depth[id] = d;
+		depth.put(vertex, id);
+		return id;
+	}
+
+	/**
+	 * Wraps a walk as a sequential stream, for limit, filter and the other stream operations.
+	 *
+	 * @param <T> type of the elements of the walk
+	 * @param walk an iterator returned by this traversal
+	 * @return Stream of the vertices of the walk
+	 */
+	public static <T> Stream<T> stream(Iterator<T> walk) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(walk,
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * @return number of vertices reached by the current walk so far (returned or waiting to be returned)
+	 */
+	public int getReachedCount() {
+		return depth.size();
+	}
+
+	/**
+	 * Clears the visited map and queues start if it is in the graph.
+	 *
+	 * @return id of the new walk
+	 */
+	private long begin(E start) {
+		depth.clear();
+		queue.clear();
+		walk++;
+		if (start != null && graph.getNeighbors(start) != null) {
+			depth.put(start, 0);
+			queue.add(start);
+		}
+		return walk;
+	}
+
+	private void check(long id) {
+		if (id != walk)
+			throw new ConcurrentModificationException("a newer walk was started on this traversal");
+	}
+
+	/**
+	 * Iterator of vertices that also reports the depth of the vertex it returned last.
+	 */
+	public abstract class Walk implements Iterator<E> {
+
+		/**
+		 * Depth of the vertex returned last
+		 */
+		int last = -1;
+
+		/**
+		 * @return depth of the vertex returned by the last call to next (distance from start for a breadth first
+		 *         walk, depth in the depth first tree for a depth first walk), -1 before the first call
+		 */
+		public int getDepth() {
+			return last;
+		}
+	}
+}
@@ -0,0 +1,133 @@
+import java.util.Arrays;
+
+/**
+ * Binary min heap over vertex ids (0 .. n-1) with a position index, so the key of a queued id can be lowered
+ * in place (decrease-key) instead of queueing the id again.
+ *
+ * Ids with equal keys leave the heap in order of their tie-break rank, which keeps searches deterministic.
+ */
+class IndexedMinHeap {
+
+	private final int[] heap;
+	private final int[] pos;
+	private final long[] key;
+	private final int[] rank;
+	private int size;
+
+	/**
+	 * Creates an empty heap for ids 0 .. capacity-1.
+	 *
+	 * @param capacity number of ids
+	 * @param rank rank[v] breaks ties between equal keys (lower rank first)
+	 */
+	IndexedMinHeap(int capacity, int[] rank) {
+		this.heap = new int[capacity];
+		this.pos = new int[capacity];
+		this.key = new long[capacity];
+		this.rank = rank;
+		Arrays.fill(pos, -1);
+		this.size = 0;
+	}
+
+	/**
+	 * Removes every id from the heap.
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++)
+			pos[heap[i]] = -1;
+		size = 0;
+	}
+
+	/**
+	 * @return true if no id is queued
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param v vertex id
+	 * @return true if v is queued
+	 */
+	boolean contains(int v) {
+		return pos[v] != -1;
+	}
+
+	/**
+	 * Inserts v with the given key, or lowers the key of v if it is already queued.
+	 * A key that is not lower than the current one is ignored.
+	 *
+	 * @param v vertex id
+	 * @param k new key
+	 */
+	void push(int v, long k) {
+		if (pos[v] == -1) {
+			key[v] = k;
+			heap[size] = v;
+			pos[v] = size;
+			siftUp(size++);
+		} else if (k < key[v]) {
+			key[v] = k;
+			siftUp(pos[v]);
+		}
+	}
+
+	/**
+	 * @return the smallest key in the heap, which must not be empty
+	 */
+	long peekKey() {
+		return key[heap[0]];
+	}
+
+	/**
+	 * Removes and returns the id with the smallest key.
+	 *
+	 * @return vertex id
+	 */
+	int pop() {
+		int top = heap[0];
+		pos[top] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			pos[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private boolean less(int a, int b) {
+		return key[a] < key[b] || (key[a] == key[b] && rank[a] < rank[b]);
+	}
+
+	private void siftUp(int i) {
+		int v = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!less(v, heap[parent]))
+				break;
+			heap[i] = heap[parent];
+			pos[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = v;
+		pos[v] = i;
+	}
+
+	private void siftDown(int i) {
+		int v = heap[i];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && less(heap[child + 1], heap[child]))
+				child++;
+			if (!less(heap[child], v))
+				break;
+			heap[i] = heap[child];
+			pos[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = v;
+		pos[v] = i;
+	}
+}
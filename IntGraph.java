@@ -0,0 +1,236 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Undirected and unweighted graph on int vertices.
+ *
+ * Each vertex keeps its neighbors in a growable int[] row, so visiting neighbors walks a primitive array and
+ * edges cost 4 bytes per direction. Rows are unordered: removing a neighbor moves the last one into its place.
+ * Removed vertices are marked in a BitSet and keep their id.
+ */
+public class IntGraph implements IntGraphADT {
+
+	private static final int[] EMPTY = new int[0];
+
+	private int[][] rows;
+	private int[] degree;
+	private final BitSet present;
+	private int bound;
+	private int count;
+
+	/**
+	 * Creates an empty graph.
+	 */
+	public IntGraph() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty graph with room for a number of vertices.
+	 *
+	 * @param expectedVertices number of vertices the graph will probably hold
+	 */
+	public IntGraph(int expectedVertices) {
+		int capacity = Math.max(expectedVertices, 1);
+		rows = new int[capacity][];
+		degree = new int[capacity];
+		present = new BitSet(capacity);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int addVertex() {
+		if (bound == rows.length) {
+			rows = Arrays.copyOf(rows, bound * 2);
+			degree = Arrays.copyOf(degree, bound * 2);
+		}
+		rows[bound] = EMPTY;
+		present.set(bound);
+		count++;
+		return bound++;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean removeVertex(int vertex) {
+		if (!containsVertex(vertex))
+			return false;
+		for (int i = 0; i < degree[vertex]; i++)
+			unlink(rows[vertex][i], vertex);
+		rows[vertex] = EMPTY;
+		degree[vertex] = 0;
+		present.clear(vertex);
+		count--;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean addEdge(int vertex1, int vertex2) {
+		if (vertex1 == vertex2 || !containsVertex(vertex1) || !containsVertex(vertex2) || isAdjacent(vertex1, vertex2))
+			return false;
+		link(vertex1, vertex2);
+		link(vertex2, vertex1);
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean removeEdge(int vertex1, int vertex2) {
+		if (vertex1 == vertex2 || !containsVertex(vertex1) || !containsVertex(vertex2))
+			return false;
+		return unlink(vertex1, vertex2) && unlink(vertex2, vertex1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isAdjacent(int vertex1, int vertex2) {
+		if (!containsVertex(vertex1) || !containsVertex(vertex2))
+			return false;
+		// scan the shorter row
+		if (degree[vertex2] < degree[vertex1]) {
+			int t = vertex1;
+			vertex1 = vertex2;
+			vertex2 = t;
+		}
+		return indexOf(vertex1, vertex2) != -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean containsVertex(int vertex) {
+		return vertex >= 0 && vertex < bound && present.get(vertex);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getDegree(int vertex) {
+		return containsVertex(vertex) ? degree[vertex] : -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEachNeighbor(int vertex, IntConsumer action) {
+		if (!containsVertex(vertex))
+			return;
+		int[] row = rows[vertex];
+		for (int i = 0; i < degree[vertex]; i++)
+			action.accept(row[i]);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PrimitiveIterator.OfInt getNeighbors(int vertex) {
+		if (!containsVertex(vertex))
+			return Arrays.stream(EMPTY).iterator();
+		return Arrays.stream(rows[vertex], 0, degree[vertex]).iterator();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PrimitiveIterator.OfInt getAllVertices() {
+		return new PrimitiveIterator.OfInt() {
+			private int next = present.nextSetBit(0);
+
+			@Override
+			public boolean hasNext() {
+				return next != -1 && next < bound;
+			}
+
+			@Override
+			public int nextInt() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				int vertex = next;
+				next = present.nextSetBit(next + 1);
+				return vertex;
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getVertexCount() {
+		return count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIdBound() {
+		return bound;
+	}
+
+	/**
+	 * Copies the neighbors of every vertex into exact size arrays, the form the path searches run on.
+	 *
+	 * @return adjacency[v] holds the neighbors of vertex v (empty for removed ids)
+	 */
+	public int[][] toAdjacency() {
+		int[][] adjacency = new int[bound][];
+		for (int v = 0; v < bound; v++)
+			adjacency[v] = Arrays.copyOf(rows[v], degree[v]);
+		return adjacency;
+	}
+
+	/**
+	 * Adds an edge the caller knows is new, without the duplicate scan of {@link #addEdge(int, int)}. For building
+	 * a graph from a source that lists every edge once.
+	 *
+	 * @param vertex1 a vertex of the graph
+	 * @param vertex2 another vertex of the graph, not yet adjacent to vertex1
+	 */
+	void appendEdge(int vertex1, int vertex2) {
+		link(vertex1, vertex2);
+		link(vertex2, vertex1);
+	}
+
+	private void link(int from, int to) {
+		if (degree[from] == rows[from].length)
+			rows[from] = Arrays.copyOf(rows[from], Math.max(4, degree[from] * 2));
+		rows[from][degree[from]++] = to;
+	}
+
+	private boolean unlink(int from, int to) {
+		int i = indexOf(from, to);
+		if (i == -1)
+			return false;
+		rows[from][i] = rows[from][--degree[from]];
+		return true;
+	}
+
+	private int indexOf(int from, int to) {
+		int[] row = rows[from];
+		for (int i = 0; i < degree[from]; i++) {
+			if (row[i] == to)
+				return i;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,132 @@
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ *
+ * An undirected graph whose vertices are int ids, the primitive counterpart of {@link GraphADT}.
+ *
+ * Vertices are numbered by the graph as they are added; the id of a removed vertex is not reused.
+ * Neighbors and vertices are visited through {@link IntConsumer}s or {@link PrimitiveIterator.OfInt}s,
+ * so no Integer is ever boxed.
+ *
+ * (none of the methods throw exceptions)
+ */
+public interface IntGraphADT {
+
+	/**
+	 * Add new vertex to the graph
+	 *
+	 * @return id of the new vertex
+	 */
+	public int addVertex();
+
+
+	/**
+	 * Remove the vertex and associated edge associations from the graph
+	 *
+	 * Valid argument conditions:
+	 * 1. vertex should exist in the graph
+	 *
+	 * @param vertex the vertex to be removed
+	 * @return true if vertex removed, else return false if valid conditions are violated
+	 */
+	public boolean removeVertex(int vertex);
+
+
+	/**
+	 * Add an edge between two vertices (edge is undirected and unweighted)
+	 *
+	 * Valid argument conditions:
+	 * 1. both the vertices should exist in the graph
+	 * 2. vertex1 should not equal vertex2
+	 *
+	 * @param vertex1 the first vertex
+	 * @param vertex2 the second vertex
+	 * @return true if edge added, else return false if edge can not be added (also if valid conditions are violated)
+	 */
+	public boolean addEdge(int vertex1, int vertex2);
+
+
+	/**
+	 * Remove the edge between two vertices
+	 *
+	 * Valid argument conditions:
+	 * 1. both the vertices should exist in the graph
+	 * 2. vertex1 should not equal vertex2
+	 *
+	 * @param vertex1 the first vertex
+	 * @param vertex2 the second vertex
+	 * @return true if edge removed, else return false if edge can not be removed (also if valid conditions are violated)
+	 */
+	public boolean removeEdge(int vertex1, int vertex2);
+
+
+	/**
+	 * Check whether the two vertices are adjacent
+	 *
+	 * @param vertex1 the first vertex
+	 * @param vertex2 the second vertex
+	 * @return true if both the vertices have an edge with each other, else false (also if either does not exist)
+	 */
+	public boolean isAdjacent(int vertex1, int vertex2);
+
+
+	/**
+	 * Check whether a vertex is in the graph
+	 *
+	 * @param vertex the vertex
+	 * @return true if the vertex exists
+	 */
+	public boolean containsVertex(int vertex);
+
+
+	/**
+	 * Get the number of neighbors of a vertex
+	 *
+	 * @param vertex the vertex
+	 * @return number of neighbors, -1 if the vertex does not exist
+	 */
+	public int getDegree(int vertex);
+
+
+	/**
+	 * Visit all the neighbor vertices of a vertex (nothing is visited if the vertex does not exist)
+	 *
+	 * @param vertex the vertex
+	 * @param action called with every immediate connected neighbor vertex
+	 */
+	public void forEachNeighbor(int vertex, IntConsumer action);
+
+
+	/**
+	 * Get all the neighbor vertices of a vertex
+	 *
+	 * @param vertex the vertex
+	 * @return an iterator over all the immediate connected neighbor vertices, empty if the vertex does not exist
+	 */
+	public PrimitiveIterator.OfInt getNeighbors(int vertex);
+
+
+	/**
+	 * Get all the vertices in the graph
+	 *
+	 * @return an iterator over all the vertices, in increasing id order
+	 */
+	public PrimitiveIterator.OfInt getAllVertices();
+
+
+	/**
+	 * Get the number of vertices in the graph
+	 *
+	 * @return number of vertices
+	 */
+	public int getVertexCount();
+
+
+	/**
+	 * Get the bound of the vertex ids, for sizing arrays indexed by vertex
+	 *
+	 * @return one more than the largest id ever given to a vertex
+	 */
+	public int getIdBound();
+}
@@ -0,0 +1,78 @@
+import java.util.List;
+
+/**
+ * Maps a graph of words onto an {@link IntGraph}: every word gets an int id, and every edge becomes an edge
+ * between ids. Traversals then run on primitive ids and only translate the words they report.
+ *
+ * The mapping is a snapshot; later changes to the word graph are not seen.
+ */
+public class IntGraphAdapter {
+
+	private final WordArena words;
+	private final IntGraph graph;
+
+	/**
+	 * Maps a graph using the given word ids.
+	 *
+	 * @param source the word graph
+	 * @param words every vertex of source, its index being its id
+	 */
+	IntGraphAdapter(GraphADT<String> source, WordArena words) {
+		this.words = words;
+		this.graph = new IntGraph(words.size());
+		for (int v = 0; v < words.size(); v++)
+			graph.addVertex();
+		for (int v = 0; v < words.size(); v++) {
+			for (String neighbor : source.getNeighbors(words.get(v))) {
+				int u = words.indexOf(neighbor);
+				// each undirected edge is listed from both ends, so taking it from its lower id end adds it once
+				// and the duplicate check of addEdge is not needed
+				if (u > v)
+					graph.appendEdge(v, u);
+			}
+		}
+	}
+
+	/**
+	 * Maps any graph of words, numbering the words in the order the graph lists them.
+	 *
+	 * @param source the word graph
+	 * @return IntGraphAdapter over a snapshot of source
+	 */
+	public static IntGraphAdapter of(GraphADT<String> source) {
+		WordArena words = new WordArena(0);
+		for (String word : source.getAllVertices())
+			words.intern(word);
+		return new IntGraphAdapter(source, words);
+	}
+
+	/**
+	 * @return the int graph
+	 */
+	public IntGraph getIntGraph() {
+		return graph;
+	}
+
+	/**
+	 * @param word a word
+	 * @return id of the word, -1 if it is not in the graph
+	 */
+	public int getId(String word) {
+		return word == null ? -1 : words.indexOf(word);
+	}
+
+	/**
+	 * @param id a vertex id
+	 * @return the word of the vertex
+	 */
+	public String getWord(int id) {
+		return words.get(id);
+	}
+
+	/**
+	 * @return the words by id, as an unmodifiable list
+	 */
+	public List<String> getWords() {
+		return words;
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * Levenshtein automaton accepting every string within a maximum edit distance of one word.
+ *
+ * A state of the automaton is the row of the edit distance table for the characters read so far: entry i is the
+ * distance between that prefix and the first i characters of the word. Reading one more character produces the
+ * next row. A state can still lead to a match while some entry is within the maximum distance, which lets a
+ * {@link WordTrie} drop whole subtrees without visiting their words.
+ *
+ * With transpositions enabled, swapping two adjacent characters counts as one edit (optimal string alignment),
+ * which needs the row before the previous one as well.
+ */
+class LevenshteinAutomaton {
+
+	private final String word;
+	private final int maxDistance;
+	private final boolean transpositions;
+
+	/**
+	 * @param word the word to match against
+	 * @param maxDistance largest accepted number of edits
+	 * @param transpositions whether swapping two adjacent characters is a single edit
+	 */
+	LevenshteinAutomaton(String word, int maxDistance, boolean transpositions) {
+		this.word = word;
+		this.maxDistance = maxDistance;
+		this.transpositions = transpositions;
+	}
+
+	/**
+	 * @return the state before any character is read
+	 */
+	int[] start() {
+		int[] row = new int[word.length() + 1];
+		for (int i = 0; i < row.length; i++)
+			row[i] = i;
+		return row;
+	}
+
+	/**
+	 * Reads one character.
+	 *
+	 * @param before state before prev was read (only used with transpositions, may be null)
+	 * @param prevChar character read to reach prev
+	 * @param prev current state
+	 * @param c character to read
+	 * @return the next state
+	 */
+	int[] step(int[] before, char prevChar, int[] prev, char c) {
+		int[] row = new int[prev.length];
+		row[0] = prev[0] + 1;
+		for (int i = 1; i < row.length; i++) {
+			char w = word.charAt(i - 1);
+			int cost = Math.min(row[i - 1] + 1, prev[i] + 1);
+			cost = Math.min(cost, prev[i - 1] + (w == c ? 0 : 1));
+			if (transpositions && before != null && i > 1 && w == prevChar && word.charAt(i - 2) == c)
+				cost = Math.min(cost, before[i - 2] + 1);
+			row[i] = cost;
+		}
+		return row;
+	}
+
+	/**
+	 * @param state a state of this automaton
+	 * @return true if some continuation of the characters read so far can still be accepted
+	 */
+	boolean canMatch(int[] state) {
+		for (int d : state) {
+			if (d <= maxDistance)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @param state a state of this automaton
+	 * @return true if the characters read so far are within the maximum distance of the word
+	 */
+	boolean isMatch(int[] state) {
+		return state[state.length - 1] <= maxDistance;
+	}
+
+	/**
+	 * Runs the automaton over a whole string.
+	 *
+	 * @param other the string to read
+	 * @return true if other is within the maximum distance of the word
+	 */
+	boolean matches(String other) {
+		int[] before = null;
+		int[] state = start();
+		char prevChar = 0;
+		for (int i = 0; i < other.length(); i++) {
+			if (!canMatch(state))
+				return false;
+			int[] next = step(before, prevChar, state, other.charAt(i));
+			before = state;
+			state = next;
+			prevChar = other.charAt(i);
+		}
+		return isMatch(state);
+	}
+}
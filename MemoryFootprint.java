@@ -0,0 +1,215 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estimated heap (and mapped file) bytes of a word graph, by component.
+ *
+ * Sizes follow a 64-bit JVM with compressed references: 12 byte object headers, 4 byte references, 16 byte array
+ * headers, everything aligned to 8 bytes, Strings holding Latin-1 bytes. Collection capacities are estimated from
+ * their sizes, so the numbers are estimates (within about 20% of the measured heap on word lists).
+ *
+ * {@link GraphProcessor#getFootprint()} is built from counts the processor keeps and costs O(1);
+ * {@link #of(GraphADT)} counts the vertices and edges of any graph; {@link #predict(int, double, double)} gives
+ * the footprint of a processor before a dictionary is loaded. A component standing in for a bulkier structure
+ * also gives the estimated bytes of that structure, see {@link #getReplacedBytes(String)}.
+ */
+public class MemoryFootprint {
+
+	public static final String GRAPH_MAP = "graph vertex map";
+	public static final String GRAPH_WORDS = "graph words";
+	public static final String GRAPH_VERTICES = "graph vertices";
+	public static final String GRAPH_EDGES = "graph edge lists";
+	public static final String GRAPH_WEIGHTS = "graph edge weights";
+	/**
+	 * Words of a processor by id, which replace a list of the graph's Strings and a HashMap from word to id
+	 */
+	public static final String WORD_ARENA = "vertex word arena";
+	public static final String DICTIONARY = "dictionary trie";
+	public static final String SNAPSHOT = "adjacency snapshot";
+	public static final String PATHS_HEAP = "path store (heap)";
+	public static final String PATHS_MAPPED = "path store (mapped file)";
+	public static final String LABELS = "distance labels";
+	public static final String SPELLING_MAPPED = "spelling index (mapped file)";
+	public static final String CACHE = "path cache";
+
+	private final LinkedHashMap<String, Long> components;
+	private final LinkedHashMap<String, Long> replaced;
+
+	MemoryFootprint() {
+		this.components = new LinkedHashMap<String, Long>();
+		this.replaced = new LinkedHashMap<String, Long>();
+	}
+
+	/**
+	 * Adds bytes to a component.
+	 */
+	void add(String component, long bytes) {
+		components.merge(component, bytes, Long::sum);
+	}
+
+	/**
+	 * Records the bytes of the structures a component stands in for, which are not part of any total.
+	 */
+	void replace(String component, long bytes) {
+		replaced.merge(component, bytes, Long::sum);
+	}
+
+	/**
+	 * @return bytes of every component, in a fixed order
+	 */
+	public Map<String, Long> getComponents() {
+		return Collections.unmodifiableMap(components);
+	}
+
+	/**
+	 * @param component component name, one of the keys of {@link #getComponents()}
+	 * @return bytes of the component, 0 if there is no such component
+	 */
+	public long getBytes(String component) {
+		return components.getOrDefault(component, 0L);
+	}
+
+	/**
+	 * @param component component name, one of the keys of {@link #getComponents()}
+	 * @return estimated bytes the structures replaced by the component would take instead, 0 if it replaces none
+	 */
+	public long getReplacedBytes(String component) {
+		return replaced.getOrDefault(component, 0L);
+	}
+
+	/**
+	 * @return bytes of all heap components (the mapped files are not on the heap)
+	 */
+	public long getHeapBytes() {
+		return getTotalBytes() - getBytes(PATHS_MAPPED) - getBytes(SPELLING_MAPPED);
+	}
+
+	/**
+	 * @return bytes of all components
+	 */
+	public long getTotalBytes() {
+		long total = 0;
+		for (long bytes : components.values())
+			total += bytes;
+		return total;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		for (Map.Entry<String, Long> component : components.entrySet()) {
+			text.append(component.getKey()).append(": ").append(component.getValue());
+			if (replaced.containsKey(component.getKey()))
+				text.append(" (replaces ").append(replaced.get(component.getKey())).append(')');
+			text.append('\n');
+		}
+		return text.append("total: ").append(getTotalBytes()).toString();
+	}
+
+	/**
+	 * Counts the vertices, edges and chars of any graph of words and estimates its footprint as a {@link Graph}
+	 * (or {@link WeightedGraph}). Walks the whole graph; O(vertices + edges).
+	 *
+	 * @param graph the graph
+	 * @return MemoryFootprint of the graph
+	 */
+	public static MemoryFootprint of(GraphADT<String> graph) {
+		long vertices = 0;
+		long edgeEnds = 0;
+		long chars = 0;
+		for (String word : graph.getAllVertices()) {
+			vertices++;
+			chars += word.length();
+			for (String neighbor : graph.getNeighbors(word))
+				edgeEnds++;
+		}
+		MemoryFootprint footprint = new MemoryFootprint();
+		footprint.addGraph(vertices, edgeEnds / 2, chars, graph instanceof WeightedGraphADT);
+		return footprint;
+	}
+
+	/**
+	 * Predicts the footprint of an unweighted {@link GraphProcessor} after loading a dictionary.
+	 *
+	 * @param words number of distinct words
+	 * @param averageLength average word length
+	 * @param averageDegree average number of neighbors of a word
+	 * @return MemoryFootprint expected once the dictionary is loaded and precomputed
+	 */
+	public static MemoryFootprint predict(int words, double averageLength, double averageDegree) {
+		long chars = Math.round(words * averageLength);
+		long edges = Math.round(words * averageDegree / 2);
+		MemoryFootprint footprint = new MemoryFootprint();
+		footprint.addGraph(words, edges, chars, false);
+		footprint.add(WORD_ARENA, WordArena.estimateBytes(words, chars));
+		footprint.replace(WORD_ARENA, wordIndex(words));
+		// dictionaries share most prefixes, about half the chars start a new trie node
+		footprint.add(DICTIONARY, WordTrie.estimateBytes(words + chars / 2));
+		footprint.addSnapshot(words, edges, false);
+		footprint.add(PATHS_HEAP, 0);
+		// one byte per pair, in rows with room for added words
+		long capacity = PathStore.capacityFor(words);
+		footprint.add(PATHS_MAPPED, capacity * capacity);
+		return footprint;
+	}
+
+	/**
+	 * Adds the components of a {@link Graph} or {@link WeightedGraph} with the given counts.
+	 */
+	void addGraph(long vertices, long edges, long chars, boolean weighted) {
+		add(GRAPH_MAP, hashMap(vertices));
+		add(GRAPH_WORDS, vertices * string(0) + chars + vertices * 4);
+		// Vertex (header, word, adjacents[, weights]) and its ArrayList
+		add(GRAPH_VERTICES, vertices * (align(12 + 4 + 4 + (weighted ? 4 : 0)) + align(12 + 4 + 4 + 4)));
+		add(GRAPH_EDGES, vertices * 16 + align(2 * edges * 4 * 5 / 4));
+		if (weighted)
+			add(GRAPH_WEIGHTS, vertices * 16 + align(2 * edges * 4 * 5 / 4));
+	}
+
+	/**
+	 * Adds the int[][] adjacency snapshot (and weights) of a processor.
+	 */
+	void addSnapshot(long vertices, long edges, boolean weighted) {
+		long rows = array(4, vertices) + vertices * 16 + 2 * edges * 4 + vertices * 4;
+		add(SNAPSHOT, rows * (weighted ? 2 : 1) + array(4, vertices));
+	}
+
+	/**
+	 * Bytes of an ArrayList of the graph's words and a HashMap from word to boxed id, the index a
+	 * {@link WordArena} replaces. The Strings are shared with the graph and not counted.
+	 *
+	 * @param words number of words
+	 * @return estimated bytes
+	 */
+	static long wordIndex(long words) {
+		// the list grows by half, so its array is on average an eighth larger than needed
+		return align(12 + 4 + 4 + 4) + array(4, words + words / 8) + hashMap(words) + words * align(12 + 4);
+	}
+
+	/**
+	 * @return bytes of a String of length Latin-1 chars
+	 */
+	static long string(long length) {
+		return align(12 + 4 + 4 + 4) + array(1, length);
+	}
+
+	/**
+	 * @return bytes of an array of length elements of elementBytes each
+	 */
+	static long array(int elementBytes, long length) {
+		return align(16 + elementBytes * length);
+	}
+
+	/**
+	 * @return bytes of a HashMap of size entries, its table and nodes (not the keys and values)
+	 */
+	static long hashMap(long size) {
+		long table = Long.highestOneBit(Math.max(16, (long) (size / 0.75) + 1) * 2 - 1);
+		return align(48) + array(4, table) + size * 32;
+	}
+
+	static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Bit-parallel breadth first search from many sources at once (MS-BFS).
+ *
+ * Sources are processed in batches of 64. Every vertex keeps one long per batch in which bit i says whether
+ * source i of the batch has reached it, so one sweep over the adjacency advances all 64 searches by one level.
+ * Batches are independent and run in parallel on all cores.
+ */
+class MultiSourceBfs {
+
+	/**
+	 * Number of sources searched together in one batch (bits of a long)
+	 */
+	static final int LANES = 64;
+
+	/**
+	 * Receives the vertices reached by a batch.
+	 */
+	interface LevelVisitor {
+
+		/**
+		 * Called once per vertex and level at which some sources of the batch first reach the vertex.
+		 *
+		 * @param vertex the vertex reached
+		 * @param lanes bit i is set if source i of the batch reached vertex at this level
+		 * @param level distance from those sources to vertex
+		 */
+		void visit(int vertex, long lanes, int level);
+	}
+
+	private final int[][] adjacency;
+
+	/**
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v
+	 */
+	MultiSourceBfs(int[][] adjacency) {
+		this.adjacency = adjacency;
+	}
+
+	/**
+	 * Searches from up to 64 sources at once.
+	 *
+	 * @param sources source ids
+	 * @param from index of the first source of the batch
+	 * @param count number of sources in the batch (at most {@link #LANES})
+	 * @param visitor receives every (vertex, level) reached, including the sources at level 0
+	 */
+	void batch(int[] sources, int from, int count, LevelVisitor visitor) {
+		int n = adjacency.length;
+		long[] seen = new long[n];
+		long[] frontier = new long[n];
+		long[] next = new long[n];
+		for (int i = 0; i < count; i++) {
+			int s = sources[from + i];
+			seen[s] |= 1L << i;
+			frontier[s] |= 1L << i;
+		}
+		for (int s = 0; s < n; s++) {
+			if (frontier[s] != 0)
+				visitor.visit(s, frontier[s], 0);
+		}
+		boolean active = true;
+		for (int level = 1; active; level++) {
+			active = false;
+			// bottom up: a vertex takes the lanes of every neighbor on the frontier that it has not seen yet
+			for (int v = 0; v < n; v++) {
+				long lanes = 0;
+				for (int u : adjacency[v])
+					lanes |= frontier[u];
+				lanes &= ~seen[v];
+				next[v] = lanes;
+				if (lanes != 0) {
+					seen[v] |= lanes;
+					active = true;
+					visitor.visit(v, lanes, level);
+				}
+			}
+			long[] swap = frontier;
+			frontier = next;
+			next = swap;
+		}
+	}
+
+	/**
+	 * Computes the eccentricity (largest distance to any reachable vertex) of each source.
+	 *
+	 * @param sources source ids
+	 * @return eccentricity of sources[i] at index i
+	 */
+	int[] eccentricities(int[] sources) {
+		int[] ecc = new int[sources.length];
+		int batches = (sources.length + LANES - 1) / LANES;
+		IntStream.range(0, batches).parallel().forEach(b -> {
+			int from = b * LANES;
+			int count = Math.min(LANES, sources.length - from);
+			int[] local = new int[count];
+			batch(sources, from, count, (vertex, lanes, level) -> {
+				for (long bits = lanes; bits != 0; bits &= bits - 1)
+					local[Long.numberOfTrailingZeros(bits)] = level;
+			});
+			System.arraycopy(local, 0, ecc, from, count);
+		});
+		return ecc;
+	}
+
+	/**
+	 * Fills a distance-only {@link PathStore} with the distance between every pair of vertices, batches of 64
+	 * sources running in parallel.
+	 *
+	 * @param store empty distance-only store over the same vertices
+	 * @return false if some distance is too long for the store, which is then incomplete
+	 */
+	boolean allPairs(PathStore store) {
+		int[] sources = allVertices(adjacency.length);
+		int batches = (sources.length + LANES - 1) / LANES;
+		AtomicBoolean fits = new AtomicBoolean(true);
+		IntStream.range(0, batches).parallel().forEach(b -> {
+			int from = b * LANES;
+			int count = Math.min(LANES, sources.length - from);
+			batch(sources, from, count, (vertex, lanes, level) -> {
+				if (level >= PathStore.FAR) {
+					fits.set(false);
+					return;
+				}
+				for (long bits = lanes; bits != 0; bits &= bits - 1)
+					store.putDistance(from + Long.numberOfTrailingZeros(bits), vertex, level);
+			});
+		});
+		return fits.get();
+	}
+
+	/**
+	 * Computes the distance rows of some sources, in the encoding of a distance-only {@link PathStore} row: the
+	 * distance plus one, 0 where the source does not reach. Batches of 64 sources run in parallel.
+	 *
+	 * @param sources source ids
+	 * @param rows receives the row of sources[i] at index i, each as long as the number of vertices
+	 * @return false if some distance is too long for the store, the rows are then incomplete
+	 */
+	boolean rows(int[] sources, byte[][] rows) {
+		int batches = (sources.length + LANES - 1) / LANES;
+		AtomicBoolean fits = new AtomicBoolean(true);
+		IntStream.range(0, batches).parallel().forEach(b -> {
+			int from = b * LANES;
+			int count = Math.min(LANES, sources.length - from);
+			for (int i = 0; i < count; i++)
+				rows[from + i] = new byte[adjacency.length];
+			batch(sources, from, count, (vertex, lanes, level) -> {
+				if (level >= PathStore.FAR) {
+					fits.set(false);
+					return;
+				}
+				for (long bits = lanes; bits != 0; bits &= bits - 1)
+					rows[from + Long.numberOfTrailingZeros(bits)][vertex] = (byte) (level + 1);
+			});
+		});
+		return fits.get();
+	}
+
+	/**
+	 * @param n number of vertices
+	 * @return the ids 0 .. n-1
+	 */
+	static int[] allVertices(int n) {
+		int[] ids = new int[n];
+		Arrays.setAll(ids, i -> i);
+		return ids;
+	}
+}
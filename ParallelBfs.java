@@ -0,0 +1,235 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Level synchronous breadth first search spread over all cores, for graphs where one search touches millions
+ * of vertices.
+ *
+ * The graph is copied into compressed sparse row form (one offsets array, one targets array). Each level is
+ * expanded either top down (every frontier vertex claims its unvisited neighbors) or bottom up (every unvisited
+ * vertex looks for any neighbor in the frontier and stops at the first), choosing per level as in Beamer's
+ * direction-optimizing search: bottom up once the edges out of the frontier outnumber a fraction of the
+ * unexplored edges, back to top down once the frontier is small again. Visited and frontier marks are bitsets
+ * of longs updated with compare-and-set.
+ *
+ * Which thread reaches a vertex first is not deterministic, so predecessors are chosen in a separate parallel
+ * pass: the neighbor one level closer to the source with the smallest rank, exactly as {@link UnitWeightSearch}
+ * picks them. Distances and predecessors are therefore identical to the sequential search.
+ */
+class ParallelBfs implements PathSearch {
+
+	/**
+	 * Go bottom up when edges out of the frontier exceed unexplored edges / ALPHA
+	 */
+	private static final int ALPHA = 14;
+
+	/**
+	 * Go back to top down when the frontier holds fewer than n / BETA vertices
+	 */
+	private static final int BETA = 24;
+
+	/**
+	 * Work below this many vertices or edges is not worth splitting between threads
+	 */
+	private static final int GRAIN = 4096;
+
+	private final int n;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] rank;
+	private final int[] dist;
+	private final int[] pred;
+	private final AtomicLongArray visited;
+	private final AtomicLongArray frontierBits;
+	private final AtomicLongArray nextBits;
+	private int[] frontier;
+	private int[] next;
+	private int source;
+
+	/**
+	 * Creates a search engine over a fixed adjacency snapshot.
+	 *
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v
+	 * @param rank rank[v] is the tie-break order of vertex v (lower rank wins)
+	 */
+	ParallelBfs(int[][] adjacency, int[] rank) {
+		this.n = adjacency.length;
+		this.offsets = new int[n + 1];
+		for (int v = 0; v < n; v++)
+			offsets[v + 1] = offsets[v] + adjacency[v].length;
+		this.targets = new int[offsets[n]];
+		for (int v = 0; v < n; v++)
+			System.arraycopy(adjacency[v], 0, targets, offsets[v], adjacency[v].length);
+		this.rank = rank;
+		this.dist = new int[n];
+		this.pred = new int[n];
+		int words = (n + 63) >>> 6;
+		this.visited = new AtomicLongArray(words);
+		this.frontierBits = new AtomicLongArray(words);
+		this.nextBits = new AtomicLongArray(words);
+		this.frontier = new int[n];
+		this.next = new int[n];
+		this.source = -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void search(int source) {
+		this.source = source;
+		Arrays.fill(dist, UNREACHED);
+		for (int i = 0; i < visited.length(); i++)
+			visited.set(i, 0);
+		dist[source] = 0;
+		set(visited, source);
+		frontier[0] = source;
+		int size = 1;
+		long unexplored = targets.length;
+		boolean bottomUp = false;
+		for (int level = 1; size > 0; level++) {
+			long frontierEdges = 0;
+			for (int i = 0; i < size; i++)
+				frontierEdges += offsets[frontier[i] + 1] - offsets[frontier[i]];
+			unexplored -= frontierEdges;
+			if (!bottomUp && frontierEdges > unexplored / ALPHA)
+				bottomUp = true;
+			else if (bottomUp && size < n / BETA)
+				bottomUp = false;
+			size = bottomUp ? bottomUpStep(size, level) : topDownStep(size, level);
+			int[] swap = frontier;
+			frontier = next;
+			next = swap;
+		}
+		choosePredecessors();
+	}
+
+	/**
+	 * Every frontier vertex claims its unvisited neighbors.
+	 *
+	 * @return size of the next frontier
+	 */
+	private int topDownStep(int size, int level) {
+		AtomicInteger tail = new AtomicInteger();
+		int[] current = frontier;
+		int[] claimed = next;
+		range(size, size).forEach(i -> {
+			int u = current[i];
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				if (!get(visited, v) && set(visited, v)) {
+					dist[v] = level;
+					claimed[tail.getAndIncrement()] = v;
+				}
+			}
+		});
+		return tail.get();
+	}
+
+	/**
+	 * Every unvisited vertex joins the next frontier if any neighbor is in the current one.
+	 *
+	 * @return size of the next frontier
+	 */
+	private int bottomUpStep(int size, int level) {
+		for (int i = 0; i < frontierBits.length(); i++)
+			frontierBits.set(i, 0);
+		for (int i = 0; i < size; i++)
+			set(frontierBits, frontier[i]);
+		range(n, targets.length).forEach(v -> {
+			if (get(visited, v))
+				return;
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				if (get(frontierBits, targets[e])) {
+					dist[v] = level;
+					set(nextBits, v);
+					return;
+				}
+			}
+		});
+		// only this step's vertices are set in nextBits, collect them in id order and clear the bits
+		int count = 0;
+		for (int word = 0; word < nextBits.length(); word++) {
+			long bits = nextBits.get(word);
+			if (bits == 0)
+				continue;
+			nextBits.set(word, 0);
+			visited.set(word, visited.get(word) | bits);
+			for (; bits != 0; bits &= bits - 1)
+				next[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+		}
+		return count;
+	}
+
+	/**
+	 * Picks the predecessor of every reached vertex: its neighbor one level closer with the smallest rank.
+	 */
+	private void choosePredecessors() {
+		range(n, targets.length).forEach(v -> {
+			int best = -1;
+			if (dist[v] > 0) {
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					int u = targets[e];
+					if (dist[u] == dist[v] - 1 && (best == -1 || rank[u] < rank[best]))
+						best = u;
+				}
+			}
+			pred[v] = best;
+		});
+	}
+
+	/**
+	 * @return the ids 0 .. count-1, parallel if work (vertices or edges to scan) is large enough
+	 */
+	private static IntStream range(int count, long work) {
+		IntStream ids = IntStream.range(0, count);
+		return work >= GRAIN ? ids.parallel() : ids;
+	}
+
+	private static boolean get(AtomicLongArray bits, int v) {
+		return (bits.get(v >>> 6) & (1L << v)) != 0;
+	}
+
+	/**
+	 * Sets the bit of v.
+	 *
+	 * @return true if this call set it, false if it was already set
+	 */
+	private static boolean set(AtomicLongArray bits, int v) {
+		int word = v >>> 6;
+		long mask = 1L << v;
+		while (true) {
+			long old = bits.get(word);
+			if ((old & mask) != 0)
+				return false;
+			if (bits.compareAndSet(word, old, old | mask))
+				return true;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getDistance(int v) {
+		return dist[v];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPred(int v) {
+		return pred[v];
+	}
+}
@@ -0,0 +1,367 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Bounded cache of shortest path answers with W-TinyLFU eviction.
+ *
+ * New entries enter a small LRU window (1% of the budget). When the window overflows, its oldest entry becomes
+ * a candidate for the main space, a segmented LRU (probation and protected). The candidate is only admitted if a
+ * {@link FrequencySketch} estimates it has been asked for more often than the entry it would push out, so a burst
+ * of one-off queries can not flush the popular word pairs. The sketch halves its counters periodically, letting
+ * pairs that used to be popular age out.
+ *
+ * Keys are symmetric: (A, B) and (B, A) share one entry and the path is reversed on the way out.
+ * The budget is in estimated bytes of the cached paths. All operations take one lock; paths are computed outside
+ * of it, and an answer computed before {@link #invalidateAll()} is never stored.
+ */
+public class PathCache {
+
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+
+	/**
+	 * Cache entry, linked into the LRU list of its segment.
+	 */
+	private static class Node {
+		final String key;
+		final List<String> path;
+		final long weight;
+		int segment;
+		Node prev;
+		Node next;
+
+		Node(String key, List<String> path, long weight) {
+			this.key = key;
+			this.path = path;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * Count-min sketch of 4 rows with counters saturating at 15, halved after every sample period.
+	 */
+	static class FrequencySketch {
+		private static final int ROWS = 4;
+		private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+		private final byte[][] table;
+		private final int mask;
+		private final int samplePeriod;
+		private int additions;
+
+		/**
+		 * @param expectedEntries about how many entries the cache holds
+		 */
+		FrequencySketch(int expectedEntries) {
+			int width = Integer.highestOneBit(Math.max(expectedEntries, 16) * 2 - 1);
+			table = new byte[ROWS][width];
+			mask = width - 1;
+			samplePeriod = 10 * width;
+		}
+
+		private int index(int hash, int row) {
+			int h = hash * SEEDS[row];
+			return (h ^ (h >>> 16)) & mask;
+		}
+
+		/**
+		 * Counts one access of the key.
+		 */
+		void increment(int hash) {
+			boolean added = false;
+			for (int row = 0; row < ROWS; row++) {
+				int i = index(hash, row);
+				if (table[row][i] < 15) {
+					table[row][i]++;
+					added = true;
+				}
+			}
+			if (added && ++additions >= samplePeriod)
+				reset();
+		}
+
+		/**
+		 * @return estimated number of recent accesses of the key
+		 */
+		int frequency(int hash) {
+			int min = 15;
+			for (int row = 0; row < ROWS; row++)
+				min = Math.min(min, table[row][index(hash, row)]);
+			return min;
+		}
+
+		private void reset() {
+			for (byte[] row : table) {
+				for (int i = 0; i < row.length; i++)
+					row[i] >>= 1;
+			}
+			additions /= 2;
+		}
+	}
+
+	private final long maxBytes;
+	private final long windowMax;
+	private final long protectedMax;
+	private final HashMap<String, Node> entries;
+	private final Node[] heads;
+	private final long[] weights;
+	private final FrequencySketch sketch;
+	private final ReentrantLock lock;
+	private long generation;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Creates an empty cache.
+	 *
+	 * @param maxBytes memory budget for the cached paths, in estimated bytes
+	 */
+	public PathCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+		this.windowMax = Math.max(maxBytes / 100, 1);
+		this.protectedMax = (maxBytes - windowMax) * 4 / 5;
+		this.entries = new HashMap<String, Node>();
+		this.heads = new Node[3];
+		for (int s = 0; s < heads.length; s++) {
+			heads[s] = new Node(null, null, 0);
+			heads[s].prev = heads[s].next = heads[s];
+		}
+		this.weights = new long[3];
+		// a typical path weighs a few hundred bytes
+		this.sketch = new FrequencySketch((int) Math.min(maxBytes / 256, 1 << 24));
+		this.lock = new ReentrantLock();
+	}
+
+	/**
+	 * Gets the cached path between two words, computing and caching it on a miss.
+	 *
+	 * @param word1 first (normalized) word
+	 * @param word2 second (normalized) word
+	 * @param loader computes the path from word1 to word2 on a miss; null answers are returned but not cached
+	 * @return the path from word1 to word2 (unmodifiable)
+	 */
+	public List<String> get(String word1, String word2, BiFunction<String, String, List<String>> loader) {
+		boolean forward = word1.compareTo(word2) <= 0;
+		String first = forward ? word1 : word2;
+		String second = forward ? word2 : word1;
+		String key = first + '\u0000' + second;
+		long seen;
+		lock.lock();
+		try {
+			sketch.increment(key.hashCode());
+			Node node = entries.get(key);
+			if (node != null) {
+				hits++;
+				onHit(node);
+				return orient(node.path, forward);
+			}
+			misses++;
+			seen = generation;
+		} finally {
+			lock.unlock();
+		}
+		List<String> path = loader.apply(first, second);
+		if (path == null)
+			return null;
+		if (!(path instanceof WordPath))
+			path = Collections.unmodifiableList(new ArrayList<String>(path));
+		long weight = weigh(path);
+		lock.lock();
+		try {
+			if (seen == generation && weight <= maxBytes && !entries.containsKey(key)) {
+				Node node = new Node(key, path, weight);
+				entries.put(key, node);
+				link(node, WINDOW);
+				evict();
+			}
+		} finally {
+			lock.unlock();
+		}
+		return orient(path, forward);
+	}
+
+	/**
+	 * Drops every entry, to be called whenever the graph changes.
+	 */
+	public void invalidateAll() {
+		lock.lock();
+		try {
+			generation++;
+			entries.clear();
+			for (int s = 0; s < heads.length; s++) {
+				heads[s].prev = heads[s].next = heads[s];
+				weights[s] = 0;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of lookups answered from the cache
+	 */
+	public long getHitCount() {
+		lock.lock();
+		try {
+			return hits;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of lookups that had to compute the path
+	 */
+	public long getMissCount() {
+		lock.lock();
+		try {
+			return misses;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of entries evicted or refused admission to make room
+	 */
+	public long getEvictionCount() {
+		lock.lock();
+		try {
+			return evictions;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return hits / (hits + misses), 0 before the first lookup
+	 */
+	public double getHitRate() {
+		lock.lock();
+		try {
+			return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return number of cached word pairs
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return entries.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return estimated bytes used by the cached paths
+	 */
+	public long getWeightedSize() {
+		lock.lock();
+		try {
+			return weights[WINDOW] + weights[PROBATION] + weights[PROTECTED];
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Estimates the heap used by one entry: the node, its key and the path list with its words
+	 * (only ids for a {@link WordPath}).
+	 *
+	 * @param path cached path
+	 * @return estimated bytes
+	 */
+	static long weigh(List<String> path) {
+		long bytes = 160;
+		if (path instanceof WordPath)
+			return bytes + 4L * path.size();
+		for (String word : path)
+			bytes += 8 + 48 + word.length();
+		return bytes;
+	}
+
+	private static List<String> orient(List<String> path, boolean forward) {
+		if (forward || path.isEmpty())
+			return path;
+		if (path instanceof WordPath)
+			return ((WordPath) path).reverse();
+		ArrayList<String> reversed = new ArrayList<String>(path);
+		Collections.reverse(reversed);
+		return Collections.unmodifiableList(reversed);
+	}
+
+	private void onHit(Node node) {
+		if (node.segment == PROBATION) {
+			// a second hit promotes the entry, which may push the oldest protected entry back to probation
+			unlink(node);
+			link(node, PROTECTED);
+			while (weights[PROTECTED] > protectedMax) {
+				Node demoted = heads[PROTECTED].prev;
+				unlink(demoted);
+				link(demoted, PROBATION);
+			}
+		} else {
+			int segment = node.segment;
+			unlink(node);
+			link(node, segment);
+		}
+	}
+
+	/**
+	 * Moves window overflow to the main space, letting the sketch decide who stays when main is full.
+	 */
+	private void evict() {
+		long mainMax = maxBytes - windowMax;
+		while (weights[WINDOW] > windowMax) {
+			Node candidate = heads[WINDOW].prev;
+			unlink(candidate);
+			link(candidate, PROBATION);
+			while (weights[PROBATION] + weights[PROTECTED] > mainMax) {
+				Node victim = heads[PROBATION].prev != candidate ? heads[PROBATION].prev : heads[PROTECTED].prev;
+				if (victim == heads[PROTECTED] || victim == candidate) {
+					remove(candidate);
+					break;
+				}
+				if (sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode())) {
+					remove(victim);
+				} else {
+					remove(candidate);
+					break;
+				}
+			}
+		}
+	}
+
+	private void remove(Node node) {
+		unlink(node);
+		entries.remove(node.key);
+		evictions++;
+	}
+
+	private void link(Node node, int segment) {
+		Node head = heads[segment];
+		node.segment = segment;
+		node.next = head.next;
+		node.prev = head;
+		head.next.prev = node;
+		head.next = node;
+		weights[segment] += node.weight;
+	}
+
+	private void unlink(Node node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = node.next = null;
+		weights[node.segment] -= node.weight;
+	}
+}
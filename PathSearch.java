@@ -0,0 +1,38 @@
+/**
+ * A single source shortest path search over vertex ids (0 .. n-1).
+ *
+ * After {@link #search(int)} the search holds a shortest path tree rooted at the source, which is read back
+ * through {@link #getDistance(int)} and {@link #getPred(int)}. Implementations reuse their arrays between
+ * searches, so one instance should not be shared by threads.
+ */
+interface PathSearch {
+
+	/**
+	 * Distance stored for vertices not reached by the last search
+	 */
+	static final int UNREACHED = -1;
+
+	/**
+	 * Computes distances and predecessors from source to every reachable vertex.
+	 *
+	 * @param source id of the start vertex
+	 */
+	void search(int source);
+
+	/**
+	 * @return id of the source of the last search, or -1 if no search was run
+	 */
+	int getSource();
+
+	/**
+	 * @param v vertex id
+	 * @return distance from the last source to v, or {@link #UNREACHED}
+	 */
+	int getDistance(int v);
+
+	/**
+	 * @param v vertex id
+	 * @return predecessor of v on the shortest path from the last source, or -1
+	 */
+	int getPred(int v);
+}
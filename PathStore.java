@@ -0,0 +1,435 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * All-pairs shortest path data kept in a memory-mapped file instead of the heap.
+ *
+ * Row s of the file holds, for the search from vertex s, one byte per vertex with the number of edges of the
+ * path (word ladders are short) followed by one int per vertex with its predecessor. Distances are read straight
+ * from the mapping. Predecessor rows are copied into the heap when a path is rebuilt and kept in an LRU that
+ * never exceeds the heap budget; the operating system pages the rest of the file in and out as needed.
+ *
+ * For unweighted graphs the store can instead hold distances only (a packed n x n byte matrix, filled by
+ * {@link MultiSourceBfs#allPairs(PathStore)}). The predecessor of v on a path from s is then derived when the
+ * path is rebuilt: the neighbor of v one step closer to s with the smallest rank, which is the predecessor
+ * {@link UnitWeightSearch} would have chosen.
+ *
+ * Rows are laid out for a capacity of vertices larger than the current count, so words can be added and removed
+ * by patching the rows and columns they touch (see {@link #resize(int, int[][], int[])}) instead of rebuilding
+ * the file. The file is split into several mappings, since one mapping can not exceed 2GB.
+ */
+class PathStore implements Closeable {
+
+	/**
+	 * Stored distance of a vertex the source can not reach
+	 */
+	static final int UNREACHED = 255;
+
+	/**
+	 * Stored distance of a path too long for one byte, its length is counted from the predecessors
+	 */
+	static final int FAR = 254;
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private int n;
+	private final int capacity;
+	private final long rowBytes;
+	private final int rowsPerSegment;
+	private final MappedByteBuffer[] segments;
+	private final LinkedHashMap<Integer, int[]> predRows;
+	private int[][] adjacency;
+	private int[] rank;
+
+	/**
+	 * Creates an empty store for n vertices.
+	 *
+	 * @param file backing file, created or truncated; deleted by {@link #close()}
+	 * @param n number of vertices
+	 * @param heapBudget bytes of heap that cached predecessor rows may use
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	PathStore(File file, int n, long heapBudget) throws IOException {
+		this(file, n, n, heapBudget, null, null);
+	}
+
+	/**
+	 * Creates an empty store for n vertices, with rows for up to capacity vertices.
+	 *
+	 * @param file backing file, created or truncated; deleted by {@link #close()}
+	 * @param n number of vertices
+	 * @param capacity largest number of vertices the rows can hold, at least n
+	 * @param heapBudget bytes of heap that cached predecessor rows may use
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	PathStore(File file, int n, int capacity, long heapBudget) throws IOException {
+		this(file, n, capacity, heapBudget, null, null);
+	}
+
+	/**
+	 * Creates an empty distance-only store, whose paths are derived from the adjacency and ranks.
+	 *
+	 * @param file backing file, created or truncated; deleted by {@link #close()}
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v (all edges of weight 1)
+	 * @param rank rank[v] is the tie-break order of vertex v (lower rank wins)
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	PathStore(File file, int[][] adjacency, int[] rank) throws IOException {
+		this(file, adjacency, rank, adjacency.length);
+	}
+
+	/**
+	 * Creates an empty distance-only store with rows for up to capacity vertices.
+	 *
+	 * @param file backing file, created or truncated; deleted by {@link #close()}
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v (all edges of weight 1)
+	 * @param rank rank[v] is the tie-break order of vertex v (lower rank wins)
+	 * @param capacity largest number of vertices the rows can hold, at least adjacency.length
+	 * @throws IOException if the file can not be created or mapped
+	 */
+	PathStore(File file, int[][] adjacency, int[] rank, int capacity) throws IOException {
+		this(file, adjacency.length, capacity, 0, adjacency, rank);
+	}
+
+	private PathStore(File file, int n, int capacity, long heapBudget, int[][] adjacency, int[] rank)
+			throws IOException {
+		if (capacity < n)
+			throw new IllegalArgumentException("capacity " + capacity + " is less than " + n + " vertices");
+		this.file = file;
+		this.n = n;
+		this.capacity = capacity;
+		this.adjacency = adjacency;
+		this.rank = rank;
+		this.rowBytes = adjacency != null ? capacity : 5L * capacity;
+		this.rowsPerSegment = (int) Math.max(1, Math.min(capacity, Integer.MAX_VALUE / Math.max(rowBytes, 1)));
+		this.raf = new RandomAccessFile(file, "rw");
+		int count = capacity == 0 ? 0 : (capacity + rowsPerSegment - 1) / rowsPerSegment;
+		this.segments = new MappedByteBuffer[count];
+		try {
+			raf.setLength(rowBytes * capacity);
+			FileChannel channel = raf.getChannel();
+			for (int i = 0; i < count; i++) {
+				long offset = (long) i * rowsPerSegment * rowBytes;
+				long size = Math.min(rowsPerSegment, capacity - (long) i * rowsPerSegment) * rowBytes;
+				segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, offset, size);
+			}
+		} catch (IOException | RuntimeException e) {
+			// the store is never returned, so nothing else would close the file
+			try {
+				raf.close();
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			file.delete();
+			throw e;
+		}
+		int maxRows = (int) Math.max(1, Math.min(capacity, heapBudget / (4L * Math.max(capacity, 1) + 64)));
+		this.predRows = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+				return size() > maxRows;
+			}
+		};
+	}
+
+	/**
+	 * @return number of vertices
+	 */
+	int size() {
+		return n;
+	}
+
+	/**
+	 * @return largest number of vertices the rows can hold
+	 */
+	int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Capacity given to a new store of n vertices: a sixteenth more, so that words added later fit in the rows.
+	 *
+	 * @param n number of vertices
+	 * @return capacity for the store
+	 */
+	static int capacityFor(int n) {
+		return (int) Math.min(Integer.MAX_VALUE, n + (n >> 4) + 16L);
+	}
+
+	/**
+	 * @return bytes of the backing file, mapped outside the heap
+	 */
+	long getFileBytes() {
+		return rowBytes * capacity;
+	}
+
+	/**
+	 * @return heap bytes of the cached predecessor rows
+	 */
+	long getHeapBytes() {
+		synchronized (predRows) {
+			return predRows.size() * (MemoryFootprint.array(4, n) + 64);
+		}
+	}
+
+	/**
+	 * @return backing file
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return true if the store holds distances only
+	 */
+	boolean isDistanceOnly() {
+		return adjacency != null;
+	}
+
+	/**
+	 * Writes one distance of a distance-only store. Distinct entries may be written from several threads.
+	 *
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @param d number of edges, at most {@link #FAR} - 1
+	 */
+	void putDistance(int source, int target, int d) {
+		// stored as d + 1 so the zeros of a new file read as unreached
+		segments[source / rowsPerSegment].put((int) ((source % rowsPerSegment) * rowBytes) + target, (byte) (d + 1));
+	}
+
+	/**
+	 * Writes the result of a search as the row of its source.
+	 *
+	 * @param search a search that has just run
+	 */
+	void putRow(PathSearch search) {
+		putRow(search.getSource(), rowImage(search, n));
+	}
+
+	/**
+	 * Encodes the result of a search as a row of a store with predecessors, so it can be computed apart from the
+	 * store and written later with {@link #putRow(int, byte[])}.
+	 *
+	 * @param search a search that has just run
+	 * @param n number of vertices of the searched graph
+	 * @return n distance bytes followed by n predecessor ints
+	 */
+	static byte[] rowImage(PathSearch search, int n) {
+		int[] hops = new int[n];
+		for (int v = 0; v < n; v++)
+			hops[v] = search.getDistance(v) == PathSearch.UNREACHED ? -1 : hopsTo(search, v, hops);
+		ByteBuffer image = ByteBuffer.allocate(5 * n);
+		for (int v = 0; v < n; v++) {
+			int d = hops[v] == -1 ? UNREACHED : Math.min(hops[v], FAR);
+			image.put(v, (byte) d);
+			image.putInt(n + 4 * v, search.getPred(v));
+		}
+		return image.array();
+	}
+
+	/**
+	 * Writes a whole row: for a distance-only store n bytes holding each distance plus one (0 if not reached),
+	 * as {@link MultiSourceBfs#rows(int[], byte[][])} gives them; otherwise a {@link #rowImage(PathSearch, int)}.
+	 *
+	 * @param source source vertex
+	 * @param image the row
+	 */
+	void putRow(int source, byte[] image) {
+		MappedByteBuffer segment = segments[source / rowsPerSegment];
+		int base = (int) ((source % rowsPerSegment) * rowBytes);
+		segment.put(base, image, 0, n);
+		if (adjacency != null)
+			return;
+		ByteBuffer row = ByteBuffer.wrap(image);
+		for (int v = 0; v < n; v++)
+			segment.putInt(base + capacity + 4 * v, row.getInt(n + 4 * v));
+		synchronized (predRows) {
+			predRows.remove(source);
+		}
+	}
+
+	/**
+	 * Marks a target as not reached in the row of a source.
+	 *
+	 * @param source source vertex
+	 * @param target target vertex
+	 */
+	void putUnreached(int source, int target) {
+		MappedByteBuffer segment = segments[source / rowsPerSegment];
+		segment.put((int) ((source % rowsPerSegment) * rowBytes) + target, (byte) (adjacency != null ? 0 : UNREACHED));
+	}
+
+	/**
+	 * Moves a vertex of a distance-only store to another id: its row, and its column in the rows of the first
+	 * {@link #size()} vertices. The row and column at the new id are overwritten.
+	 *
+	 * @param from current id of the vertex
+	 * @param to new id, below the capacity
+	 */
+	void moveVertex(int from, int to) {
+		if (adjacency == null)
+			throw new IllegalStateException("only the vertices of a distance-only store can be moved");
+		byte[] row = new byte[n];
+		segments[from / rowsPerSegment].get((int) ((from % rowsPerSegment) * rowBytes), row);
+		segments[to / rowsPerSegment].put((int) ((to % rowsPerSegment) * rowBytes), row);
+		for (int s = 0; s < n; s++) {
+			MappedByteBuffer segment = segments[s / rowsPerSegment];
+			int base = (int) ((s % rowsPerSegment) * rowBytes);
+			segment.put(base + to, segment.get(base + from));
+		}
+	}
+
+	/**
+	 * Changes the number of vertices after rows and columns have been patched, and for a distance-only store the
+	 * graph its paths are derived from. Vertices from n on must have been written before they are read.
+	 *
+	 * @param n new number of vertices, at most the capacity
+	 * @param adjacency adjacency of the new graph (ignored by a store with predecessors)
+	 * @param rank tie-break ranks of the new graph (ignored by a store with predecessors)
+	 */
+	void resize(int n, int[][] adjacency, int[] rank) {
+		if (n > capacity)
+			throw new IllegalArgumentException(n + " vertices exceed the capacity " + capacity);
+		this.n = n;
+		if (this.adjacency != null) {
+			this.adjacency = adjacency;
+			this.rank = rank;
+		}
+		synchronized (predRows) {
+			predRows.clear();
+		}
+	}
+
+	/**
+	 * Counts the edges from the source to v along the predecessors, memoized in hops (0 means not counted yet,
+	 * except for the source).
+	 */
+	private static int hopsTo(PathSearch search, int v, int[] hops) {
+		int count = 0;
+		int current = v;
+		while (current != search.getSource() && hops[current] == 0) {
+			current = search.getPred(current);
+			count++;
+		}
+		int total = count + (current == search.getSource() ? 0 : hops[current]);
+		// fill in the counts of the vertices just walked over
+		for (int w = v, h = total; w != current; w = search.getPred(w), h--)
+			hops[w] = h;
+		return total;
+	}
+
+	/**
+	 * @param source source vertex
+	 * @param target target vertex
+	 * @return number of edges on the stored path, -1 if there is none
+	 */
+	int distance(int source, int target) {
+		MappedByteBuffer segment = segments[source / rowsPerSegment];
+		int d = segment.get((int) ((source % rowsPerSegment) * rowBytes) + target) & 0xFF;
+		if (adjacency != null)
+			return d - 1;
+		if (d == UNREACHED)
+			return -1;
+		if (d == FAR)
+			return path(source, target).length - 1;
+		return d;
+	}
+
+	/**
+	 * Rebuilds the stored path between two vertices.
+	 *
+	 * @param source source vertex (the row that was searched)
+	 * @param target target vertex
+	 * @return vertex ids from source to target, empty if there is no path or source equals target
+	 */
+	int[] path(int source, int target) {
+		if (adjacency != null)
+			return derivedPath(source, target);
+		MappedByteBuffer segment = segments[source / rowsPerSegment];
+		int d = segment.get((int) ((source % rowsPerSegment) * rowBytes) + target) & 0xFF;
+		if (d == UNREACHED || source == target)
+			return new int[0];
+		int[] pred = predRow(source);
+		if (d == FAR) {
+			d = 0;
+			for (int v = target; v != source; v = pred[v])
+				d++;
+		}
+		int[] path = new int[d + 1];
+		int v = target;
+		for (int i = d; i > 0; i--) {
+			path[i] = v;
+			v = pred[v];
+		}
+		path[0] = source;
+		return path;
+	}
+
+	/**
+	 * Rebuilds a path of a distance-only store, walking back from the target one level at a time.
+	 */
+	private int[] derivedPath(int source, int target) {
+		int d = distance(source, target);
+		if (d <= 0)
+			return new int[0];
+		int[] path = new int[d + 1];
+		path[d] = target;
+		for (int i = d - 1; i >= 0; i--) {
+			int best = -1;
+			for (int u : adjacency[path[i + 1]]) {
+				if (distance(source, u) == i && (best == -1 || rank[u] < rank[best]))
+					best = u;
+			}
+			path[i] = best;
+		}
+		return path;
+	}
+
+	/**
+	 * Gets the predecessor row of a source from the heap cache, reading it from the file on a miss.
+	 */
+	private int[] predRow(int source) {
+		synchronized (predRows) {
+			int[] row = predRows.get(source);
+			if (row != null)
+				return row;
+		}
+		MappedByteBuffer segment = segments[source / rowsPerSegment];
+		int base = (int) ((source % rowsPerSegment) * rowBytes) + capacity;
+		int[] row = new int[n];
+		for (int v = 0; v < n; v++)
+			row[v] = segment.getInt(base + 4 * v);
+		synchronized (predRows) {
+			predRows.put(source, row);
+		}
+		return row;
+	}
+
+	/**
+	 * Releases the file. The store must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		synchronized (predRows) {
+			predRows.clear();
+		}
+		try {
+			raf.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			file.delete();
+		}
+	}
+}
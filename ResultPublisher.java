@@ -0,0 +1,165 @@
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the items of a lazy iterator to {@link Flow.Subscriber}s, one item for each unit of demand.
+ *
+ * Nothing is buffered: the iterator is only asked for an item once the subscriber has requested it, so the search
+ * behind the iterator advances at the pace of the subscriber. Cancelling drops the iterator and no more of its
+ * work is done. Each subscriber gets its own iterator from the supplier, taken on the first request.
+ *
+ * Items are delivered on the executor by at most one task per subscription at a time, so the signals to a
+ * subscriber never overlap and a request made from inside onNext does not recurse.
+ *
+ * @param <T> type of an item
+ */
+public final class ResultPublisher<T> implements Flow.Publisher<T> {
+
+	private final Supplier<? extends Iterator<? extends T>> source;
+	private final Executor executor;
+
+	/**
+	 * Publisher delivering on the common fork join pool.
+	 *
+	 * @param source gives a new iterator over the items for every subscriber
+	 */
+	public ResultPublisher(Supplier<? extends Iterator<? extends T>> source) {
+		this(source, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param source gives a new iterator over the items for every subscriber
+	 * @param executor runs the tasks delivering the items
+	 */
+	public ResultPublisher(Supplier<? extends Iterator<? extends T>> source, Executor executor) {
+		this.source = Objects.requireNonNull(source);
+		this.executor = Objects.requireNonNull(executor);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Nothing is computed until the subscriber requests items.
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super T> subscriber) {
+		subscriber.onSubscribe(new Delivery(Objects.requireNonNull(subscriber)));
+	}
+
+	/**
+	 * Subscription of one subscriber. request and cancel only record what was asked and schedule a drain; the
+	 * drain, which alone touches the iterator, runs on the executor.
+	 */
+	private final class Delivery implements Flow.Subscription, Runnable {
+		private final Flow.Subscriber<? super T> subscriber;
+		private final AtomicLong demand = new AtomicLong();
+		/**
+		 * Number of times a drain was asked for since the running drain started, 0 when none is running
+		 */
+		private final AtomicInteger pending = new AtomicInteger();
+		private volatile boolean cancelled;
+		private volatile Throwable invalid;
+		// only read and written by the drain
+		private Iterator<? extends T> items;
+		private boolean done;
+
+		Delivery(Flow.Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0)
+				invalid = new IllegalArgumentException("request must be positive: " + n);
+			else
+				demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+
+		private void schedule() {
+			if (pending.getAndIncrement() != 0)
+				return;
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				// no drain is running, so this thread may signal
+				cancelled = true;
+				subscriber.onError(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				drain();
+				missed = pending.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void drain() {
+			if (done)
+				return;
+			if (cancelled) {
+				finish();
+				return;
+			}
+			if (invalid != null) {
+				finish();
+				subscriber.onError(invalid);
+				return;
+			}
+			while (demand.get() > 0) {
+				if (cancelled) {
+					finish();
+					return;
+				}
+				T item;
+				try {
+					if (items == null)
+						items = source.get();
+					if (!items.hasNext()) {
+						finish();
+						subscriber.onComplete();
+						return;
+					}
+					item = items.next();
+				} catch (RuntimeException e) {
+					finish();
+					subscriber.onError(e);
+					return;
+				}
+				try {
+					subscriber.onNext(item);
+				} catch (RuntimeException e) {
+					// a subscriber that throws is treated as cancelled
+					finish();
+					return;
+				}
+				// unbounded demand is never counted down
+				demand.getAndUpdate(d -> d == Long.MAX_VALUE ? d : d - 1);
+			}
+		}
+
+		/**
+		 * Drops the iterator, ending the search behind it.
+		 */
+		private void finish() {
+			done = true;
+			items = null;
+		}
+	}
+}
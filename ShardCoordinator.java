@@ -0,0 +1,277 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs breadth first searches over a word graph split into length shards, each owned by a {@link ShardWorker}
+ * process on the same machine.
+ *
+ * Words whose lengths differ by more than the maximum edit distance are never adjacent, so a shard covering a
+ * range of lengths only has edges to the shards next to it. A search is level synchronous: each round the
+ * coordinator sends the current frontier words to the shards whose length range they can reach, every shard
+ * expands them against its own words in parallel, and the union of the answers is the next frontier.
+ * Only frontier words cross the sockets; no shard ever holds another shard's words.
+ *
+ * Created by {@link GraphProcessor#partition(String, int)}; must be closed to stop the worker processes.
+ */
+public class ShardCoordinator implements AutoCloseable {
+
+	private static final int CONNECT_TIMEOUT_MILLIS = 60000;
+
+	private final EditDistancePolicy policy;
+	private final int[] minLength;
+	private final int[] maxLength;
+	private final int[] shardSize;
+	private final Process[] processes;
+	private final Socket[] sockets;
+	private final DataInputStream[] in;
+	private final DataOutputStream[] out;
+
+	/**
+	 * Splits the dictionary into length shards and starts one worker process per shard.
+	 *
+	 * @param filepath file path to the dictionary, read by every worker
+	 * @param policy adjacency of the graph
+	 * @param shards wanted number of shards (fewer are used if the dictionary has fewer distinct lengths)
+	 * @throws IOException if the dictionary can not be read or a worker can not be started
+	 */
+	ShardCoordinator(String filepath, EditDistancePolicy policy, int shards) throws IOException {
+		this.policy = policy;
+		List<int[]> ranges = lengthRanges(filepath, shards);
+		int n = ranges.size();
+		minLength = new int[n];
+		maxLength = new int[n];
+		shardSize = new int[n];
+		processes = new Process[n];
+		sockets = new Socket[n];
+		in = new DataInputStream[n];
+		out = new DataOutputStream[n];
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		try (ServerSocket server = new ServerSocket(0, n, InetAddress.getLoopbackAddress())) {
+			server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+			for (int s = 0; s < n; s++) {
+				minLength[s] = ranges.get(s)[0];
+				maxLength[s] = ranges.get(s)[1];
+				processes[s] = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), "ShardWorker",
+						String.valueOf(server.getLocalPort()), String.valueOf(policy.getMaxDistance()),
+						String.valueOf(policy.hasTranspositions()), String.valueOf(policy.isCaseSensitive()),
+						String.valueOf(minLength[s]), String.valueOf(maxLength[s]), filepath)
+						.inheritIO().start();
+			}
+			for (int i = 0; i < n; i++) {
+				Socket socket = server.accept();
+				DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				// workers connect in any order, they identify their shard by its first length
+				int s = shardOfLength(input.readInt());
+				sockets[s] = socket;
+				in[s] = input;
+				out[s] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+				shardSize[s] = input.readInt();
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Groups the word lengths of a dictionary into contiguous ranges holding about the same number of words.
+	 */
+	private List<int[]> lengthRanges(String filepath, int shards) throws IOException {
+		TreeMap<Integer, Integer> histogram = new TreeMap<Integer, Integer>();
+		try (Stream<String> words = WordProcessor.getWordStream(filepath, policy::normalize)) {
+			words.forEach(w -> histogram.merge(w.length(), 1, Integer::sum));
+		}
+		long total = 0;
+		for (int count : histogram.values())
+			total += count;
+		List<int[]> ranges = new ArrayList<int[]>();
+		int wanted = Math.max(shards, 1);
+		int remaining = histogram.size();
+		long seen = 0;
+		int start = -1;
+		for (int length : histogram.keySet()) {
+			if (start == -1)
+				start = length;
+			seen += histogram.get(length);
+			remaining--;
+			int open = wanted - ranges.size() - 1;
+			// close the range once it reaches its share of the words, or if every later length needs its own shard
+			boolean full = seen * wanted >= total * (ranges.size() + 1) || remaining <= open;
+			if (remaining == 0 || (full && open > 0)) {
+				ranges.add(new int[] { start, length });
+				start = -1;
+			}
+		}
+		return ranges;
+	}
+
+	private int shardOfLength(int length) {
+		for (int s = 0; s < minLength.length; s++) {
+			if (length >= minLength[s] && length <= maxLength[s])
+				return s;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return number of shards (worker processes)
+	 */
+	public int getNumShards() {
+		return minLength.length;
+	}
+
+	/**
+	 * @param shard shard index
+	 * @return number of words owned by the shard
+	 */
+	public int getShardSize(int shard) {
+		return shardSize[shard];
+	}
+
+	/**
+	 * Gets the shortest path between word1 and word2 with a distributed breadth first search.
+	 * A word reached from several words of the previous level keeps the lexically smallest one as predecessor.
+	 *
+	 * @param word1 first word
+	 * @param word2 second word
+	 * @return List<String> list of the words, empty if there is no path, null if the words are equal or missing
+	 * @throws IOException if a worker can not be reached
+	 */
+	public List<String> getShortestPath(String word1, String word2) throws IOException {
+		if (word1 == null || word2 == null)
+			return null;
+		word1 = policy.normalize(word1);
+		word2 = policy.normalize(word2);
+		int source = shardOfLength(word1.length());
+		int target = shardOfLength(word2.length());
+		if (word1.equals(word2) || source == -1 || target == -1)
+			return null;
+		for (int s = 0; s < out.length; s++)
+			out[s].writeByte(ShardWorker.RESET);
+		flushAll();
+		for (int s = 0; s < in.length; s++)
+			in[s].readBoolean();
+		if (!ask(target, ShardWorker.CONTAINS, word2) || !ask(source, ShardWorker.SEED, word1))
+			return null;
+
+		ArrayList<String> frontier = new ArrayList<String>();
+		frontier.add(word1);
+		boolean found = false;
+		int k = policy.getMaxDistance();
+		for (int depth = 1; !frontier.isEmpty() && !found; depth++) {
+			// every shard gets the frontier words whose length is within reach of its own range
+			boolean[] sent = new boolean[out.length];
+			for (int s = 0; s < out.length; s++) {
+				ArrayList<String> boundary = new ArrayList<String>();
+				for (String word : frontier) {
+					if (word.length() >= minLength[s] - k && word.length() <= maxLength[s] + k)
+						boundary.add(word);
+				}
+				if (boundary.isEmpty())
+					continue;
+				sent[s] = true;
+				out[s].writeByte(ShardWorker.EXPAND);
+				out[s].writeInt(depth);
+				out[s].writeInt(boundary.size());
+				for (String word : boundary)
+					out[s].writeUTF(word);
+				out[s].flush();
+			}
+			ArrayList<String> next = new ArrayList<String>();
+			for (int s = 0; s < in.length; s++) {
+				if (!sent[s])
+					continue;
+				int size = in[s].readInt();
+				for (int i = 0; i < size; i++) {
+					String word = in[s].readUTF();
+					found |= word.equals(word2);
+					next.add(word);
+				}
+			}
+			frontier = next;
+		}
+		ArrayList<String> path = new ArrayList<String>();
+		if (!found)
+			return path;
+		// follow parents back from the target, each held by the shard owning the word
+		for (String current = word2; !current.equals(word1); ) {
+			path.add(current);
+			DataOutputStream o = out[shardOfLength(current.length())];
+			o.writeByte(ShardWorker.PARENT);
+			o.writeUTF(current);
+			o.flush();
+			current = in[shardOfLength(current.length())].readUTF();
+		}
+		path.add(word1);
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Gets the distance of the shortest path between word1 and word2.
+	 *
+	 * @param word1 first word
+	 * @param word2 second word
+	 * @return Integer distance, -1 if there is no path or the words are equal or missing
+	 * @throws IOException if a worker can not be reached
+	 */
+	public Integer getShortestDistance(String word1, String word2) throws IOException {
+		List<String> path = getShortestPath(word1, word2);
+		return path == null ? -1 : path.size() - 1;
+	}
+
+	private boolean ask(int shard, byte command, String word) throws IOException {
+		out[shard].writeByte(command);
+		out[shard].writeUTF(word);
+		out[shard].flush();
+		return in[shard].readBoolean();
+	}
+
+	private void flushAll() throws IOException {
+		for (DataOutputStream o : out)
+			o.flush();
+	}
+
+	/**
+	 * Stops every worker process.
+	 */
+	@Override
+	public void close() {
+		for (int s = 0; s < processes.length; s++) {
+			try {
+				if (out[s] != null) {
+					out[s].writeByte(ShardWorker.CLOSE);
+					out[s].flush();
+				}
+				if (sockets[s] != null)
+					sockets[s].close();
+			} catch (IOException e) {
+				// the worker is destroyed below
+			}
+		}
+		for (Process process : processes) {
+			if (process == null)
+				continue;
+			try {
+				if (!process.waitFor(5, TimeUnit.SECONDS))
+					process.destroyForcibly();
+			} catch (InterruptedException e) {
+				process.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
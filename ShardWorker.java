@@ -0,0 +1,137 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.stream.Stream;
+
+/**
+ * Worker process owning one length shard of the word graph.
+ *
+ * The worker loads the words of its length range from the dictionary into a {@link WordTrie}. Edges are never
+ * stored: the neighbors of a frontier word, in this shard, are listed by the {@link EditDistancePolicy} from the
+ * trie. During a search the worker remembers the level and BFS parent of every word of its shard that was reached.
+ *
+ * Started by {@link ShardCoordinator}, which it talks to over a socket on the loopback interface.
+ *
+ * Arguments: port maxDistance transpositions caseSensitive minLength maxLength filepath
+ */
+public class ShardWorker {
+
+	static final byte RESET = 1;
+	static final byte CONTAINS = 2;
+	static final byte SEED = 3;
+	static final byte EXPAND = 4;
+	static final byte PARENT = 5;
+	static final byte CLOSE = 6;
+
+	private final EditDistancePolicy policy;
+	private final WordTrie dictionary;
+	private final HashMap<String, Integer> level;
+	private final HashMap<String, String> parent;
+
+	/**
+	 * @param policy adjacency of the whole graph
+	 * @param dictionary words of this shard
+	 */
+	ShardWorker(EditDistancePolicy policy, WordTrie dictionary) {
+		this.policy = policy;
+		this.dictionary = dictionary;
+		this.level = new HashMap<String, Integer>();
+		this.parent = new HashMap<String, String>();
+	}
+
+	/**
+	 * Expands one BFS level: every word of this shard adjacent to a frontier word and not reached before is
+	 * reached now. A word reached from several frontier words keeps the lexically smallest one as its parent.
+	 *
+	 * @param depth level of the words being reached
+	 * @param frontier words reached at depth - 1, from any shard
+	 * @return words of this shard reached at depth
+	 */
+	ArrayList<String> expand(int depth, ArrayList<String> frontier) {
+		ArrayList<String> next = new ArrayList<String>();
+		for (String from : frontier) {
+			policy.forEachNeighbor(from, dictionary, neighbor -> {
+				Integer seen = level.get(neighbor);
+				if (seen == null) {
+					level.put(neighbor, depth);
+					parent.put(neighbor, from);
+					next.add(neighbor);
+				} else if (seen == depth && from.compareTo(parent.get(neighbor)) < 0) {
+					parent.put(neighbor, from);
+				}
+			});
+		}
+		return next;
+	}
+
+	/**
+	 * Answers coordinator commands until it sends {@link #CLOSE}.
+	 */
+	private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+		while (true) {
+			byte command = in.readByte();
+			if (command == RESET) {
+				level.clear();
+				parent.clear();
+				out.writeBoolean(true);
+			} else if (command == CONTAINS) {
+				out.writeBoolean(dictionary.contains(in.readUTF()));
+			} else if (command == SEED) {
+				String word = in.readUTF();
+				boolean present = dictionary.contains(word);
+				if (present)
+					level.put(word, 0);
+				out.writeBoolean(present);
+			} else if (command == EXPAND) {
+				int depth = in.readInt();
+				int size = in.readInt();
+				ArrayList<String> frontier = new ArrayList<String>(size);
+				for (int i = 0; i < size; i++)
+					frontier.add(in.readUTF());
+				ArrayList<String> next = expand(depth, frontier);
+				out.writeInt(next.size());
+				for (String word : next)
+					out.writeUTF(word);
+			} else if (command == PARENT) {
+				String p = parent.get(in.readUTF());
+				out.writeUTF(p == null ? "" : p);
+			} else {
+				return;
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * Entry point of the worker process.
+	 *
+	 * @param args port maxDistance transpositions caseSensitive minLength maxLength filepath
+	 * @throws IOException if the dictionary or the coordinator can not be reached
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = Integer.parseInt(args[0]);
+		EditDistancePolicy policy = new EditDistancePolicy(Integer.parseInt(args[1]),
+				Boolean.parseBoolean(args[2]), Boolean.parseBoolean(args[3]));
+		int minLength = Integer.parseInt(args[4]);
+		int maxLength = Integer.parseInt(args[5]);
+		WordTrie dictionary = new WordTrie();
+		try (Stream<String> words = WordProcessor.getWordStream(args[6], policy::normalize)) {
+			words.filter(w -> w.length() >= minLength && w.length() <= maxLength).forEach(dictionary::add);
+		}
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			// tells the coordinator which shard is ready and how many words it owns
+			out.writeInt(minLength);
+			out.writeInt(dictionary.size());
+			out.flush();
+			new ShardWorker(policy, dictionary).serve(in, out);
+		}
+	}
+}
@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * All shortest paths (by number of edges) between a source and a target vertex, kept as a DAG.
+ *
+ * One breadth first search from the source gives every vertex its level. A backward sweep from the target keeps
+ * only the vertices that lie on some shortest path, and the DAG edges go from one level to the next. Paths are
+ * never stored: {@link #iterator()} walks the DAG depth first and builds one path at a time, and
+ * {@link #count()} sums path counts per vertex without enumerating anything.
+ */
+class ShortestPathDag implements Iterable<int[]> {
+
+	private final int source;
+	private final int target;
+	private final int length;
+	private final int[][] successors;
+
+	/**
+	 * Builds the DAG of shortest paths from source to target.
+	 *
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v
+	 * @param rank rank[v] orders the successors of a vertex, so paths come out in lexical order
+	 * @param source id of the start vertex
+	 * @param target id of the end vertex
+	 */
+	ShortestPathDag(int[][] adjacency, int[] rank, int source, int target) {
+		this.source = source;
+		this.target = target;
+		int n = adjacency.length;
+		int[] dist = new int[n];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		dist[source] = 0;
+		queue[tail++] = source;
+		// layer by layer, stopping once the level of the target is known
+		while (head < tail && dist[target] == -1) {
+			int u = queue[head++];
+			for (int v : adjacency[u]) {
+				if (dist[v] == -1) {
+					dist[v] = dist[u] + 1;
+					queue[tail++] = v;
+				}
+			}
+		}
+		this.length = source == target ? -1 : dist[target];
+		this.successors = new int[n][];
+		if (length <= 0)
+			return;
+		// walk back from the target, keeping the vertices one level closer each step
+		boolean[] onDag = new boolean[n];
+		onDag[target] = true;
+		head = tail = 0;
+		queue[tail++] = target;
+		while (head < tail) {
+			int v = queue[head++];
+			for (int u : adjacency[v]) {
+				if (dist[u] == dist[v] - 1) {
+					if (!onDag[u]) {
+						onDag[u] = true;
+						queue[tail++] = u;
+					}
+				}
+			}
+		}
+		for (int i = 0; i < tail; i++) {
+			int u = queue[i];
+			int count = 0;
+			int[] next = new int[adjacency[u].length];
+			for (int v : adjacency[u]) {
+				if (onDag[v] && dist[v] == dist[u] + 1)
+					next[count++] = v;
+			}
+			successors[u] = sortByRank(Arrays.copyOf(next, count), rank);
+		}
+	}
+
+	private static int[] sortByRank(int[] ids, int[] rank) {
+		// successor lists are short, insertion sort keeps them primitive
+		for (int i = 1; i < ids.length; i++) {
+			int v = ids[i];
+			int j = i - 1;
+			while (j >= 0 && rank[ids[j]] > rank[v]) {
+				ids[j + 1] = ids[j];
+				j--;
+			}
+			ids[j + 1] = v;
+		}
+		return ids;
+	}
+
+	/**
+	 * @return number of edges on every shortest path, or -1 if there is no path
+	 */
+	int length() {
+		return length;
+	}
+
+	/**
+	 * Counts the shortest paths without enumerating them.
+	 *
+	 * @return number of distinct shortest paths, Long.MAX_VALUE if the count does not fit in a long
+	 */
+	long count() {
+		if (length <= 0)
+			return 0;
+		long[] paths = new long[successors.length];
+		return countFrom(source, paths);
+	}
+
+	private long countFrom(int u, long[] paths) {
+		if (u == target)
+			return 1;
+		if (paths[u] != 0)
+			return paths[u];
+		long total = 0;
+		for (int v : successors[u]) {
+			long c = countFrom(v, paths);
+			total = total > Long.MAX_VALUE - c ? Long.MAX_VALUE : total + c;
+		}
+		paths[u] = total;
+		return total;
+	}
+
+	/**
+	 * Iterates the shortest paths in lexical order. Each path is a fresh int[] of vertex ids from source to
+	 * target; only the path being built is held in memory.
+	 */
+	@Override
+	public Iterator<int[]> iterator() {
+		return new Iterator<int[]>() {
+			private final int[] path = new int[Math.max(length + 1, 1)];
+			private final int[] cursor = new int[path.length];
+			private int resume = 0;
+			private boolean ready = false;
+			private boolean done = length <= 0;
+			{
+				path[0] = source;
+			}
+
+			@Override
+			public boolean hasNext() {
+				if (!ready && !done)
+					advance();
+				return ready;
+			}
+
+			@Override
+			public int[] next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				ready = false;
+				return path.clone();
+			}
+
+			/**
+			 * Moves the depth first walk to the next complete path.
+			 */
+			private void advance() {
+				int depth = resume;
+				while (depth >= 0) {
+					int[] next = successors[path[depth]];
+					if (cursor[depth] < next.length) {
+						path[depth + 1] = next[cursor[depth]++];
+						if (depth + 1 == length) {
+							// continue from the same vertex when the next path is requested
+							resume = depth;
+							ready = true;
+							return;
+						}
+						cursor[++depth] = 0;
+					} else {
+						depth--;
+					}
+				}
+				done = true;
+			}
+		};
+	}
+
+	/**
+	 * Converts the ids of a path to words.
+	 *
+	 * @param path vertex ids
+	 * @param words words indexed by id
+	 * @return the words of the path
+	 */
+	static List<String> toWords(int[] path, List<String> words) {
+		List<String> list = new ArrayList<String>(path.length);
+		for (int v : path)
+			list.add(words.get(v));
+		return list;
+	}
+}
@@ -0,0 +1,367 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Finds the dictionary words within a small edit distance of any string, by symmetric deletion (as in SymSpell).
+ *
+ * Every word is indexed under each string obtained by deleting up to maxDistance of its chars. Two words within
+ * edit distance d share such a string reached with at most d deletions from each side, so a query only looks up
+ * its own deletions, a number that depends on the length of the query and not on the size of the dictionary.
+ * The candidates found are then checked with the real distance.
+ *
+ * The index lives in a file that is memory-mapped read only, so opening an index that was built before costs
+ * no work: the header is read and pages come in as queries touch them. No file handle is kept; the mapping is
+ * released when the index is garbage collected. Deletion strings are not stored, only their hash buckets: a
+ * bucket lists the ids of the words with a deletion hashing into it, and hash collisions are removed by the
+ * distance check.
+ *
+ * File layout (big endian): header, word char offsets (int[words + 1]), bucket offsets (int[buckets + 1]),
+ * word ids of every bucket (int[postings]), word chars (char[]).
+ */
+public class SpellingIndex {
+
+	private static final int MAGIC = 0x53504958;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 40;
+
+	private final File file;
+	private final MappedByteBuffer buffer;
+	private final int maxDistance;
+	private final boolean transpositions;
+	private final int words;
+	private final int buckets;
+	private final long checksum;
+	private final int wordBase;
+	private final int bucketBase;
+	private final int postingBase;
+	private final int charBase;
+
+	private SpellingIndex(File file) throws IOException {
+		this.file = file;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			if (raf.length() > Integer.MAX_VALUE)
+				throw new IOException("spelling index too large to map: " + file);
+			// the mapping stays valid after the channel is closed
+			this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+		}
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+			throw new IOException("not a spelling index: " + file);
+		this.maxDistance = buffer.getInt(8);
+		this.transpositions = buffer.getInt(12) != 0;
+		this.words = buffer.getInt(16);
+		this.buckets = buffer.getInt(20);
+		int postings = buffer.getInt(24);
+		this.checksum = buffer.getLong(28);
+		this.wordBase = HEADER_BYTES;
+		this.bucketBase = wordBase + 4 * (words + 1);
+		this.postingBase = bucketBase + 4 * (buckets + 1);
+		this.charBase = postingBase + 4 * postings;
+	}
+
+	/**
+	 * Maps an index written by {@link #build(List, int, boolean, File)}.
+	 *
+	 * @param file the index file
+	 * @return SpellingIndex reading the file
+	 * @throws IOException if the file can not be read or is not an index
+	 */
+	public static SpellingIndex open(File file) throws IOException {
+		return new SpellingIndex(file);
+	}
+
+	/**
+	 * Indexes a list of words and maps the result.
+	 *
+	 * @param words the dictionary, already normalized; a word's position is its id
+	 * @param maxDistance largest edit distance that can be asked for (at least 1)
+	 * @param transpositions whether swapping two neighboring chars counts as a single edit
+	 * @param file file to write, created or replaced
+	 * @return SpellingIndex reading the new file
+	 * @throws IOException if the file can not be written
+	 */
+	public static SpellingIndex build(List<String> words, int maxDistance, boolean transpositions, File file)
+			throws IOException {
+		if (maxDistance < 1)
+			throw new IllegalArgumentException("maxDistance must be at least 1: " + maxDistance);
+		// (hash of a deletion, word id), sorted into buckets once their number is known
+		long[] pairs = new long[Math.max(16, words.size() * 8)];
+		int count = 0;
+		long chars = 0;
+		for (int id = 0; id < words.size(); id++) {
+			String word = words.get(id);
+			chars += word.length();
+			for (String deletion : deletions(word, maxDistance)) {
+				if (count == pairs.length)
+					pairs = Arrays.copyOf(pairs, pairs.length * 2);
+				pairs[count++] = ((long) mix(deletion.hashCode()) << 32) | id;
+			}
+		}
+		int buckets = Integer.highestOneBit(Math.max(count, 1) * 2 - 1);
+		for (int i = 0; i < count; i++)
+			pairs[i] = ((pairs[i] >>> 32) & (buckets - 1)) << 32 | (pairs[i] & 0xFFFFFFFFL);
+		Arrays.sort(pairs, 0, count);
+		// a word may land in the same bucket through several deletions, keep it once
+		int postings = 0;
+		for (int i = 0; i < count; i++) {
+			if (i == 0 || pairs[i] != pairs[i - 1])
+				pairs[postings++] = pairs[i];
+		}
+		if (HEADER_BYTES + 4L * (words.size() + 1) + 4L * (buckets + 1) + 4L * postings + 2 * chars > Integer.MAX_VALUE)
+			throw new IOException("spelling index too large to map: " + words.size() + " words");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 20))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(maxDistance);
+			out.writeInt(transpositions ? 1 : 0);
+			out.writeInt(words.size());
+			out.writeInt(buckets);
+			out.writeInt(postings);
+			out.writeLong(checksum(words));
+			out.writeInt(0);
+			int offset = 0;
+			out.writeInt(offset);
+			for (String word : words) {
+				offset += word.length();
+				out.writeInt(offset);
+			}
+			int p = 0;
+			out.writeInt(0);
+			for (int b = 0; b < buckets; b++) {
+				while (p < postings && (pairs[p] >>> 32) == b)
+					p++;
+				out.writeInt(p);
+			}
+			for (int i = 0; i < postings; i++)
+				out.writeInt((int) pairs[i]);
+			for (String word : words)
+				out.writeChars(word);
+		}
+		return new SpellingIndex(file);
+	}
+
+	/**
+	 * Gets every indexed word within the index's largest edit distance of a string.
+	 *
+	 * @param query any string, normalized like the indexed words
+	 * @return the words, closest first and in lexical order within a distance; the query itself if it is a word
+	 */
+	public List<String> suggest(String query) {
+		return suggest(query, maxDistance);
+	}
+
+	/**
+	 * Gets every indexed word within an edit distance of a string.
+	 *
+	 * @param query any string, normalized like the indexed words
+	 * @param distance largest edit distance of a word returned, at most {@link #getMaxDistance()}
+	 * @return the words, closest first and in lexical order within a distance; the query itself if it is a word
+	 */
+	public List<String> suggest(String query, int distance) {
+		return suggest(query, distance, Collections.<String>emptyList(), word -> true);
+	}
+
+	/**
+	 * Gets the words within the index's largest edit distance of a string from a dictionary that changed since
+	 * the index was built: indexed words that are no longer in it are skipped and the words added to it are
+	 * checked one by one, so a few changes do not need a new index file.
+	 *
+	 * @param query any string, normalized like the indexed words
+	 * @param added words added since the index was built
+	 * @param present tells whether an indexed word is still in the dictionary
+	 * @return the words, closest first and in lexical order within a distance
+	 */
+	List<String> suggest(String query, Collection<String> added, Predicate<String> present) {
+		return suggest(query, maxDistance, added, present);
+	}
+
+	private List<String> suggest(String query, int distance, Collection<String> added, Predicate<String> present) {
+		if (distance < 0 || distance > maxDistance)
+			throw new IllegalArgumentException("distance must be between 0 and " + maxDistance + ": " + distance);
+		HashSet<Integer> seen = new HashSet<Integer>();
+		ArrayList<List<String>> byDistance = new ArrayList<List<String>>();
+		for (int d = 0; d <= distance; d++)
+			byDistance.add(new ArrayList<String>());
+		for (String deletion : deletions(query, distance)) {
+			int bucket = mix(deletion.hashCode()) & (buckets - 1);
+			int end = buffer.getInt(bucketBase + 4 * (bucket + 1));
+			for (int p = buffer.getInt(bucketBase + 4 * bucket); p < end; p++) {
+				int id = buffer.getInt(postingBase + 4 * p);
+				if (!seen.add(id))
+					continue;
+				String word = getWord(id);
+				if (Math.abs(word.length() - query.length()) > distance || !present.test(word))
+					continue;
+				int d = distance(query, word, transpositions, distance);
+				if (d <= distance)
+					byDistance.get(d).add(word);
+			}
+		}
+		for (String word : added) {
+			if (Math.abs(word.length() - query.length()) > distance)
+				continue;
+			int d = distance(query, word, transpositions, distance);
+			// a word removed and added again is also in the index
+			if (d <= distance && !byDistance.get(d).contains(word))
+				byDistance.get(d).add(word);
+		}
+		ArrayList<String> suggestions = new ArrayList<String>();
+		for (List<String> group : byDistance) {
+			Collections.sort(group);
+			suggestions.addAll(group);
+		}
+		return suggestions;
+	}
+
+	/**
+	 * @param id word id
+	 * @return the indexed word with that id
+	 */
+	public String getWord(int id) {
+		if (id < 0 || id >= words)
+			throw new IndexOutOfBoundsException("id " + id + ", size " + words);
+		int start = buffer.getInt(wordBase + 4 * id);
+		char[] chars = new char[buffer.getInt(wordBase + 4 * (id + 1)) - start];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = buffer.getChar(charBase + 2 * (start + i));
+		return new String(chars);
+	}
+
+	/**
+	 * @return number of indexed words
+	 */
+	public int size() {
+		return words;
+	}
+
+	/**
+	 * @return largest edit distance the index can answer
+	 */
+	public int getMaxDistance() {
+		return maxDistance;
+	}
+
+	/**
+	 * @return whether swapping two neighboring chars counts as a single edit
+	 */
+	public boolean hasTranspositions() {
+		return transpositions;
+	}
+
+	/**
+	 * @return the index file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return bytes of the index file, mapped outside the heap
+	 */
+	public long getFileBytes() {
+		return buffer.capacity();
+	}
+
+	/**
+	 * @param words a list of words
+	 * @param maxDistance largest edit distance
+	 * @param transpositions whether swapping two neighboring chars counts as a single edit
+	 * @return true if the index was built from exactly these words with these settings
+	 */
+	boolean matches(List<String> words, int maxDistance, boolean transpositions) {
+		return this.maxDistance == maxDistance && this.transpositions == transpositions
+				&& this.words == words.size() && checksum == checksum(words);
+	}
+
+	/**
+	 * @return the string and every string made by deleting up to max of its chars
+	 */
+	static HashSet<String> deletions(String word, int max) {
+		HashSet<String> all = new HashSet<String>();
+		all.add(word);
+		List<String> level = Collections.singletonList(word);
+		for (int d = 1; d <= max && !level.isEmpty(); d++) {
+			ArrayList<String> next = new ArrayList<String>();
+			for (String s : level) {
+				for (int i = 0; i < s.length(); i++) {
+					String deleted = s.substring(0, i) + s.substring(i + 1);
+					if (all.add(deleted))
+						next.add(deleted);
+				}
+			}
+			level = next;
+		}
+		return all;
+	}
+
+	/**
+	 * Edit distance between two strings (optimal string alignment when transpositions count), stopping early
+	 * once it exceeds max.
+	 *
+	 * @return the distance, or max + 1 if it is larger than max
+	 */
+	static int distance(String a, String b, boolean transpositions, int max) {
+		int[] before = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++)
+			previous[j] = j;
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMin = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				int d = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+				if (transpositions && i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2)
+						&& a.charAt(i - 2) == b.charAt(j - 1))
+					d = Math.min(d, before[j - 2] + 1);
+				current[j] = d;
+				rowMin = Math.min(rowMin, d);
+			}
+			if (rowMin > max)
+				return max + 1;
+			int[] swap = before;
+			before = previous;
+			previous = current;
+			current = swap;
+		}
+		return Math.min(previous[b.length()], max + 1);
+	}
+
+	/**
+	 * Spreads the bits of a String hash, which is fixed by the language, so buckets match across runs.
+	 */
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * FNV-1a hash of the words in order, to tell whether an index file still matches a dictionary.
+	 */
+	private static long checksum(List<String> words) {
+		long hash = 0xCBF29CE484222325L;
+		for (String word : words) {
+			for (int i = 0; i < word.length(); i++)
+				hash = (hash ^ word.charAt(i)) * 0x100000001B3L;
+			hash = (hash ^ 0xFFFF) * 0x100000001B3L;
+		}
+		return hash;
+	}
+}
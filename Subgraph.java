@@ -0,0 +1,171 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only graph holding a neighborhood cut out of a larger graph, see
+ * {@link GraphTraversal#neighborhood(java.util.Collection, int, int, long)}.
+ *
+ * Vertices are numbered in the order they were reached and edges are kept in compressed sparse row form (one
+ * offsets array, one targets array), so the whole subgraph is a few arrays plus the vertex index. It does not
+ * change: addVertex, removeVertex, addEdge and removeEdge return null or false.
+ *
+ * @param <E> type of a vertex
+ */
+public class Subgraph<E> implements GraphADT<E> {
+
+	private final List<E> vertices;
+	private final HashMap<E, Integer> index;
+	private final int[] depth;
+	private final int[] offsets;
+	private final int[] targets;
+	private final boolean complete;
+
+	/**
+	 * @param vertices the vertices by id
+	 * @param depth depth[v] is the number of edges from the nearest seed to vertex v
+	 * @param edges edges as pairs of vertex ids, each undirected edge once
+	 * @param edgeCount number of edges in edges
+	 * @param complete false if a budget cut the neighborhood short
+	 */
+	Subgraph(List<E> vertices, int[] depth, int[] edges, int edgeCount, boolean complete) {
+		int n = vertices.size();
+		this.vertices = Collections.unmodifiableList(vertices);
+		this.depth = depth;
+		this.complete = complete;
+		this.index = new HashMap<E, Integer>(Math.max(16, (int) (n / 0.75f) + 1));
+		for (int v = 0; v < n; v++)
+			index.put(vertices.get(v), v);
+		this.offsets = new int[n + 1];
+		for (int e = 0; e < 2 * edgeCount; e++)
+			offsets[edges[e] + 1]++;
+		for (int v = 0; v < n; v++)
+			offsets[v + 1] += offsets[v];
+		this.targets = new int[2 * edgeCount];
+		int[] fill = Arrays.copyOf(offsets, n);
+		for (int e = 0; e < edgeCount; e++) {
+			int a = edges[2 * e];
+			int b = edges[2 * e + 1];
+			targets[fill[a]++] = b;
+			targets[fill[b]++] = a;
+		}
+	}
+
+	/**
+	 * The subgraph can not change, returns null.
+	 */
+	@Override
+	public E addVertex(E vertex) {
+		return null;
+	}
+
+	/**
+	 * The subgraph can not change, returns null.
+	 */
+	@Override
+	public E removeVertex(E vertex) {
+		return null;
+	}
+
+	/**
+	 * The subgraph can not change, returns false.
+	 */
+	@Override
+	public boolean addEdge(E vertex1, E vertex2) {
+		return false;
+	}
+
+	/**
+	 * The subgraph can not change, returns false.
+	 */
+	@Override
+	public boolean removeEdge(E vertex1, E vertex2) {
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isAdjacent(E vertex1, E vertex2) {
+		Integer a = vertex1 == null ? null : index.get(vertex1);
+		Integer b = vertex2 == null ? null : index.get(vertex2);
+		if (a == null || b == null)
+			return false;
+		for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+			if (targets[e] == b)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The neighbors are read from the edge arrays as the iterator advances, no list is built.
+	 */
+	@Override
+	public Iterable<E> getNeighbors(E vertex) {
+		Integer v = vertex == null ? null : index.get(vertex);
+		if (v == null)
+			return null;
+		return () -> new Iterator<E>() {
+			private int e = offsets[v];
+
+			@Override
+			public boolean hasNext() {
+				return e < offsets[v + 1];
+			}
+
+			@Override
+			public E next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return vertices.get(targets[e++]);
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The vertices are in the order they were reached, seeds first.
+	 */
+	@Override
+	public Iterable<E> getAllVertices() {
+		return vertices;
+	}
+
+	/**
+	 * @param vertex a vertex
+	 * @return number of edges from the nearest seed to vertex, -1 if it is not in the subgraph
+	 */
+	public int getDepth(E vertex) {
+		Integer v = vertex == null ? null : index.get(vertex);
+		return v == null ? -1 : depth[v];
+	}
+
+	/**
+	 * @return number of vertices
+	 */
+	public int getVertexCount() {
+		return vertices.size();
+	}
+
+	/**
+	 * @return number of edges
+	 */
+	public int getEdgeCount() {
+		return targets.length / 2;
+	}
+
+	/**
+	 * @return true if the subgraph holds the whole neighborhood, false if the vertex or edge budget cut it short
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+}
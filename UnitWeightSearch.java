@@ -0,0 +1,110 @@
+import java.util.Arrays;
+
+/**
+ * Single source shortest path search for graphs where every edge has weight 1.
+ *
+ * Vertices are identified by primitive ids (0 .. n-1) and the adjacency of each vertex is given as an int[] of
+ * neighbor ids. Since all edges have the same weight, the FIFO queue of a breadth first search already is a
+ * bucket queue: vertices leave it in non-decreasing order of distance, so no priority queue, comparator or
+ * boxed weights are needed and no vertex is ever queued twice.
+ *
+ * Ties are broken the same way as a Dijkstra search that orders its queue by (distance, word): the predecessor
+ * of a vertex is the neighbor with the smallest rank among all neighbors one level closer to the source.
+ *
+ * The arrays used by a search are allocated once and reused, so one instance should not be shared by threads.
+ */
+class UnitWeightSearch implements PathSearch {
+
+	private final int[][] adjacency;
+	private final int[] rank;
+	private final int[] dist;
+	private final int[] pred;
+	private final int[] queue;
+	private int source;
+
+	/**
+	 * Creates a search engine over a fixed adjacency snapshot.
+	 *
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v
+	 * @param rank rank[v] is the tie-break order of vertex v (lower rank wins)
+	 */
+	UnitWeightSearch(int[][] adjacency, int[] rank) {
+		this.adjacency = adjacency;
+		this.rank = rank;
+		int n = adjacency.length;
+		this.dist = new int[n];
+		this.pred = new int[n];
+		this.queue = new int[n];
+		this.source = -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void search(int source) {
+		this.source = source;
+		Arrays.fill(dist, UNREACHED);
+		Arrays.fill(pred, -1);
+		int head = 0;
+		int tail = 0;
+		dist[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int u = queue[head++];
+			int next = dist[u] + 1;
+			for (int v : adjacency[u]) {
+				if (dist[v] == UNREACHED) {
+					// first time reached, v is now in the bucket for distance next
+					dist[v] = next;
+					pred[v] = u;
+					queue[tail++] = v;
+				} else if (dist[v] == next && rank[u] < rank[pred[v]]) {
+					// another neighbor on the previous level, keep the one that sorts first
+					pred[v] = u;
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getDistance(int v) {
+		return dist[v];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPred(int v) {
+		return pred[v];
+	}
+
+	/**
+	 * Gives the lexical rank of every id, so the search can break ties without comparing strings.
+	 *
+	 * @param words words indexed by id
+	 * @return rank[v] is the position of words[v] in sorted order
+	 */
+	static int[] lexicalRank(String[] words) {
+		Integer[] order = new Integer[words.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> words[a].compareTo(words[b]));
+		int[] rank = new int[words.length];
+		for (int i = 0; i < order.length; i++)
+			rank[order[i]] = i;
+		return rank;
+	}
+}
@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+/**
+ * Vertex numberings that put neighbors close together, so that searches over an int[][] adjacency touch
+ * memory in order instead of jumping across the whole graph.
+ *
+ * Each method returns a permutation order where order[i] is the old id of the vertex that gets new id i;
+ * {@link #relabel(int[][], int[], int[])} applies it. Every connected component is numbered as one block.
+ */
+class VertexOrdering {
+
+	private VertexOrdering() {
+	}
+
+	/**
+	 * Breadth first order: each component from its first vertex, neighbors in adjacency order.
+	 */
+	static int[] breadthFirst(int[][] adjacency) {
+		int n = adjacency.length;
+		int[] order = new int[n];
+		boolean[] seen = new boolean[n];
+		int tail = 0;
+		for (int start = 0; start < n; start++) {
+			if (seen[start])
+				continue;
+			seen[start] = true;
+			order[tail++] = start;
+			for (int head = tail - 1; head < tail; head++) {
+				for (int u : adjacency[order[head]]) {
+					if (!seen[u]) {
+						seen[u] = true;
+						order[tail++] = u;
+					}
+				}
+			}
+		}
+		return order;
+	}
+
+	/**
+	 * Reverse Cuthill-McKee order: each component is searched breadth first from a vertex of least degree,
+	 * visiting the neighbors of a vertex by increasing degree, and the whole order is reversed. This keeps the
+	 * ids of the two ends of every edge close (a small bandwidth).
+	 */
+	static int[] reverseCuthillMcKee(int[][] adjacency) {
+		int n = adjacency.length;
+		int[] byDegree = byDegree(adjacency, false);
+		int[] order = new int[n];
+		boolean[] seen = new boolean[n];
+		int[] rankOfDegree = new int[n];
+		for (int i = 0; i < n; i++)
+			rankOfDegree[byDegree[i]] = i;
+		int[] neighbors = new int[0];
+		int tail = 0;
+		for (int start : byDegree) {
+			if (seen[start])
+				continue;
+			seen[start] = true;
+			order[tail++] = start;
+			for (int head = tail - 1; head < tail; head++) {
+				int[] row = adjacency[order[head]];
+				if (neighbors.length < row.length)
+					neighbors = new int[row.length];
+				int count = 0;
+				for (int u : row) {
+					if (!seen[u]) {
+						seen[u] = true;
+						// sorted by position in the degree order, which is by degree with ties by id
+						neighbors[count++] = rankOfDegree[u];
+					}
+				}
+				Arrays.sort(neighbors, 0, count);
+				for (int i = 0; i < count; i++)
+					order[tail++] = byDegree[neighbors[i]];
+			}
+		}
+		for (int i = 0, j = n - 1; i < j; i++, j--) {
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+		return order;
+	}
+
+	/**
+	 * Vertices by decreasing degree, so the hubs every search passes through share the first cache lines.
+	 */
+	static int[] degree(int[][] adjacency) {
+		return byDegree(adjacency, true);
+	}
+
+	/**
+	 * Sorts the ids by degree with a counting sort, ties by id.
+	 */
+	private static int[] byDegree(int[][] adjacency, boolean decreasing) {
+		int n = adjacency.length;
+		int max = 0;
+		for (int[] row : adjacency)
+			max = Math.max(max, row.length);
+		int[] start = new int[max + 2];
+		for (int[] row : adjacency)
+			start[(decreasing ? max - row.length : row.length) + 1]++;
+		for (int d = 1; d < start.length; d++)
+			start[d] += start[d - 1];
+		int[] order = new int[n];
+		for (int v = 0; v < n; v++)
+			order[start[decreasing ? max - adjacency[v].length : adjacency[v].length]++] = v;
+		return order;
+	}
+
+	/**
+	 * Renumbers an adjacency (and its weights). Rows are allocated in the new order and their neighbors sorted
+	 * by new id, so a search reads them front to back.
+	 *
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v
+	 * @param weights weights[v][k] is the weight of the edge to adjacency[v][k], null if not weighted
+	 * @param order order[i] is the old id of new vertex i
+	 * @return the renumbered adjacency, then the renumbered weights if there are weights
+	 */
+	static int[][][] relabel(int[][] adjacency, int[][] weights, int[] order) {
+		int n = adjacency.length;
+		int[] newId = inverse(order);
+		int[][] nextAdjacency = new int[n][];
+		int[][] nextWeights = weights == null ? null : new int[n][];
+		for (int i = 0; i < n; i++) {
+			int[] row = adjacency[order[i]];
+			// (new neighbor id, position in the old row) packed to sort both together
+			long[] entries = new long[row.length];
+			for (int k = 0; k < row.length; k++)
+				entries[k] = ((long) newId[row[k]] << 32) | k;
+			Arrays.sort(entries);
+			nextAdjacency[i] = new int[row.length];
+			if (weights != null)
+				nextWeights[i] = new int[row.length];
+			for (int k = 0; k < row.length; k++) {
+				nextAdjacency[i][k] = (int) (entries[k] >>> 32);
+				if (weights != null)
+					nextWeights[i][k] = weights[order[i]][(int) entries[k]];
+			}
+		}
+		return new int[][][] { nextAdjacency, nextWeights };
+	}
+
+	/**
+	 * @param order a permutation
+	 * @return the inverse permutation
+	 */
+	static int[] inverse(int[] order) {
+		int[] inverse = new int[order.length];
+		for (int i = 0; i < order.length; i++)
+			inverse[order[i]] = i;
+		return inverse;
+	}
+}
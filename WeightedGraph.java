@@ -0,0 +1,202 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Undirected and weighted graph implementation
+ *
+ * Each vertex keeps its adjacent vertices in an ArrayList and the weights of those edges in an int[] at the
+ * same positions, so weights are never boxed.
+ *
+ * @param <E> type of a vertex
+ */
+public class WeightedGraph<E> implements WeightedGraphADT<E> {
+
+	/**
+	 * Vertex class. Each vertex has a word, an ArrayList of adjacent vertices and the weight of each edge.
+	 * @param <K>
+	 */
+	class Vertex<K> {
+		K word;
+		ArrayList<Vertex<K>> adjacents;
+		int[] weights;
+
+		/**
+		 * Vertex constructor.
+		 * @param word is the information held in the vertex.
+		 */
+		public Vertex(K word) {
+			this.word = word;
+			adjacents = new ArrayList<Vertex<K>>();
+			weights = new int[4];
+		}
+
+		/**
+		 * Appends an edge to this vertex.
+		 * @param other the adjacent vertex
+		 * @param weight the weight of the edge
+		 */
+		void link(Vertex<K> other, int weight) {
+			if ( adjacents.size() == weights.length ) {
+				weights = Arrays.copyOf(weights, weights.length * 2);
+			}
+			weights[adjacents.size()] = weight;
+			adjacents.add(other);
+		}
+
+		/**
+		 * Removes the edge to other, keeping weights aligned with adjacents.
+		 * @param other the adjacent vertex
+		 */
+		void unlink(Vertex<K> other) {
+			int i = adjacents.indexOf(other);
+			if ( i >= 0 ) {
+				System.arraycopy(weights, i + 1, weights, i, adjacents.size() - i - 1);
+				adjacents.remove(i);
+			}
+		}
+	}
+
+	HashMap<E, Vertex<E>> words;
+
+	/**
+	 * Graph constructor takes no parameters and creates an empty HashMap.
+	 */
+	public WeightedGraph() {
+		this.words = new HashMap<E, Vertex<E>>();
+	}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E addVertex(E vertex) {
+    		// check argument conditions
+        if ( vertex == null || words.containsKey(vertex)) {
+        		return null;
+        } else {
+        		words.put(vertex, new Vertex<E>(vertex));
+        		return vertex;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public E removeVertex(E vertex) {
+    		// check argument conditions
+        if ( vertex == null || !words.containsKey(vertex)) {
+    			return null;
+        } else {
+        		Vertex<E> oldVertex = words.get(vertex);
+        		// remove edges connecting vertex to other vertices
+        		for ( Vertex<E> v : oldVertex.adjacents ) {
+        			v.unlink(oldVertex);
+        		}
+        		words.remove(vertex);
+        		return vertex;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addEdge(E vertex1, E vertex2) {
+        return addEdge(vertex1, vertex2, 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addEdge(E vertex1, E vertex2, int weight) {
+    		// check argument conditions
+        if ( weight <= 0 || !words.containsKey(vertex1) || !words.containsKey(vertex2) || (vertex1.equals(vertex2))) {
+    			return false;
+        } else {
+	        Vertex<E> v1 = words.get(vertex1);
+	        Vertex<E> v2 = words.get(vertex2);
+	        // if edge already exists, it should not be added again
+	        if ( v1.adjacents.contains(v2) ) {
+	        		return false;
+	        } else {
+		        v1.link(v2, weight);
+		        v2.link(v1, weight);
+		        return true;
+	        }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeEdge(E vertex1, E vertex2) {
+    		// check argument conditions
+        if ( !words.containsKey(vertex1) || !words.containsKey(vertex2) || (vertex1.equals(vertex2))) {
+    			return false;
+        } else {
+	        Vertex<E> v1 = words.get(vertex1);
+	        Vertex<E> v2 = words.get(vertex2);
+	        // if edge does not already exist, it cannot be removed
+	        if ( !v1.adjacents.contains(v2) ) {
+	        		return false;
+	        } else {
+		        v1.unlink(v2);
+		        v2.unlink(v1);
+		        return true;
+	        }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAdjacent(E vertex1, E vertex2) {
+        return getWeight(vertex1, vertex2) != -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWeight(E vertex1, E vertex2) {
+    		// check argument conditions
+        if ( !words.containsKey(vertex1) || !words.containsKey(vertex2) || (vertex1.equals(vertex2))) {
+    			return -1;
+        } else {
+	        Vertex<E> v1 = words.get(vertex1);
+	        int i = v1.adjacents.indexOf(words.get(vertex2));
+	        return i < 0 ? -1 : v1.weights[i];
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<E> getNeighbors(E vertex) {
+    		// check argument conditions
+        if ( vertex == null || !words.containsKey(vertex)) {
+    			return null;
+        } else {
+        		ArrayList<E> neighbors = new ArrayList<E>();
+        		for ( Vertex<E> n : words.get(vertex).adjacents ) {
+        			neighbors.add(n.word);
+        		}
+        		return neighbors;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<E> getAllVertices() {
+        return words.keySet();
+    }
+
+}
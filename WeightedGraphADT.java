@@ -0,0 +1,39 @@
+/**
+ *
+ * A graph whose undirected edges carry a positive integer weight
+ *
+ * Edges added through {@link GraphADT#addEdge(Object, Object)} have weight 1.
+ *
+ * (none of the methods throw exceptions)
+ */
+public interface WeightedGraphADT<E> extends GraphADT<E> {
+
+	/**
+	 * Add a weighted edge between two vertices (edge is undirected)
+	 *
+	 * Valid argument conditions:
+	 * 1. both the vertices should exist in the graph
+	 * 2. vertex1 should not equal vertex2
+	 * 3. weight should be positive
+	 *
+	 * @param vertex1 the first vertex
+	 * @param vertex2 the second vertex
+	 * @param weight the cost of moving along the edge
+	 * @return true if edge added, else return false if edge can not be added (also if valid conditions are violated)
+	 */
+	public boolean addEdge(E vertex1, E vertex2, int weight);
+
+
+	/**
+	 * Get the weight of the edge between two vertices
+	 *
+	 * Valid argument conditions:
+	 * 1. both the vertices should exist in the graph
+	 * 2. vertex1 should not equal vertex2
+	 *
+	 * @param vertex1 the first vertex
+	 * @param vertex2 the second vertex
+	 * @return the weight of the edge, else return -1 if there is no edge (also if valid conditions are violated)
+	 */
+	public int getWeight(E vertex1, E vertex2);
+}
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+/**
+ * Dijkstra's algorithm over vertex ids with positive integer edge weights.
+ *
+ * Uses an {@link IndexedMinHeap} with true decrease-key, so the heap never holds more than one entry per vertex.
+ * Queued vertices with equal distance are settled in rank order and a predecessor is only replaced by a strictly
+ * shorter path, which picks the same paths as {@link UnitWeightSearch} when every weight is 1.
+ */
+class WeightedSearch implements PathSearch {
+
+	private final int[][] adjacency;
+	private final int[][] weights;
+	private final int[] dist;
+	private final int[] pred;
+	private final boolean[] settled;
+	private final IndexedMinHeap heap;
+	private int source;
+
+	/**
+	 * Creates a search engine over a fixed adjacency snapshot.
+	 *
+	 * @param adjacency adjacency[v] holds the ids of the neighbors of vertex v
+	 * @param weights weights[v][i] is the weight of the edge from v to adjacency[v][i]
+	 * @param rank rank[v] is the tie-break order of vertex v (lower rank wins)
+	 */
+	WeightedSearch(int[][] adjacency, int[][] weights, int[] rank) {
+		this.adjacency = adjacency;
+		this.weights = weights;
+		int n = adjacency.length;
+		this.dist = new int[n];
+		this.pred = new int[n];
+		this.settled = new boolean[n];
+		this.heap = new IndexedMinHeap(n, rank);
+		this.source = -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void search(int source) {
+		this.source = source;
+		Arrays.fill(dist, UNREACHED);
+		Arrays.fill(pred, -1);
+		Arrays.fill(settled, false);
+		heap.clear();
+		dist[source] = 0;
+		heap.push(source, 0);
+		while (!heap.isEmpty()) {
+			int u = heap.pop();
+			settled[u] = true;
+			int[] neighbors = adjacency[u];
+			int[] w = weights[u];
+			for (int i = 0; i < neighbors.length; i++) {
+				int v = neighbors[i];
+				if (settled[v])
+					continue;
+				int candidate = dist[u] + w[i];
+				// checks if the weight can be reduced
+				if (dist[v] == UNREACHED || candidate < dist[v]) {
+					dist[v] = candidate;
+					pred[v] = u;
+					heap.push(v, candidate);
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getDistance(int v) {
+		return dist[v];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPred(int v) {
+		return pred[v];
+	}
+}
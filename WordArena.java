@@ -0,0 +1,273 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ * Append-only store of distinct words, indexed by id in insertion order.
+ *
+ * All words live in one byte array: a word whose chars all fit in Latin-1 takes one byte per char, any other
+ * word two bytes per char. Each id has an int offset and an int encoded length (low bit set for two byte words),
+ * and an open-addressing hash table of ids (linear probing, at most half full) finds the id of a word by
+ * comparing the probe String against the stored bytes, so lookups and comparisons never build a String.
+ * A word costs its bytes plus about 16 bytes of index, against the hundreds a String in a HashMap costs.
+ *
+ * Also readable as an unmodifiable {@code List<String>}; {@link #get(int)} decodes a new String on every call.
+ * Words are only ever appended and an id keeps its word, so one thread may add words while others keep reading
+ * the ids they already hold: grown arrays are filled before they replace the old ones.
+ */
+class WordArena extends AbstractList<String> implements RandomAccess {
+
+	private byte[] bytes;
+	private int used;
+	private int[] offsets;
+	private int[] lengths;
+	private int size;
+	private int[] table;
+
+	/**
+	 * @param expectedWords number of words the arena will probably hold
+	 */
+	WordArena(int expectedWords) {
+		int capacity = Math.max(expectedWords, 16);
+		bytes = new byte[capacity * 8];
+		offsets = new int[capacity];
+		lengths = new int[capacity];
+		table = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+		Arrays.fill(table, -1);
+	}
+
+	/**
+	 * Adds a word if it is not stored yet.
+	 *
+	 * @param word the word
+	 * @return id of the word
+	 */
+	int intern(String word) {
+		int hash = hash(word);
+		int slot = slotOf(word, hash);
+		if (table[slot] != -1)
+			return table[slot];
+		boolean wide = !isLatin1(word);
+		int length = wide ? 2 * word.length() : word.length();
+		if (used + length > bytes.length)
+			bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, used + length));
+		if (size == offsets.length) {
+			offsets = Arrays.copyOf(offsets, size * 2);
+			lengths = Arrays.copyOf(lengths, size * 2);
+		}
+		for (int i = 0; i < word.length(); i++) {
+			char c = word.charAt(i);
+			if (wide) {
+				bytes[used + 2 * i] = (byte) (c >>> 8);
+				bytes[used + 2 * i + 1] = (byte) c;
+			} else {
+				bytes[used + i] = (byte) c;
+			}
+		}
+		offsets[size] = used;
+		lengths[size] = word.length() << 1 | (wide ? 1 : 0);
+		used += length;
+		table[slot] = size;
+		size++;
+		if (2 * size > table.length)
+			rehash();
+		return size - 1;
+	}
+
+	/**
+	 * @param o a word
+	 * @return id of the word, -1 if it is not stored
+	 */
+	@Override
+	public int indexOf(Object o) {
+		if (!(o instanceof String))
+			return -1;
+		String word = (String) o;
+		return table[slotOf(word, hash(word))];
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) != -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return indexOf(o);
+	}
+
+	/**
+	 * @param id word id
+	 * @return the word, as a new String
+	 */
+	@Override
+	public String get(int id) {
+		if (id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("id " + id + ", size " + size);
+		char[] chars = new char[length(id)];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = charAt(id, i);
+		return new String(chars);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param id word id
+	 * @return number of chars of the word
+	 */
+	int length(int id) {
+		return lengths[id] >>> 1;
+	}
+
+	/**
+	 * @param id word id
+	 * @param index char index
+	 * @return char of the word at index
+	 */
+	char charAt(int id, int index) {
+		if ((lengths[id] & 1) == 0)
+			return (char) (bytes[offsets[id] + index] & 0xFF);
+		int at = offsets[id] + 2 * index;
+		return (char) ((bytes[at] & 0xFF) << 8 | (bytes[at + 1] & 0xFF));
+	}
+
+	/**
+	 * Compares two stored words like {@link String#compareTo(String)}.
+	 *
+	 * @param a first word id
+	 * @param b second word id
+	 * @return negative, zero or positive as word a sorts before, with or after word b
+	 */
+	int compare(int a, int b) {
+		int length = Math.min(length(a), length(b));
+		for (int i = 0; i < length; i++) {
+			char ca = charAt(a, i);
+			char cb = charAt(b, i);
+			if (ca != cb)
+				return ca - cb;
+		}
+		return length(a) - length(b);
+	}
+
+	/**
+	 * Levenshtein distance between a stored word and another word.
+	 *
+	 * @param id word id
+	 * @param word the other word
+	 * @return least number of char insertions, deletions and replacements turning one word into the other
+	 */
+	int editDistance(int id, String word) {
+		int[] previous = new int[word.length() + 1];
+		int[] current = new int[word.length() + 1];
+		for (int j = 0; j <= word.length(); j++)
+			previous[j] = j;
+		for (int i = 1; i <= length(id); i++) {
+			current[0] = i;
+			char c = charAt(id, i - 1);
+			for (int j = 1; j <= word.length(); j++) {
+				int replace = previous[j - 1] + (c == word.charAt(j - 1) ? 0 : 1);
+				current[j] = Math.min(replace, Math.min(previous[j], current[j - 1]) + 1);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[word.length()];
+	}
+
+	/**
+	 * @return rank[id] is the position of the word in sorted order
+	 */
+	int[] lexicalRank() {
+		int[] order = IntStream.range(0, size).boxed().sorted(this::compare).mapToInt(Integer::intValue).toArray();
+		int[] rank = new int[size];
+		for (int i = 0; i < size; i++)
+			rank[order[i]] = i;
+		return rank;
+	}
+
+	/**
+	 * @return bytes used by the words and the index
+	 */
+	long getMemoryBytes() {
+		return MemoryFootprint.array(1, bytes.length) + MemoryFootprint.array(4, offsets.length)
+				+ MemoryFootprint.array(4, lengths.length) + MemoryFootprint.array(4, table.length);
+	}
+
+	/**
+	 * Estimates the bytes of an arena filled with Latin-1 words.
+	 *
+	 * @param words number of words
+	 * @param chars total length of the words
+	 * @return estimated bytes
+	 */
+	static long estimateBytes(long words, long chars) {
+		long table = Long.highestOneBit(Math.max(words, 16) * 4 - 1);
+		return MemoryFootprint.array(1, chars) + 2 * MemoryFootprint.array(4, words) + MemoryFootprint.array(4, table);
+	}
+
+	/**
+	 * Finds the slot of a word: the slot holding its id, or the empty slot where it would go.
+	 */
+	private int slotOf(String word, int hash) {
+		int mask = table.length - 1;
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int id = table[slot];
+			if (id == -1 || matches(id, word))
+				return slot;
+		}
+	}
+
+	private boolean matches(int id, String word) {
+		if (length(id) != word.length())
+			return false;
+		for (int i = 0; i < word.length(); i++) {
+			if (charAt(id, i) != word.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private void rehash() {
+		int[] next = new int[table.length * 2];
+		Arrays.fill(next, -1);
+		int mask = next.length - 1;
+		for (int id = 0; id < size; id++) {
+			int slot = hash(id) & mask;
+			while (next[slot] != -1)
+				slot = (slot + 1) & mask;
+			next[slot] = id;
+		}
+		table = next;
+	}
+
+	/**
+	 * FNV-1a over the chars of a word, mixed so that linear probing sees well spread low bits.
+	 */
+	private static int hash(String word) {
+		int h = 0x811C9DC5;
+		for (int i = 0; i < word.length(); i++)
+			h = (h ^ word.charAt(i)) * 0x01000193;
+		return h ^ (h >>> 16);
+	}
+
+	private int hash(int id) {
+		int h = 0x811C9DC5;
+		for (int i = 0; i < length(id); i++)
+			h = (h ^ charAt(id, i)) * 0x01000193;
+		return h ^ (h >>> 16);
+	}
+
+	private static boolean isLatin1(String word) {
+		for (int i = 0; i < word.length(); i++) {
+			if (word.charAt(i) > 0xFF)
+				return false;
+		}
+		return true;
+	}
+}
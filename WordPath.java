@@ -0,0 +1,92 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable path of words, kept as the vertex ids of the path and the id to word list of the graph snapshot it
+ * was found in. A word is only built when it is asked for, so passing a path around, caching it or reading its
+ * length costs one int per word.
+ *
+ * It is a read-only {@link List} of the words and compares equal to any list of the same words.
+ */
+public final class WordPath extends AbstractList<String> implements RandomAccess {
+
+	private final int[] ids;
+	private final List<String> words;
+	private final int distance;
+	private final boolean reversed;
+
+	/**
+	 * @param ids vertex ids from the first word to the last, empty if there is no path
+	 * @param words words of the snapshot by id
+	 * @param distance total weight of the edges of the path
+	 */
+	WordPath(int[] ids, List<String> words, int distance) {
+		this(ids, words, distance, false);
+	}
+
+	private WordPath(int[] ids, List<String> words, int distance, boolean reversed) {
+		this.ids = ids;
+		this.words = words;
+		this.distance = distance;
+		this.reversed = reversed;
+	}
+
+	@Override
+	public String get(int index) {
+		return words.get(getId(index));
+	}
+
+	@Override
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @param index position in the path
+	 * @return vertex id of the word at index
+	 */
+	public int getId(int index) {
+		if (index < 0 || index >= ids.length)
+			throw new IndexOutOfBoundsException("index " + index + ", size " + ids.length);
+		return ids[reversed ? ids.length - 1 - index : index];
+	}
+
+	/**
+	 * @return vertex ids of the path in order
+	 */
+	public int[] toIdArray() {
+		int[] copy = Arrays.copyOf(ids, ids.length);
+		if (reversed) {
+			for (int i = 0, j = copy.length - 1; i < j; i++, j--) {
+				int swap = copy[i];
+				copy[i] = copy[j];
+				copy[j] = swap;
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * @return number of edges of the path, -1 if there is no path
+	 */
+	public int length() {
+		return ids.length - 1;
+	}
+
+	/**
+	 * @return total weight of the edges of the path (its length when edges are not weighted), -1 if there is
+	 *         no path
+	 */
+	public int distance() {
+		return ids.length == 0 ? -1 : distance;
+	}
+
+	/**
+	 * @return the same path walked from the last word to the first, without copying it
+	 */
+	public WordPath reverse() {
+		return new WordPath(ids, words, distance, !reversed);
+	}
+}
@@ -1,7 +1,15 @@
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -65,13 +73,65 @@ public class WordProcessor {
 		 * Note: since map and filter return the updated Stream objects, they can chained together as:
 		 * 		streamOfLines.map(...).filter(a -> ...).map(...) and so on
 		 */
+		return getWordStream(filepath, String::toUpperCase);
+	}
+	
+	/**
+	 * Gets a Stream of words from the filepath, normalized by the given function.
+	 * 
+	 * The Stream only contains trimmed, non-empty words, each passed through normalize.
+	 * 
+	 * @param filepath file path to the dictionary file
+	 * @param normalize applied to every trimmed, non-empty line (for example {@link AdjacencyPolicy#normalize(String)})
+	 * @return Stream<String> stream of words read from the filepath
+	 * @throws IOException exception resulting from accessing the filepath
+	 */
+	public static Stream<String> getWordStream(String filepath, Function<String, String> normalize) throws IOException {
 		Stream <String> wordStream = Files.lines(Paths.get(filepath))
 				.map(String::trim)
 				.filter(x -> x!= null && !x.equals(""))
-				.map(String::toUpperCase);
+				.map(normalize);
 		return wordStream;
 	}
 	
+	/**
+	 * Reads the words of many dictionary files in parallel, one file per task, into a single set.
+	 * A word found in several files is kept once.
+	 * 
+	 * @param filepaths file paths to the dictionary files
+	 * @param normalize applied to every trimmed, non-empty line
+	 * @return Set<String> distinct words of all the files
+	 * @throws IOException exception resulting from accessing one of the filepaths
+	 */
+	public static Set<String> getWordSet(Collection<String> filepaths, Function<String, String> normalize) throws IOException {
+		Set<String> words = ConcurrentHashMap.newKeySet();
+		try {
+			filepaths.parallelStream().forEach(filepath -> {
+				try (Stream<String> stream = getWordStream(filepath, normalize)) {
+					stream.forEach(words::add);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return words;
+	}
+	
+	/**
+	 * Lists the regular files of a directory, such as a directory of word lists.
+	 * 
+	 * @param directory path to the directory
+	 * @return List<String> paths of the files, sorted
+	 * @throws IOException exception resulting from accessing the directory
+	 */
+	public static List<String> getDictionaryFiles(String directory) throws IOException {
+		try (Stream<Path> files = Files.list(Paths.get(directory))) {
+			return files.filter(Files::isRegularFile).map(Path::toString).sorted().collect(Collectors.toList());
+		}
+	}
+	
 	/**
 	 * Adjacency between word1 and word2 is defined by:
 	 * if the difference between word1 and word2 is of
@@ -84,78 +144,60 @@ public class WordProcessor {
 	 *  word1 and word2 are not adjacent
 	 *  
 	 * Note: if word1 is equal to word2, they are not adjacent
+	 * Note: words two edits apart are never adjacent, e.g. AC and BCA (which earlier versions accepted)
 	 * 
 	 * @param word1 first word
 	 * @param word2 second word
 	 * @return true if word1 and word2 are adjacent else false
 	 */
-public static boolean isAdjacent(String word1, String word2) {
+	public static boolean isAdjacent(String word1, String word2) {
 		
 		// Lengths must be same or a difference of only 1
 		if(Math.abs(word1.length() - word2.length()) > 1){
 			return false;
 		}
 		
-		ArrayList<Character> word1chars = new ArrayList<Character>();
-		for (char c : word1.toCharArray()) {
-		  word1chars.add(c);
+		// make word1 the longer word (if lengths differ)
+		if(word2.length() > word1.length()){
+			String temp = word1;
+			word1 = word2;
+			word2 = temp;
 		}
 		
-		ArrayList<Character> word2chars = new ArrayList<Character>();
-		for (char c : word2.toCharArray()) {
-		  word2chars.add(c);
+		// skip the common prefix
+		int i = 0;
+		while(i < word2.length() && word1.charAt(i) == word2.charAt(i)){
+			i++;
 		}
 		
-		// word 1 is 1 char longer than word 2
-		if(word1chars.size() > word2chars.size()){ 
-			for(int i = word2chars.size() -1 ; i >= 0; i--){
-				if(word2chars.get(i) == word1chars.get(i)){
-					word1chars.remove(i);
-				}
-				else if(word2chars.get(i) == word1chars.get(i + 1)){
-					word1chars.remove(i+1);
-				}
-			}
-			
-			// if the amount of unmatched characters (word1chars.size() now) is 0 or 1, they are adjacent
-			if(word1chars.size() <= 1){
-				return true;
-			}
+		// words are equal
+		if(i == word1.length()){
+			return false;
 		}
 		
-		// word 2 is 1 char longer than word 1
-		else if(word2chars.size() > word1chars.size()){ 
-			for(int i = word1chars.size() -1 ; i >= 0; i--){
-					if(word1chars.get(i) == word2chars.get(i)){
-						word2chars.remove(i);
-					}
-					else if(word1chars.get(i) == word2chars.get(i + 1)){
-						word2chars.remove(i+1);
-					}
-				}
-			
-			// if the amount of unmatched characters (word2chars.size() now) is 0 or 1, they are adjacent
-			if(word2chars.size() <= 1){
-				return true;
-			}
-			
-			}
-		
-		// words have same length
-		else{ 
-			for(int i = word1chars.size() - 1; i >= 0; i--){
-				if(word1chars.get(i) == word2chars.get(i)){ // || word1chars.get(i) == word2chars.get(i - 1)){
-					word2chars.remove(i); // remove the character they had in common
-				}
-			}
-			
-			// if the amount of unmatched characters (word2chars.size() now) is 0 or 1, they are adjacent
-			if(word2chars.size() <= 1){
-				return true;
-			}
+		// words have same length: the rest after one replaced char must match
+		if(word1.length() == word2.length()){
+			return word1.regionMatches(i + 1, word2, i + 1, word1.length() - i - 1);
 		}
 		
-		return false;	
+		// word 1 is 1 char longer than word 2: the rest after one deleted char must match
+		return word1.regionMatches(i + 1, word2, i, word2.length() - i);
+	}
+	
+	/**
+	 * Gives the cost of moving between two adjacent words by the kind of edit that separates them.
+	 * 
+	 * Words of the same length differ by a replacement, words whose lengths differ by one 
+	 * differ by an addition or a deletion.
+	 * 
+	 * Example: editCost(1, 2) makes CAT -> HAT cost 1 and CAT -> CHAT cost 2
+	 * 
+	 * @param replacement cost of a 1 char replacement
+	 * @param additionDeletion cost of a 1 char addition or deletion
+	 * @return function giving the cost of the edge between two adjacent words
+	 */
+	public static ToIntBiFunction<String, String> editCost(int replacement, int additionDeletion) {
+		return (word1, word2) -> word1.length() == word2.length() ? replacement : additionDeletion;
 	}
 	
 }
@@ -0,0 +1,148 @@
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Trie over a dictionary of words, used to find every word close to a query word.
+ *
+ * Children of a node are kept in a char[] sorted by character, so words are visited in sorted order.
+ * {@link #forEachMatch(LevenshteinAutomaton, Consumer)} walks the trie and the automaton together and stops at the
+ * first node from which no accepted word can be reached, so it only touches the part of the dictionary near
+ * the query instead of comparing against every word.
+ */
+class WordTrie {
+
+	/**
+	 * Trie node. word is non-null if a dictionary word ends at this node.
+	 */
+	private static class Node {
+		char[] keys = new char[0];
+		Node[] children = new Node[0];
+		String word;
+
+		Node child(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i < 0 ? null : children[i];
+		}
+
+		Node addChild(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			if (i >= 0)
+				return children[i];
+			i = -i - 1;
+			char[] k = new char[keys.length + 1];
+			Node[] n = new Node[children.length + 1];
+			System.arraycopy(keys, 0, k, 0, i);
+			System.arraycopy(children, 0, n, 0, i);
+			System.arraycopy(keys, i, k, i + 1, keys.length - i);
+			System.arraycopy(children, i, n, i + 1, children.length - i);
+			k[i] = c;
+			n[i] = new Node();
+			keys = k;
+			children = n;
+			return n[i];
+		}
+	}
+
+	private final Node root = new Node();
+	private int size = 0;
+	private int nodes = 1;
+
+	/**
+	 * Adds a word.
+	 *
+	 * @param word the word
+	 * @return true if the word was not in the trie
+	 */
+	boolean add(String word) {
+		Node node = root;
+		for (int i = 0; i < word.length(); i++) {
+			Node child = node.child(word.charAt(i));
+			if (child == null) {
+				child = node.addChild(word.charAt(i));
+				nodes++;
+			}
+			node = child;
+		}
+		if (node.word != null)
+			return false;
+		node.word = word;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes a word. Empty nodes are left in place and reused if the word comes back.
+	 *
+	 * @param word the word
+	 * @return true if the word was in the trie
+	 */
+	boolean remove(String word) {
+		Node node = root;
+		for (int i = 0; i < word.length() && node != null; i++)
+			node = node.child(word.charAt(i));
+		if (node == null || node.word == null)
+			return false;
+		node.word = null;
+		size--;
+		return true;
+	}
+
+	/**
+	 * @param word the word
+	 * @return true if the word is in the trie
+	 */
+	boolean contains(String word) {
+		Node node = root;
+		for (int i = 0; i < word.length() && node != null; i++)
+			node = node.child(word.charAt(i));
+		return node != null && node.word != null;
+	}
+
+	/**
+	 * @return number of words in the trie
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return estimated heap bytes of the nodes (the words are shared with the graph and not counted)
+	 */
+	long getMemoryBytes() {
+		return estimateBytes(nodes);
+	}
+
+	/**
+	 * Estimates the heap bytes of a trie.
+	 *
+	 * @param nodes number of nodes
+	 * @return estimated bytes
+	 */
+	static long estimateBytes(long nodes) {
+		// node object, its keys and children arrays, and one key and one child reference per edge of the trie
+		return nodes * (MemoryFootprint.align(12 + 3 * 4) + 2 * 16) + MemoryFootprint.align((nodes - 1) * 6);
+	}
+
+	/**
+	 * Passes every word accepted by the automaton to action, in sorted order.
+	 *
+	 * @param automaton automaton for the query word
+	 * @param action receives the accepted words
+	 */
+	void forEachMatch(LevenshteinAutomaton automaton, Consumer<String> action) {
+		visit(root, automaton, null, (char) 0, automaton.start(), action);
+	}
+
+	private void visit(Node node, LevenshteinAutomaton automaton, int[] before, char prevChar, int[] state,
+			Consumer<String> action) {
+		if (node.word != null && automaton.isMatch(state))
+			action.accept(node.word);
+		for (int i = 0; i < node.keys.length; i++) {
+			char c = node.keys[i];
+			int[] next = automaton.step(before, prevChar, state, c);
+			// skip children from which no word is close enough
+			if (automaton.canMatch(next))
+				visit(node.children[i], automaton, state, c, next, action);
+		}
+	}
+}